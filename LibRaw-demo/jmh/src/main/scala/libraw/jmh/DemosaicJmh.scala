@@ -0,0 +1,119 @@
+package libraw.jmh
+
+import libraw.examples.SyntheticBayer
+import libraw.examples.SyntheticBayer.BayerPattern
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.LibRaw
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, libraw_strerror}
+import org.openjdk.jmh.annotations.*
+
+import java.util.concurrent.TimeUnit
+import scala.compiletime.uninitialized
+import scala.util.Using
+
+/**
+ * JMH benchmark of LibRaw demosaicing on synthetic Bayer frames generated by `SyntheticBayer`.
+ *
+ * Each operation loads a frame with `open_bayer`, unpacks it, runs `dcraw_process`,
+ * and creates the output image with `dcraw_make_mem_image`, as an application would do for each frame.
+ *
+ * Run all combinations of parameters with:
+ * {{{
+ *   sbt "jmh/Jmh/run -prof gc"
+ * }}}
+ * or select parameter values, for instance:
+ * {{{
+ *   sbt "jmh/Jmh/run -prof gc -p userQual=0,3,11 -p halfSize=false -p pattern=BGGR -p frameSize=2048x1536"
+ * }}}
+ *
+ * `-prof gc` reports allocation rate on the Java heap (`gc.alloc.rate` and `gc.alloc.rate.norm`).
+ * Memory allocated by LibRaw itself is native and is not included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+class DemosaicJmh {
+
+  /**
+   * Demosaic algorithm: 0 - linear, 1 - VNG, 2 - PPG, 3 - AHD, 4 - DCB, 11 - DHT, 12 - AAHD.
+   * Ignored when `halfSize` is `true`.
+   */
+  @Param(Array("0", "1", "2", "3", "4", "11", "12"))
+  var userQual: Int = uninitialized
+
+  /** Output at half resolution, each 2x2 Bayer block becomes a single pixel without interpolation. */
+  @Param(Array("false", "true"))
+  var halfSize: Boolean = uninitialized
+
+  /** Bits per sample of the output image, 8 or 16. */
+  @Param(Array("8", "16"))
+  var outputBps: Int = uninitialized
+
+  @Param(Array("RGGB", "BGGR", "GRBG", "GBRG"))
+  var pattern: String = uninitialized
+
+  /** Frame width x height. */
+  @Param(Array("1024x768", "2048x1536", "4096x3072"))
+  var frameSize: String = uninitialized
+
+  private var width: Int                 = uninitialized
+  private var height: Int                = uninitialized
+  private var bayerPattern: BayerPattern = uninitialized
+  private var data: BytePointer          = uninitialized
+  private var lr: LibRaw                 = uninitialized
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    frameSize.split('x').map(_.trim.toInt) match {
+      case Array(w, h) =>
+        width = w
+        height = h
+      case _ =>
+        throw new IllegalArgumentException(s"Expecting frame size as <width>x<height>, got: $frameSize")
+    }
+    bayerPattern = BayerPattern.valueOf(pattern)
+
+    val frame = SyntheticBayer.generate(width, height, bayerPattern)
+    data = new BytePointer(frame.length.toLong).put(frame, 0, frame.length)
+    lr = new LibRaw()
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    lr.close()
+    data.close()
+  }
+
+  /** @return size of the output image in bytes */
+  @Benchmark
+  def demosaic(): Int = {
+    SyntheticBayer.openBayer(lr, data, width, height, bayerPattern)
+
+    val params = lr.imgdata().params
+    params.user_qual(userQual)
+    params.half_size(if (halfSize) 1 else 0)
+    params.output_bps(outputBps)
+
+    check(lr.unpack(), "unpack")
+    check(lr.dcraw_process(), "dcraw_process")
+
+    val err   = Array[Int](0)
+    val image = lr.dcraw_make_mem_image(err)
+    check(err.head, "dcraw_make_mem_image")
+    val size = image.data_size()
+    LibRaw.dcraw_clear_mem(image)
+
+    lr.recycle()
+    size
+  }
+
+  private def check(err: Int, prefix: String): Unit = {
+    if (err != LibRaw_errors.LIBRAW_SUCCESS.value) {
+      val msg = Using.resource(libraw_strerror(err))(_.getString)
+      throw new Exception(prefix + " : " + msg + " [" + err + "]")
+    }
+  }
+}
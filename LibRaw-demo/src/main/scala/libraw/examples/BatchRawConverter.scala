@@ -0,0 +1,61 @@
+package libraw.examples
+
+import java.io.File
+import scala.util.{Failure, Success}
+
+/**
+ * Converts all raw files in a directory using a pool of worker threads, see `RawBatch`.
+ *
+ * Output file names are derived from input file names, for instance, `IMG_5604.CR2` is written as `IMG_5604.tif`.
+ *
+ * Usage:
+ * {{{
+ *   BatchRawConverter <input directory> <output directory> [number of threads]
+ * }}}
+ */
+object BatchRawConverter {
+
+  def main(args: Array[String]): Unit = {
+
+    val srcDir    = new File(if (args.length > 0) args(0) else "data")
+    val dstDir    = new File(if (args.length > 1) args(1) else "tmp")
+    val nbThreads = if (args.length > 2) args(2).toInt else Runtime.getRuntime.availableProcessors
+
+    println("LibRaw.version(): " + RawProcessor.libRawVersion)
+
+    val params = RawProcessor.Params(output_tiff = true)
+
+    val files = RawBatch.listRawFiles(srcDir)
+    println(s"Converting ${files.length} raw files from ${srcDir.getPath} to ${dstDir.getPath} using $nbThreads threads")
+
+    if (!dstDir.exists() && !dstDir.mkdirs()) {
+      throw new Exception("Cannot create output directory: " + dstDir.getAbsolutePath)
+    }
+
+    val t0 = System.nanoTime()
+    val results = RawBatch.run(files, nbThreads) { (processor, file) =>
+      val dstFile    = new File(dstDir, s"${RawBatch.baseName(file)}.${params.ext}")
+      val stageTimes = new StageTimes()
+      processor.process(file.getPath, dstFile.getPath, params, stageTimes)
+      stageTimes
+    }
+    val seconds = (System.nanoTime() - t0) / 1e9
+
+    val stageTimes = new StageTimes()
+    var nbFailed   = 0
+    for ((file, result) <- results) {
+      result match {
+        case Success(t) => stageTimes ++= t
+        case Failure(e) =>
+          nbFailed += 1
+          println(s"Failed to convert ${file.getPath}: ${e.getMessage}")
+      }
+    }
+
+    val nbConverted = results.length - nbFailed
+    println(f"Converted $nbConverted files in $seconds%.2f s: ${nbConverted / seconds}%.2f files/s")
+    if (nbFailed > 0) println(s"Failed: $nbFailed")
+    println("Time per stage, summed over all threads:")
+    stageTimes.printResults()
+  }
+}
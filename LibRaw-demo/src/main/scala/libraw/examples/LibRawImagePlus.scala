@@ -0,0 +1,224 @@
+package libraw.examples
+
+import ij.process.{ByteProcessor, ColorProcessor, ShortProcessor}
+import ij.{CompositeImage, ImagePlus, ImageStack}
+import org.bytedeco.libraw.global.LibRaw.LibRaw_image_formats
+import org.bytedeco.libraw.libraw_processed_image_t
+
+import java.nio.{ByteBuffer, ByteOrder, ShortBuffer}
+import java.util.stream.IntStream
+
+/**
+ * Conversion of images created by `LibRaw.dcraw_make_mem_image` to ImageJ `ImagePlus`.
+ *
+ * LibRaw stores pixels interleaved (RGBRGB...), ImageJ expects a separate array per channel.
+ * The image memory is read through a `ByteBuffer` view, for 16-bit images a native-order `ShortBuffer` view,
+ * so samples do not need to be assembled from bytes. Each image row is bulk-copied to a scratch array and split
+ * into channels in a tight loop, with unrolled loops for 3 and 4 channels.
+ * Rows can be optionally split into bands that are converted in parallel.
+ */
+object LibRawImagePlus {
+
+  /**
+   * Convert an image to `ImagePlus`.
+   *
+   * 8-bit images with 3 channels are converted to `ColorProcessor`, other 8-bit images to a stack of `ByteProcessor`s.
+   * 16-bit images are converted to a stack of `ShortProcessor`s wrapped in a `CompositeImage`.
+   * This matches conversion done by `DemosaicBenchmark`.
+   *
+   * @param image   image created by `dcraw_make_mem_image`, it is not released by this method.
+   * @param nbBands number of row bands converted in parallel, 1 converts on the calling thread.
+   */
+  def toImagePlus(image: libraw_processed_image_t, nbBands: Int = 1): ImagePlus = {
+    require(
+      image.`type`().value == LibRaw_image_formats.LIBRAW_IMAGE_BITMAP.value,
+      "Expecting bitmap image, got: " + image.`type`()
+    )
+    require(nbBands > 0, s"Number of bands must be greater than 0, got: $nbBands")
+
+    val width  = image.width() & 0xffff
+    val height = image.height() & 0xffff
+    val colors = image.colors() & 0xffff
+    val bits   = image.bits() & 0xffff
+
+    val data = image.data().capacity(image.data_size().toLong & 0xffffffffL).asByteBuffer()
+
+    bits match {
+      case 8 =>
+        val slicePixels = Array.fill(colors)(new Array[Byte](width * height))
+        inBands(height, nbBands) { (rowStart, rowEnd) =>
+          deinterleave(data, width, colors, slicePixels, rowStart, rowEnd)
+        }
+
+        if (colors == 3) {
+          val cp = new ColorProcessor(width, height)
+          cp.setRGB(slicePixels(0), slicePixels(1), slicePixels(2))
+          new ImagePlus("", cp)
+        } else {
+          val imageStack = new ImageStack(width, height)
+          for ((pixels, i) <- slicePixels.zipWithIndex) {
+            imageStack.addSlice(s"${i + 1}", new ByteProcessor(width, height, pixels))
+          }
+          new ImagePlus("", imageStack)
+        }
+
+      case 16 =>
+        val shorts      = data.order(ByteOrder.nativeOrder()).asShortBuffer()
+        val slicePixels = Array.fill(colors)(new Array[Short](width * height))
+        inBands(height, nbBands) { (rowStart, rowEnd) =>
+          deinterleave(shorts, width, colors, slicePixels, rowStart, rowEnd)
+        }
+
+        val imageStack = new ImageStack(width, height)
+        val sliceNames = if (colors == 3) Seq("Red", "Green", "Blue") else (1 to colors).map(_.toString)
+        for ((pixels, name) <- slicePixels.zip(sliceNames)) {
+          imageStack.addSlice(name, new ShortProcessor(width, height, pixels, null))
+        }
+
+        val dst = new ImagePlus("", imageStack)
+        if (colors <= CompositeImage.MAX_CHANNELS)
+          new CompositeImage(dst, if (colors == 3) CompositeImage.COMPOSITE else CompositeImage.GRAYSCALE)
+        else
+          dst
+
+      case b =>
+        throw new IllegalArgumentException(s"Unsupported bits per sample: $b")
+    }
+  }
+
+  /**
+   * Split rows `[rowStart, rowEnd)` of interleaved 8-bit `src` into separate channel arrays `dst`.
+   * Position of `src` is not modified.
+   */
+  def deinterleave(src: ByteBuffer,
+                   width: Int,
+                   colors: Int,
+                   dst: Array[Array[Byte]],
+                   rowStart: Int,
+                   rowEnd: Int): Unit = {
+    val rowLength = width * colors
+    val row       = new Array[Byte](rowLength)
+    val buf       = src.duplicate()
+    var y         = rowStart
+    while (y < rowEnd) {
+      buf.position(y * rowLength)
+      buf.get(row, 0, rowLength)
+      val offset = y * width
+      colors match {
+        case 3 =>
+          val c0 = dst(0); val c1 = dst(1); val c2 = dst(2)
+          var x  = 0
+          var s  = 0
+          while (x < width) {
+            c0(offset + x) = row(s)
+            c1(offset + x) = row(s + 1)
+            c2(offset + x) = row(s + 2)
+            x += 1
+            s += 3
+          }
+        case 4 =>
+          val c0 = dst(0); val c1 = dst(1); val c2 = dst(2); val c3 = dst(3)
+          var x  = 0
+          var s  = 0
+          while (x < width) {
+            c0(offset + x) = row(s)
+            c1(offset + x) = row(s + 1)
+            c2(offset + x) = row(s + 2)
+            c3(offset + x) = row(s + 3)
+            x += 1
+            s += 4
+          }
+        case 1 =>
+          System.arraycopy(row, 0, dst(0), offset, width)
+        case _ =>
+          var c = 0
+          while (c < colors) {
+            val cc = dst(c)
+            var x  = 0
+            var s  = c
+            while (x < width) {
+              cc(offset + x) = row(s)
+              x += 1
+              s += colors
+            }
+            c += 1
+          }
+      }
+      y += 1
+    }
+  }
+
+  /**
+   * Split rows `[rowStart, rowEnd)` of interleaved 16-bit `src` into separate channel arrays `dst`.
+   * Position of `src` is not modified.
+   */
+  def deinterleave(src: ShortBuffer,
+                   width: Int,
+                   colors: Int,
+                   dst: Array[Array[Short]],
+                   rowStart: Int,
+                   rowEnd: Int): Unit = {
+    val rowLength = width * colors
+    val row       = new Array[Short](rowLength)
+    val buf       = src.duplicate()
+    var y         = rowStart
+    while (y < rowEnd) {
+      buf.position(y * rowLength)
+      buf.get(row, 0, rowLength)
+      val offset = y * width
+      colors match {
+        case 3 =>
+          val c0 = dst(0); val c1 = dst(1); val c2 = dst(2)
+          var x  = 0
+          var s  = 0
+          while (x < width) {
+            c0(offset + x) = row(s)
+            c1(offset + x) = row(s + 1)
+            c2(offset + x) = row(s + 2)
+            x += 1
+            s += 3
+          }
+        case 4 =>
+          val c0 = dst(0); val c1 = dst(1); val c2 = dst(2); val c3 = dst(3)
+          var x  = 0
+          var s  = 0
+          while (x < width) {
+            c0(offset + x) = row(s)
+            c1(offset + x) = row(s + 1)
+            c2(offset + x) = row(s + 2)
+            c3(offset + x) = row(s + 3)
+            x += 1
+            s += 4
+          }
+        case 1 =>
+          System.arraycopy(row, 0, dst(0), offset, width)
+        case _ =>
+          var c = 0
+          while (c < colors) {
+            val cc = dst(c)
+            var x  = 0
+            var s  = c
+            while (x < width) {
+              cc(offset + x) = row(s)
+              x += 1
+              s += colors
+            }
+            c += 1
+          }
+      }
+      y += 1
+    }
+  }
+
+  /** Split `height` rows into `nbBands` bands and run `op` on each, in parallel when there is more than one band. */
+  private def inBands(height: Int, nbBands: Int)(op: (Int, Int) => Unit): Unit = {
+    val n = math.min(nbBands, math.max(height, 1))
+    if (n == 1) {
+      op(0, height)
+    } else {
+      IntStream.range(0, n).parallel().forEach { b =>
+        op(b * height / n, (b + 1) * height / n)
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package libraw.examples
+
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, LibRaw_image_formats, libraw_strerror}
+import org.bytedeco.libraw.{LibRaw, libraw_processed_image_t}
+import org.bytedeco.opencv.global.opencv_core.{CV_16UC, CV_8UC}
+import org.bytedeco.opencv.global.opencv_imgproc.{COLOR_RGB2BGR, cvtColor}
+import org.bytedeco.opencv.opencv_core.Mat
+
+import scala.util.Using
+
+/**
+ * Conversion of images processed by LibRaw to OpenCV `Mat`, without writing them to a PPM or TIFF file first.
+ *
+ * Call these methods after `LibRaw.dcraw_process()`. The image is created in memory using `dcraw_make_mem_image`,
+ * 8-bit or 16-bit depending on `output_bps` parameter.
+ */
+object LibRawMat {
+
+  /**
+   * Image created by `dcraw_make_mem_image` and a `Mat` that shares its memory, without copying.
+   *
+   * Pixels in the `mat` are in RGB order, as created by LibRaw.
+   * The `mat` is valid only till this object is closed, `close()` frees the image memory with `dcraw_clear_mem`.
+   * The image memory is independent of the `LibRaw` instance, that can be recycled before this object is closed.
+   */
+  class MemImageMat private[LibRawMat] (image: libraw_processed_image_t) extends AutoCloseable {
+
+    val mat: Mat = wrap(image)
+
+    private var closed = false
+
+    override def close(): Unit = {
+      if (!closed) {
+        mat.close()
+        LibRaw.dcraw_clear_mem(image)
+        closed = true
+      }
+    }
+  }
+
+  /**
+   * Create an image from the last processed data and share its memory with a `Mat` (zero copy).
+   * Returned object needs to be closed to release the image memory.
+   */
+  def makeMemImageMat(lr: LibRaw): MemImageMat = new MemImageMat(makeMemImage(lr))
+
+  /**
+   * Create a `Mat` from the last processed data, with a single bulk copy that also converts from RGB to BGR channel
+   * order used by OpenCV.
+   * The returned `Mat` owns its data and does not depend on the `LibRaw` instance.
+   */
+  def makeMat(lr: LibRaw): Mat = {
+    Using.resource(makeMemImageMat(lr)) { mi =>
+      val dst = new Mat()
+      if (mi.mat.channels() == 3) cvtColor(mi.mat, dst, COLOR_RGB2BGR) else mi.mat.copyTo(dst)
+      dst
+    }
+  }
+
+  /** `Mat` header for data in the `image`, the `image` memory has to outlive the returned `Mat`. */
+  private def wrap(image: libraw_processed_image_t): Mat = {
+    require(
+      image.`type`().value == LibRaw_image_formats.LIBRAW_IMAGE_BITMAP.value,
+      "Expecting bitmap image, got: " + image.`type`()
+    )
+
+    val width  = image.width() & 0xffff
+    val height = image.height() & 0xffff
+    val colors = image.colors() & 0xffff
+    val cvType = (image.bits() & 0xffff) match {
+      case 8  => CV_8UC(colors)
+      case 16 => CV_16UC(colors)
+      case b  => throw new IllegalArgumentException(s"Unsupported bits per sample: $b")
+    }
+
+    // 16-bit data is in native byte order, as expected by OpenCV
+    new Mat(height, width, cvType, image.data())
+  }
+
+  private def makeMemImage(lr: LibRaw): libraw_processed_image_t = {
+    val err   = Array[Int](0)
+    val image = lr.dcraw_make_mem_image(err)
+    if (err.head != LibRaw_errors.LIBRAW_SUCCESS.value || image == null) {
+      val msg = Using.resource(libraw_strerror(err.head))(_.getString)
+      throw new Exception("Error while calling `dcraw_make_mem_image` : " + msg + " [" + err.head + "]")
+    }
+    image
+  }
+}
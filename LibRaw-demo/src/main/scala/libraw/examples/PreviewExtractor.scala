@@ -0,0 +1,94 @@
+package libraw.examples
+
+import java.io.{File, PrintWriter}
+import java.nio.file.Files
+import scala.util.{Failure, Success, Using}
+
+/**
+ * Extracts previews of all raw files in a directory, for catalog browsing, using a pool of worker threads.
+ *
+ * The embedded JPEG thumbnail is used when available, see `RawProcessor.extractPreview`,
+ * otherwise the raw data is decoded at half size.
+ * Previews are written to the output directory together with an index, `index.csv`, listing for each raw file
+ * its preview file, preview size, and whether the preview came from the embedded thumbnail.
+ *
+ * For comparison, the same files are then fully decoded, without writing the results, unless `--no-compare` is given.
+ *
+ * Usage:
+ * {{{
+ *   PreviewExtractor <input directory> <output directory> [number of threads] [minimum preview width] [--no-compare]
+ * }}}
+ */
+object PreviewExtractor {
+
+  def main(args: Array[String]): Unit = {
+
+    val compare   = !args.contains("--no-compare")
+    val arguments = args.filterNot(_ == "--no-compare")
+
+    val srcDir    = new File(if (arguments.length > 0) arguments(0) else "data")
+    val dstDir    = new File(if (arguments.length > 1) arguments(1) else "tmp/previews")
+    val nbThreads = if (arguments.length > 2) arguments(2).toInt else Runtime.getRuntime.availableProcessors
+    val minWidth  = if (arguments.length > 3) arguments(3).toInt else 0
+
+    val files = RawBatch.listRawFiles(srcDir)
+    println(s"Extracting previews of ${files.length} raw files from ${srcDir.getPath} using $nbThreads threads")
+
+    if (!dstDir.exists() && !dstDir.mkdirs()) {
+      throw new Exception("Cannot create output directory: " + dstDir.getAbsolutePath)
+    }
+
+    val t0 = System.nanoTime()
+    val results = RawBatch.run(files, nbThreads) { (processor, file) =>
+      val stageTimes = new StageTimes()
+      val preview    = processor.extractPreview(file.getPath, minWidth, stageTimes)
+      val dstFile    = new File(dstDir, s"${RawBatch.baseName(file)}.${preview.ext}")
+      stageTimes.time("write") {
+        Files.write(dstFile.toPath, preview.data)
+      }
+      (preview, dstFile, stageTimes)
+    }
+    val seconds = (System.nanoTime() - t0) / 1e9
+
+    val stageTimes   = new StageTimes()
+    val indexFile    = new File(dstDir, "index.csv")
+    var nbThumbnails = 0
+    var nbFailed     = 0
+    Using.resource(new PrintWriter(indexFile, "UTF-8")) { index =>
+      index.println("raw_file,preview_file,width,height,from_thumbnail")
+      for ((file, result) <- results) {
+        result match {
+          case Success((preview, dstFile, t)) =>
+            stageTimes ++= t
+            if (preview.fromThumbnail) nbThumbnails += 1
+            index.println(s"${file.getName},${dstFile.getName},${preview.width},${preview.height},${preview.fromThumbnail}")
+          case Failure(e) =>
+            nbFailed += 1
+            println(s"Failed to extract preview of ${file.getPath}: ${e.getMessage}")
+        }
+      }
+    }
+
+    val nbPreviews = results.length - nbFailed
+    println(f"Extracted $nbPreviews previews in $seconds%.2f s: ${nbPreviews / seconds}%.2f previews/s")
+    println(s"  from embedded thumbnail: $nbThumbnails, decoded at half size: ${nbPreviews - nbThumbnails}")
+    if (nbFailed > 0) println(s"Failed: $nbFailed")
+    println("Wrote index: " + indexFile.getPath)
+    println("Time per stage, summed over all threads:")
+    stageTimes.printResults()
+
+    if (compare) {
+      println()
+      println("Full decode of the same files, for comparison")
+      val t1 = System.nanoTime()
+      val decoded = RawBatch.run(files, nbThreads) { (processor, file) =>
+        processor.decodeToMat(file.getPath).close()
+      }
+      val decodeSeconds = (System.nanoTime() - t1) / 1e9
+      val nbDecoded     = decoded.count(_._2.isSuccess)
+      println(f"Decoded $nbDecoded files in $decodeSeconds%.2f s: ${nbDecoded / decodeSeconds}%.2f files/s")
+      if (nbPreviews > 0 && nbDecoded > 0)
+        println(f"Preview speed-up: ${(nbPreviews / seconds) / (nbDecoded / decodeSeconds)}%.1f x")
+    }
+  }
+}
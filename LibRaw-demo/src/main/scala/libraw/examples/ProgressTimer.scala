@@ -0,0 +1,92 @@
+package libraw.examples
+
+import org.bytedeco.javacpp.Pointer
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_progress, libraw_strprogress}
+import org.bytedeco.libraw.progress_callback
+
+/**
+ * LibRaw progress callback that measures time spent in each processing stage, like "Loading raw data",
+ * "Scaling colors", or "Interpolating".
+ *
+ * LibRaw reports the start, and often the end, of each stage. A stage is timed from its first report till the first
+ * report of the next stage, or till `finish()` for the last stage.
+ * LibRaw makes no reports while opening the image, time from `start()` till the first report, which includes
+ * opening, identifying, and the start of unpacking, is recorded as the "Open" stage.
+ * The callback only reads the clock and updates a few array entries, it does not allocate.
+ *
+ * Usage:
+ * {{{
+ *   val timer = new ProgressTimer()
+ *   libRaw.set_progress_handler(timer, null)
+ *   timer.start()
+ *   // open, unpack, and dcraw_process
+ *   timer.finish(histograms)
+ * }}}
+ * A timer is not thread safe, it should be set on a single `LibRaw` instance.
+ */
+class ProgressTimer extends progress_callback {
+
+  import ProgressTimer.Open
+
+  // LibRaw_progress values are single bits, stages are indexed by bit position, `Open` follows them
+  private val nanos = new Array[Long](Open + 1)
+  private val seen  = new Array[Boolean](Open + 1)
+
+  private var current      = -1
+  private var currentStart = 0L
+
+  override def call(data: Pointer, stage: LibRaw_progress, iteration: Int, expected: Int): Int = {
+    val now = System.nanoTime()
+    // LIBRAW_PROGRESS_START is 0, it is reported before any other stage
+    val i = if (stage.value == 0) Open else Integer.numberOfTrailingZeros(stage.value)
+    if (i != current) {
+      closeCurrent(now)
+      current = i
+      currentStart = now
+      seen(i) = true
+    }
+    // Returning non-zero would cancel processing
+    0
+  }
+
+  /** Reset measurements and start timing the "Open" stage, call right before opening the next image. */
+  def start(): Unit = {
+    reset()
+    current = Open
+    currentStart = System.nanoTime()
+    seen(Open) = true
+  }
+
+  /** End timing of the last stage and add time of each stage of the current image to `histograms`. */
+  def finish(histograms: StageHistograms): Unit = {
+    closeCurrent(System.nanoTime())
+    for (i <- nanos.indices if seen(i)) {
+      histograms.record(ProgressTimer.stageName(i), nanos(i))
+    }
+    reset()
+  }
+
+  private def reset(): Unit = {
+    java.util.Arrays.fill(nanos, 0L)
+    java.util.Arrays.fill(seen, false)
+    current = -1
+  }
+
+  private def closeCurrent(now: Long): Unit = {
+    if (current >= 0) nanos(current) += now - currentStart
+    current = -1
+  }
+}
+
+object ProgressTimer {
+
+  /** Index of the "Open" pseudo-stage, from `start()` till the first progress report. */
+  private val Open = 32
+
+  private val stageNames: Array[String] =
+    Array.tabulate(32)(i => Option(libraw_strprogress(1 << i)).map(_.getString).getOrElse(s"Stage ${1 << i}")) :+
+      "Open"
+
+  /** Name of stage given by bit position of its `LibRaw_progress` value, or `Open` for the "Open" pseudo-stage. */
+  def stageName(bit: Int): String = stageNames(bit)
+}
@@ -0,0 +1,81 @@
+package libraw.examples
+
+import libraw.examples.RawProcessor.InputMode
+
+import java.io.File
+import java.util.concurrent.{ArrayBlockingQueue, Executors, TimeUnit}
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.util.Try
+
+/**
+ * Runs a task on many raw files using a bounded pool of worker threads.
+ *
+ * There is one `RawProcessor`, and so one `LibRaw` instance, for each worker.
+ * A task borrows a processor for the duration of a single file, the `LibRaw` instance is recycled after each file,
+ * so it can be reused for the next one.
+ */
+object RawBatch {
+
+  /** Extensions of raw files recognized by `listRawFiles` */
+  val RawExtensions: Set[String] =
+    Set("3fr", "arw", "cr2", "cr3", "crw", "dcr", "dng", "erf", "kdc", "mef", "mos", "mrw", "nef", "nrw", "orf", "pef",
+        "raf", "raw", "rw2", "rwl", "sr2", "srf", "srw", "x3f")
+
+  /** Raw files in the `dir`, sorted by name. */
+  def listRawFiles(dir: File): Seq[File] = {
+    require(dir.isDirectory, s"Not a directory: ${dir.getAbsolutePath}")
+    dir
+      .listFiles()
+      .filter(f => f.isFile && RawExtensions.contains(extension(f).toLowerCase))
+      .sortBy(_.getName)
+      .toSeq
+  }
+
+  /** File name without extension. */
+  def baseName(file: File): String = {
+    val name = file.getName
+    val i    = name.lastIndexOf('.')
+    if (i > 0) name.substring(0, i) else name
+  }
+
+  private def extension(file: File): String = {
+    val name = file.getName
+    val i    = name.lastIndexOf('.')
+    if (i > 0) name.substring(i + 1) else ""
+  }
+
+  /**
+   * Run `task` on each of the `files` using `nbThreads` workers.
+   *
+   * @param inputMode how raw file content is passed to LibRaw by the workers
+   * @return result of the task for each of the files, in the same order as `files`
+   */
+  def run[R](files: Seq[File], nbThreads: Int, inputMode: InputMode = InputMode.OpenFile)
+            (task: (RawProcessor, File) => R): Seq[(File, Try[R])] = {
+    require(nbThreads > 0, s"Number of threads must be greater than 0, got: $nbThreads")
+
+    val processors = new ArrayBlockingQueue[RawProcessor](nbThreads)
+    for (_ <- 0 until nbThreads) processors.put(new RawProcessor(verbose = false, inputMode = inputMode))
+
+    val executor = Executors.newFixedThreadPool(nbThreads)
+    try {
+      given ExecutionContext = ExecutionContext.fromExecutor(executor)
+      val results = Future.traverse(files) { file =>
+        Future {
+          val processor = processors.take()
+          try {
+            file -> Try(task(processor, file))
+          } finally {
+            processors.put(processor)
+          }
+        }
+      }
+      Await.result(results, Duration.Inf)
+    } finally {
+      executor.shutdown()
+      executor.awaitTermination(1, TimeUnit.MINUTES)
+      processors.forEach(_.close())
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package libraw.examples
+
+import libraw.examples.RawProcessor.InputMode
+import org.bytedeco.libraw.LibRaw
+
+import java.io.{File, PrintWriter}
+import java.time.Instant
+import scala.util.{Failure, Success, Using}
+
+/**
+ * Builds a catalog of raw files in a directory: camera, image dimensions, ISO, shutter, aperture, and timestamp.
+ *
+ * Only metadata is read, files are opened with `open_file` (or `open_buffer`, depending on the input mode)
+ * but their raw data is not unpacked. Files are scanned on a pool of worker threads, each with its own `LibRaw`
+ * instance, see `RawBatch`.
+ * The catalog is written as CSV, one row per file.
+ *
+ * Usage:
+ * {{{
+ *   RawCatalogScanner <input directory> <output CSV file> [number of threads] [OpenFile|MemoryMapped|DirectBuffer]
+ * }}}
+ */
+object RawCatalogScanner {
+
+  /** Metadata of a single raw file. */
+  case class Entry(file: String,
+                   fileSize: Long,
+                   make: String,
+                   model: String,
+                   width: Int,
+                   height: Int,
+                   rawWidth: Int,
+                   rawHeight: Int,
+                   isoSpeed: Float,
+                   shutter: Float,
+                   aperture: Float,
+                   focalLength: Float,
+                   timestamp: Long) {
+    def toCSV: String =
+      Seq(quote(file), fileSize, quote(make), quote(model), width, height, rawWidth, rawHeight, isoSpeed, shutter,
+          aperture, focalLength, if (timestamp > 0) Instant.ofEpochSecond(timestamp) else "").mkString(",")
+  }
+
+  val CSVHeader: String =
+    "file,file_size,make,model,width,height,raw_width,raw_height,iso,shutter_s,aperture,focal_length_mm,timestamp"
+
+  private def quote(s: String): String = "\"" + s.replace("\"", "\"\"") + "\""
+
+  /** Read metadata of `file` opened, but not unpacked, by `lr`. */
+  def readEntry(lr: LibRaw, file: File): Entry = {
+    val imgdata = lr.imgdata()
+    val idata   = imgdata.idata()
+    val sizes   = imgdata.sizes()
+    val other   = imgdata.other()
+    Entry(
+      file = file.getName,
+      fileSize = file.length(),
+      make = idata.make().getString.trim,
+      model = idata.model().getString.trim,
+      width = sizes.width() & 0xffff,
+      height = sizes.height() & 0xffff,
+      rawWidth = sizes.raw_width() & 0xffff,
+      rawHeight = sizes.raw_height() & 0xffff,
+      isoSpeed = other.iso_speed(),
+      shutter = other.shutter(),
+      aperture = other.aperture(),
+      focalLength = other.focal_len(),
+      timestamp = other.timestamp()
+    )
+  }
+
+  def main(args: Array[String]): Unit = {
+
+    val srcDir    = new File(if (args.length > 0) args(0) else "data")
+    val dstFile   = new File(if (args.length > 1) args(1) else "tmp/catalog.csv")
+    val nbThreads = if (args.length > 2) args(2).toInt else Runtime.getRuntime.availableProcessors
+    val inputMode = if (args.length > 3) InputMode.valueOf(args(3)) else InputMode.OpenFile
+
+    val files = RawBatch.listRawFiles(srcDir)
+    println(s"Scanning ${files.length} raw files in ${srcDir.getPath} using $nbThreads threads, input mode: $inputMode")
+
+    val t0 = System.nanoTime()
+    val results = RawBatch.run(files, nbThreads, inputMode) { (processor, file) =>
+      processor.withOpened(file.getPath) { r =>
+        readEntry(r, file)
+      }
+    }
+    val seconds = (System.nanoTime() - t0) / 1e9
+
+    Option(dstFile.getParentFile).foreach(_.mkdirs())
+    var nbFailed = 0
+    Using.resource(new PrintWriter(dstFile, "UTF-8")) { out =>
+      out.println(CSVHeader)
+      for ((file, result) <- results) {
+        result match {
+          case Success(entry) => out.println(entry.toCSV)
+          case Failure(e) =>
+            nbFailed += 1
+            println(s"Failed to read ${file.getPath}: ${e.getMessage}")
+        }
+      }
+    }
+
+    val nbScanned = results.length - nbFailed
+    println(f"Scanned $nbScanned files in $seconds%.2f s: ${nbScanned / seconds}%.2f files/s")
+    if (nbFailed > 0) println(s"Failed: $nbFailed")
+    println("Wrote catalog: " + dstFile.getPath)
+  }
+}
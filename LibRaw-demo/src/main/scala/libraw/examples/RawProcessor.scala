@@ -1,9 +1,15 @@
 package libraw.examples
 
-import libraw.examples.RawProcessor.Params
-import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, libraw_strerror}
-import org.bytedeco.libraw.{LibRaw, libraw_output_params_t}
+import libraw.examples.RawProcessor.{InputMode, Params, Preview}
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, LibRaw_image_formats, libraw_strerror}
+import org.bytedeco.libraw.{LibRaw, libraw_output_params_t, progress_callback}
+import org.bytedeco.opencv.global.opencv_imgcodecs.imencode
+import org.bytedeco.opencv.opencv_core.Mat
 
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{Paths, StandardOpenOption}
 import scala.util.Using
 
 object RawProcessor {
@@ -22,7 +28,25 @@ object RawProcessor {
     case BPS8 extends BPS(8)
     case BPS16 extends BPS(16)
 
-  case class Params( // demosaic_algorithm = None,
+  /** How raw file content is passed to LibRaw. */
+  enum InputMode:
+    /** `LibRaw.open_file`, LibRaw reads the file using its own buffered I/O */
+    case OpenFile
+    /** File is memory-mapped and the mapping is passed to `LibRaw.open_buffer` */
+    case MemoryMapped
+    /** File is read with a single NIO call into a reusable direct buffer that is passed to `LibRaw.open_buffer` */
+    case DirectBuffer
+
+  /**
+   * Preview image encoded as JPEG or PPM, ready to be written to a file with extension `ext`.
+   *
+   * @param fromThumbnail `true` if the preview is the thumbnail embedded in the raw file, `false` if it was
+   *                      decoded from raw data at half size
+   */
+  case class Preview(data: Array[Byte], ext: String, width: Int, height: Int, fromThumbnail: Boolean)
+
+  case class Params( // LibRaw `user_qual`: 0 - linear, 1 - VNG, 2 - PPG, 3 - AHD, 4 - DCB, 11 - DHT, 12 - AAHD
+                     demosaic_algorithm     : Option[Int] = None,
                      half_size              : Boolean = false,
                      four_color_rgb         : Boolean = false,
                      dcb_iterations         : Int = 0,
@@ -53,6 +77,7 @@ object RawProcessor {
   ) {
     def applyTo(params: libraw_output_params_t): Unit = {
 
+      demosaic_algorithm.foreach(a => params.user_qual(a))
       params.half_size(toInt(half_size))
       params.four_color_rgb(toInt(four_color_rgb))
       params.dcb_iterations(dcb_iterations)
@@ -87,58 +112,248 @@ object RawProcessor {
 
 }
 
-class RawProcessor extends AutoCloseable {
+/**
+ * Higher level wrapper for the LibRaw raw processor.
+ *
+ * A single `LibRaw` instance is created on first use and reused for following files, it is recycled after each file.
+ * Instances are not thread safe, use a separate `RawProcessor` for each thread.
+ *
+ * @param verbose   if `true` progress messages are printed
+ * @param inputMode how content of the raw file is passed to LibRaw
+ */
+class RawProcessor(verbose: Boolean = true, inputMode: InputMode = InputMode.OpenFile) extends AutoCloseable {
 
   private var libRaw: Option[LibRaw] = None
 
+  /** Progress callback set on the `LibRaw` instance, referenced here so it is not garbage collected */
+  private var progressCallback: Option[progress_callback] = None
+
+  /** Buffer reused for reading files in `InputMode.DirectBuffer` mode */
+  private var directBuffer: ByteBuffer = ByteBuffer.allocateDirect(0)
+
+  /** Content of the currently open file, it has to be kept till LibRaw instance is recycled */
+  private var openBuffer: Option[(ByteBuffer, BytePointer)] = None
+
   /**
    * @throws Exception if error code is other than success
    */
   private def handleError(err: Int, prefix: String): Unit = {
     if (err != LibRaw_errors.LIBRAW_SUCCESS.value) {
-      val msg = Using.resource(libraw_strerror(err))(_.toString)
+      val msg = Using.resource(libraw_strerror(err))(_.getString)
       throw new Exception(prefix + " : " + msg)
     }
   }
 
-  def process(srcFile: String, dstFile: String, params: Params = Params()): Unit = {
+  private def log(message: => String): Unit = if (verbose) System.out.println(message)
 
-    // TODO: this will be created when opening the file
-    libRaw = Option(new LibRaw())
+  /** `LibRaw` instance owned by this processor, created on first use */
+  private def rawProcessor: LibRaw = libRaw.getOrElse {
+    val r = new LibRaw()
+    libRaw = Option(r)
+    r
+  }
 
-    libRaw match {
-      case Some(r) =>
-        params.applyTo(r.imgdata.params)
+  /**
+   * Set a progress callback, for instance, `ProgressTimer`, called by LibRaw during processing of following files.
+   */
+  def setProgressCallback(callback: progress_callback): Unit = {
+    progressCallback = Option(callback)
+    rawProcessor.set_progress_handler(callback, null)
+  }
 
-        //   if (verbosity > 1)
-        //    RawProcessor.set_progress_handler(my_progress_callback,
-        //                                      (void *)"Sample data passed");
+  /**
+   * Decode `srcFile` and write processed image to `dstFile`.
+   *
+   * @param stageTimes if provided, time spent in each processing stage is added to it
+   */
+  def process(srcFile: String, dstFile: String, params: Params = Params(), stageTimes: StageTimes = new StageTimes())
+  : Unit = {
 
-        System.out.println("Reading: " + srcFile)
-        var err = r.open_file(srcFile)
-        handleError(err, "Cannot read " + srcFile)
+    withDecoded(srcFile, params, stageTimes) { r =>
+      log("Writing file: " + dstFile)
+      stageTimes.time("write") {
+        handleError(r.dcraw_ppm_tiff_writer(dstFile), "Cannot write " + dstFile)
+      }
+    }
+  }
 
+  /**
+   * Decode `srcFile` to an OpenCV `Mat` in memory, without writing it to a file.
+   *
+   * The `Mat` has 3 channels in BGR order, 8-bit or 16-bit depending on `params.output_bps`.
+   *
+   * @see LibRawMat
+   */
+  def decodeToMat(srcFile: String, params: Params = Params(), stageTimes: StageTimes = new StageTimes()): Mat = {
+    withDecoded(srcFile, params, stageTimes) { r =>
+      stageTimes.time("to Mat") {
+        LibRawMat.makeMat(r)
+      }
+    }
+  }
 
-        System.out.println("Unpacking: " + srcFile)
-        err = r.unpack()
-        handleError(err, "Cannot unpack " + srcFile)
+  /**
+   * Decode `srcFile` to an image in memory shared, without copying, with an OpenCV `Mat` in RGB order.
+   *
+   * The returned object has to be closed to release the image memory.
+   *
+   * @see LibRawMat.MemImageMat
+   */
+  def decodeToMemImageMat(srcFile: String, params: Params = Params()): LibRawMat.MemImageMat = {
+    withDecoded(srcFile, params, new StageTimes())(LibRawMat.makeMemImageMat)
+  }
 
-        System.out.println("Processing")
-        err = r.dcraw_process
-        handleError(err, "Cannot process " + srcFile)
+  /**
+   * Extract a preview of `srcFile`, without decoding its raw data when possible.
+   *
+   * The embedded thumbnail, usually a JPEG, is returned if present and at least `minWidth` pixels wide.
+   * Otherwise, raw data is decoded at half size and encoded as JPEG.
+   *
+   * @param stageTimes if provided, time spent in each processing stage is added to it
+   */
+  def extractPreview(srcFile: String, minWidth: Int = 0, stageTimes: StageTimes = new StageTimes()): Preview = {
+    withOpened(srcFile, stageTimes) { r =>
+      val thumbnail = stageTimes.time("thumbnail") {
+        extractThumbnail(r, minWidth)
+      }
+      thumbnail.getOrElse {
+        log("No usable thumbnail, decoding at half size: " + srcFile)
+        Params(half_size = true).applyTo(r.imgdata.params)
+        stageTimes.time("unpack") {
+          handleError(r.unpack(), "Cannot unpack " + srcFile)
+        }
+        stageTimes.time("process") {
+          handleError(r.dcraw_process, "Cannot process " + srcFile)
+        }
+        stageTimes.time("encode") {
+          Using.Manager { use =>
+            val mat = use(LibRawMat.makeMat(r))
+            val buf = use(new BytePointer())
+            if (!imencode(".jpg", mat, buf)) throw new Exception("Cannot encode preview of " + srcFile)
+            val data = new Array[Byte](buf.capacity().toInt)
+            buf.get(data)
+            Preview(data, "jpg", mat.cols, mat.rows, fromThumbnail = false)
+          }.get
+        }
+      }
+    }
+  }
+
+  /** Embedded thumbnail of the open file, if it exists, is in a supported format, and is at least `minWidth` wide. */
+  private def extractThumbnail(r: LibRaw, minWidth: Int): Option[Preview] = {
+    if (r.unpack_thumb() != LibRaw_errors.LIBRAW_SUCCESS.value) return None
+
+    val err   = Array[Int](0)
+    val image = r.dcraw_make_mem_thumb(err)
+    if (err.head != LibRaw_errors.LIBRAW_SUCCESS.value || image == null) return None
+
+    try {
+      val width  = image.width() & 0xffff
+      val height = image.height() & 0xffff
+      val colors = image.colors() & 0xffff
+      val data   = new Array[Byte](image.data_size())
+      image.data().get(data)
+
+      val imageType = image.`type`().value
+      if (imageType == LibRaw_image_formats.LIBRAW_IMAGE_JPEG.value) {
+        // JPEG thumbnails do not have their size set in the image, use thumbnail info
+        val t = r.imgdata.thumbnail
+        Option(Preview(data, "jpg", t.twidth & 0xffff, t.theight & 0xffff, fromThumbnail = true))
+          .filter(_.width >= minWidth)
+      } else if (imageType == LibRaw_image_formats.LIBRAW_IMAGE_BITMAP.value &&
+        (image.bits() & 0xffff) == 8 && (colors == 1 || colors == 3) && width >= minWidth) {
+        val header = s"${if (colors == 3) "P6" else "P5"}\n$width $height\n255\n".getBytes("US-ASCII")
+        Option(Preview(header ++ data, "ppm", width, height, fromThumbnail = true))
+      } else {
+        None
+      }
+    } finally {
+      LibRaw.dcraw_clear_mem(image)
+    }
+  }
+
+  /** Open, unpack, and process `srcFile` then pass the `LibRaw` instance to `op`. */
+  private def withDecoded[R](srcFile: String, params: Params, stageTimes: StageTimes)(op: LibRaw => R): R = {
+
+    params.applyTo(rawProcessor.imgdata.params)
+
+    //   if (verbosity > 1)
+    //    RawProcessor.set_progress_handler(my_progress_callback,
+    //                                      (void *)"Sample data passed");
+
+    withOpened(srcFile, stageTimes) { r =>
+      log("Unpacking: " + srcFile)
+      stageTimes.time("unpack") {
+        handleError(r.unpack(), "Cannot unpack " + srcFile)
+      }
+
+      log("Processing")
+      stageTimes.time("process") {
+        handleError(r.dcraw_process, "Cannot process " + srcFile)
+      }
+
+      op(r)
+    }
+  }
+
+  /**
+   * Open `srcFile`, without unpacking, and pass the `LibRaw` instance to `op`.
+   * After `op` completes, the `LibRaw` instance is recycled, it should not be used outside of `op`.
+   *
+   * @param stageTimes if provided, time spent opening the file is added to it
+   */
+  def withOpened[R](srcFile: String, stageTimes: StageTimes = new StageTimes())(op: LibRaw => R): R = {
+    val r = rawProcessor
+    try {
+      log("Reading: " + srcFile)
+      stageTimes.time("open") {
+        open(r, srcFile)
+      }
+      op(r)
+    } finally {
+      // Release memory used by this file, `LibRaw` instance is ready for the next file
+      r.recycle()
+      openBuffer.foreach((_, p) => p.close())
+      openBuffer = None
+    }
+  }
 
-        val dstFile = s"tmp/test.${params.ext}"
-        System.out.println("Writing file: " + dstFile)
-        err = r.dcraw_ppm_tiff_writer(dstFile)
-        handleError(err, "Cannot write " + srcFile)
-      case None =>
-        throw new IllegalStateException("")
+  private def open(r: LibRaw, srcFile: String): Unit = {
+    inputMode match {
+      case InputMode.OpenFile =>
+        handleError(r.open_file(srcFile), "Cannot read " + srcFile)
+
+      case InputMode.MemoryMapped =>
+        val buffer = Using.resource(FileChannel.open(Paths.get(srcFile), StandardOpenOption.READ)) { channel =>
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+        }
+        openFromBuffer(r, srcFile, buffer)
+
+      case InputMode.DirectBuffer =>
+        val buffer = Using.resource(FileChannel.open(Paths.get(srcFile), StandardOpenOption.READ)) { channel =>
+          val size = channel.size()
+          require(size <= Int.MaxValue, s"File too large: $srcFile")
+          if (directBuffer.capacity() < size) {
+            // Leave some headroom, so the buffer is not reallocated for each slightly larger file
+            directBuffer = ByteBuffer.allocateDirect(math.min(Int.MaxValue.toLong, size + size / 4).toInt)
+          }
+          directBuffer.clear().limit(size.toInt)
+          // A single read normally fills the buffer, loop only in case of a short read
+          while (directBuffer.hasRemaining && channel.read(directBuffer) >= 0) {}
+          directBuffer.flip()
+        }
+        openFromBuffer(r, srcFile, buffer)
     }
+  }
 
+  private def openFromBuffer(r: LibRaw, srcFile: String, buffer: ByteBuffer): Unit = {
+    val pointer = new BytePointer(buffer)
+    openBuffer = Option((buffer, pointer))
+    handleError(r.open_buffer(pointer, buffer.limit().toLong), "Cannot read " + srcFile)
   }
 
   override def close(): Unit = {
-    System.out.println("Cleaning up")
+    log("Cleaning up")
     libRaw.foreach { r =>
       r.recycle()
       r.close()
@@ -0,0 +1,56 @@
+package libraw.examples
+
+import org.bytedeco.opencv.global.opencv_core.CV_8U
+import org.bytedeco.opencv.global.opencv_imgcodecs.{IMREAD_UNCHANGED, imread, imwrite}
+import org.bytedeco.opencv.global.opencv_imgproc.{INTER_AREA, resize}
+import org.bytedeco.opencv.opencv_core.{Mat, Size}
+
+import java.io.File
+import scala.util.Using
+
+/**
+ * Decodes a raw image directly to an OpenCV `Mat`, without writing an intermediate PPM/TIFF file,
+ * and compares that with writing a TIFF file and reading it back.
+ */
+object RawToMatDemo {
+
+  def main(args: Array[String]): Unit = {
+
+    val srcFile = if (args.length > 0) args(0) else "data/IMG_5604.CR2"
+    val dstDir  = new File("tmp")
+    if (!dstDir.exists() && !dstDir.mkdirs()) {
+      throw new Exception("Cannot create output directory: " + dstDir.getAbsolutePath)
+    }
+
+    val params = RawProcessor.Params(output_bps = RawProcessor.BPS.BPS16, output_tiff = true)
+
+    Using.resource(new RawProcessor(verbose = false)) { rawProcessor =>
+
+      // Decode in memory
+      val t0  = System.nanoTime()
+      val mat = rawProcessor.decodeToMat(srcFile, params)
+      val t1  = System.nanoTime()
+
+      // Decode through a TIFF file
+      val tmpFile = new File(dstDir, "RawToMatDemo.tif")
+      rawProcessor.process(srcFile, tmpFile.getPath, params)
+      val matFromFile = imread(tmpFile.getPath, IMREAD_UNCHANGED)
+      val t2          = System.nanoTime()
+
+      println(s"Decoded image: ${mat.cols} x ${mat.rows}, channels: ${mat.channels}, depth: ${mat.depth}")
+      println(f"  in memory        : ${(t1 - t0) / 1e6}%8.2f ms")
+      println(f"  through TIFF file: ${(t2 - t1) / 1e6}%8.2f ms")
+
+      // Continue processing using OpenCV, for instance, create a 8-bit preview
+      val preview = new Mat()
+      resize(mat, preview, new Size(), 0.25, 0.25, INTER_AREA)
+      preview.convertTo(preview, CV_8U, 1 / 256.0, 0)
+      val previewFile = new File(dstDir, "RawToMatDemo-preview.png")
+      imwrite(previewFile.getPath, preview)
+      println("Wrote preview: " + previewFile.getPath)
+
+      matFromFile.close()
+      mat.close()
+    }
+  }
+}
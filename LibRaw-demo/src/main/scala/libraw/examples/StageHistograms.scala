@@ -0,0 +1,110 @@
+package libraw.examples
+
+import libraw.examples.StageHistograms.Histogram
+
+import scala.collection.mutable
+
+object StageHistograms {
+
+  /**
+   * Histogram of durations with logarithmic buckets, bucket `i` counts durations in `[2^i, 2^(i+1))` nanoseconds.
+   * Percentiles are estimated as the upper bound of a bucket, so they are accurate within a factor of 2.
+   */
+  class Histogram {
+    private val buckets = new Array[Long](64)
+
+    private var _count = 0L
+    private var _sum   = 0L
+    private var _min   = Long.MaxValue
+    private var _max   = 0L
+
+    def record(nanos: Long): Unit = {
+      val n = math.max(nanos, 1L)
+      buckets(63 - java.lang.Long.numberOfLeadingZeros(n)) += 1
+      _count += 1
+      _sum += n
+      _min = math.min(_min, n)
+      _max = math.max(_max, n)
+    }
+
+    def ++=(other: Histogram): Histogram = {
+      for (i <- buckets.indices) buckets(i) += other.buckets(i)
+      _count += other._count
+      _sum += other._sum
+      _min = math.min(_min, other._min)
+      _max = math.max(_max, other._max)
+      this
+    }
+
+    def count: Long = _count
+
+    def totalNanos: Long = _sum
+
+    def meanNanos: Double = if (_count == 0) 0 else _sum.toDouble / _count
+
+    def minNanos: Long = if (_count == 0) 0 else _min
+
+    def maxNanos: Long = _max
+
+    /** Estimate of the `p`-th percentile, `p` in `[0, 100]`. */
+    def percentileNanos(p: Double): Long = {
+      require(p >= 0 && p <= 100, s"Percentile has to be in [0, 100], got: $p")
+      if (_count == 0) 0
+      else {
+        val rank = math.max(1L, math.ceil(p / 100 * _count).toLong)
+        var seen = 0L
+        var i    = 0
+        while (seen + buckets(i) < rank) {
+          seen += buckets(i)
+          i += 1
+        }
+        // Upper bound of the bucket, but not above the maximum observed
+        math.min(if (i >= 62) Long.MaxValue else (1L << (i + 1)) - 1, _max)
+      }
+    }
+  }
+}
+
+/**
+ * Per-stage histograms of durations, aggregated over many processed images.
+ *
+ * Instances are not thread safe, use one instance per thread and combine them with `++=`.
+ *
+ * @see ProgressTimer
+ */
+class StageHistograms {
+  private val _histograms = mutable.LinkedHashMap.empty[String, Histogram]
+
+  def record(stage: String, nanos: Long): Unit = _histograms.getOrElseUpdate(stage, new Histogram()).record(nanos)
+
+  /** Add all stage histograms from `other`. */
+  def ++=(other: StageHistograms): StageHistograms = {
+    for ((stage, h) <- other._histograms) {
+      _histograms.getOrElseUpdate(stage, new Histogram()) ++= h
+    }
+    this
+  }
+
+  def stages: Seq[String] = _histograms.keys.toSeq
+
+  def histogram(stage: String): Option[Histogram] = _histograms.get(stage)
+
+  def isEmpty: Boolean = _histograms.isEmpty
+
+  /** Print statistics of each stage, in order of first occurrence, and stage share of the total time. */
+  def printResults(): Unit = {
+    if (_histograms.nonEmpty) {
+      val total          = _histograms.values.map(_.totalNanos).sum.toDouble
+      val maxStageLength = stages.map(_.length).max
+      val h0             = " " * maxStageLength
+      println(f"  $h0  ${"count"}%7s ${"mean ms"}%9s ${"p50 ms"}%9s ${"p90 ms"}%9s ${"max ms"}%9s ${"share"}%6s")
+      for ((stage, h) <- _histograms) {
+        val t = stage + " " * (maxStageLength - stage.length)
+        println(
+          f"  $t: ${h.count}%7d ${h.meanNanos / 1e6}%9.2f ${h.percentileNanos(50) / 1e6}%9.2f " +
+            f"${h.percentileNanos(90) / 1e6}%9.2f ${h.maxNanos / 1e6}%9.2f ${100 * h.totalNanos / total}%5.1f%%"
+        )
+      }
+    }
+  }
+}
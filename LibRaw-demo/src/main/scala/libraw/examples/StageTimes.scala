@@ -0,0 +1,58 @@
+package libraw.examples
+
+import scala.collection.mutable
+
+/**
+ * Accumulates time spent in named processing stages, like "open", "unpack", or "write".
+ *
+ * Instances are not thread safe, use one instance per thread and combine them with `++=`.
+ */
+class StageTimes {
+  private val _nanos = mutable.LinkedHashMap.empty[String, Long]
+  private val _counts = mutable.LinkedHashMap.empty[String, Long]
+
+  /** Execute `op` and add its execution time to the `stage`. */
+  def time[R](stage: String)(op: => R): R = {
+    val t0 = System.nanoTime()
+    try {
+      op
+    } finally {
+      add(stage, System.nanoTime() - t0)
+    }
+  }
+
+  def add(stage: String, nanos: Long): Unit = {
+    _nanos(stage) = _nanos.getOrElse(stage, 0L) + nanos
+    _counts(stage) = _counts.getOrElse(stage, 0L) + 1
+  }
+
+  /** Add all stage times from `other`. */
+  def ++=(other: StageTimes): StageTimes = {
+    for ((stage, nanos) <- other._nanos) {
+      _nanos(stage) = _nanos.getOrElse(stage, 0L) + nanos
+      _counts(stage) = _counts.getOrElse(stage, 0L) + other._counts(stage)
+    }
+    this
+  }
+
+  def stages: Seq[String] = _nanos.keys.toSeq
+
+  /** Total time spent in the `stage`, in milliseconds. */
+  def totalMillis(stage: String): Double = _nanos.getOrElse(stage, 0L) / 1e6
+
+  /** Average time spent in the `stage`, in milliseconds. */
+  def averageMillis(stage: String): Double = {
+    val n = _counts.getOrElse(stage, 0L)
+    if (n == 0) 0 else totalMillis(stage) / n
+  }
+
+  def printResults(): Unit = {
+    if (_nanos.nonEmpty) {
+      val maxStageLength = stages.map(_.length).max
+      for (stage <- stages) {
+        val t = stage + " " * (maxStageLength - stage.length)
+        println(f"  $t: ${averageMillis(stage)}%9.2f ms avg, ${totalMillis(stage)}%10.2f ms total")
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package libraw.examples
+
+import libraw.examples.RawProcessor.Params
+import libraw.examples.StreamingDebayer.ImageFormat
+import libraw.examples.SyntheticBayer.BayerPattern
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.LibRaw
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, libraw_strerror}
+
+import java.nio.ByteBuffer
+import scala.util.Using
+
+object StreamingDebayer {
+
+  /** Format of demosaiced frames, samples are interleaved, 8 or 16 `bits` per sample. */
+  case class ImageFormat(width: Int, height: Int, colors: Int, bits: Int) {
+    def stride: Int = width * colors * bits / 8
+
+    def sizeInBytes: Int = stride * height
+  }
+}
+
+/**
+ * Demosaics a stream of Bayer frames of the same size and pattern, for instance, frames captured by a camera.
+ *
+ * Native memory is allocated only once, not for every frame: there is a single `LibRaw` instance,
+ * a single input buffer that frames are copied to, and a single output buffer that LibRaw copies demosaiced
+ * images to with `copy_mem_image`.
+ * Instances are not thread safe, use a separate `StreamingDebayer` for each thread.
+ *
+ * @param width   frame width
+ * @param height  frame height
+ * @param pattern Bayer pattern of frames
+ * @param params  processing parameters, for instance, `output_bps` and `half_size`
+ * @param bgr     if `true` output channels are in BGR order, as used by OpenCV, otherwise in RGB order
+ */
+class StreamingDebayer(val width: Int,
+                       val height: Int,
+                       val pattern: BayerPattern,
+                       params: Params = Params(),
+                       bgr: Boolean = false) extends AutoCloseable {
+
+  private val frameSize = width * height
+
+  private val lr          = new LibRaw()
+  private val input       = new BytePointer(frameSize.toLong)
+  private val inputBuffer = input.asByteBuffer()
+
+  private var output: BytePointer          = new BytePointer(0L)
+  private var outputBuffer: ByteBuffer     = ByteBuffer.allocateDirect(0)
+  private var _format: Option[ImageFormat] = None
+
+  private var _frameCount = 0L
+
+  /** Format of demosaiced frames, known after the first frame was processed. */
+  def format: Option[ImageFormat] = _format
+
+  /** Number of frames processed so far. */
+  def frameCount: Long = _frameCount
+
+  /**
+   * Demosaic a single `frame`, 8 bits per pixel, `width * height` bytes from the current position of `frame`.
+   * The position of `frame` is not modified.
+   * Direct buffers are copied to native memory with a single bulk copy, avoid heap buffers for best performance.
+   *
+   * @return demosaiced image, a view of the output buffer that is overwritten by the next call of `debayer`,
+   *         copy it if it has to be kept longer.
+   */
+  def debayer(frame: ByteBuffer): ByteBuffer = {
+    require(frame.remaining() >= frameSize, s"Expecting frame of $frameSize bytes, got ${frame.remaining()}")
+
+    inputBuffer.clear()
+    inputBuffer.put(frame.duplicate().limit(frame.position() + frameSize))
+
+    try {
+      SyntheticBayer.openBayer(lr, input, width, height, pattern)
+      params.applyTo(lr.imgdata().params)
+
+      handleError(lr.unpack(), "unpack")
+      handleError(lr.dcraw_process(), "dcraw_process")
+
+      val f = imageFormat()
+      if (output.capacity() < f.sizeInBytes) {
+        output.close()
+        output = new BytePointer(f.sizeInBytes.toLong)
+        outputBuffer = output.asByteBuffer()
+      }
+      _format = Option(f)
+
+      handleError(lr.copy_mem_image(output, f.stride, if (bgr) 1 else 0), "copy_mem_image")
+    } finally {
+      lr.recycle()
+    }
+
+    _frameCount += 1
+    outputBuffer.duplicate().clear().limit(_format.get.sizeInBytes)
+  }
+
+  private def imageFormat(): ImageFormat = {
+    val w      = Array(0)
+    val h      = Array(0)
+    val colors = Array(0)
+    val bps    = Array(0)
+    lr.get_mem_image_format(w, h, colors, bps)
+    ImageFormat(w.head, h.head, colors.head, bps.head)
+  }
+
+  private def handleError(err: Int, prefix: String): Unit = {
+    if (err != LibRaw_errors.LIBRAW_SUCCESS.value) {
+      val msg = Using.resource(libraw_strerror(err))(_.getString)
+      throw new Exception("Error while calling `" + prefix + "` : " + msg + " [" + err + "]")
+    }
+  }
+
+  override def close(): Unit = {
+    lr.close()
+    input.close()
+    output.close()
+  }
+}
@@ -0,0 +1,91 @@
+package libraw.examples
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.LibRaw
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, LibRaw_openbayer_patterns, libraw_strerror}
+
+import scala.util.{Random, Using}
+
+/**
+ * Synthetic 8-bit Bayer frames, for testing and benchmarking demosaicing without sample raw files.
+ *
+ * The scene contains smooth color gradients, sharp edges, fine stripes, and a small amount of noise,
+ * so that demosaicing algorithms have to do similar work as on real images.
+ * The scene is sampled through a color filter array given by `BayerPattern`.
+ */
+object SyntheticBayer {
+
+  /** Bayer patterns supported by `LibRaw.open_bayer`, named by the colors of the top-left 2x2 block. */
+  enum BayerPattern(val value: LibRaw_openbayer_patterns, colors: String) {
+    case RGGB extends BayerPattern(LibRaw_openbayer_patterns.LIBRAW_OPENBAYER_RGGB, "RGGB")
+    case BGGR extends BayerPattern(LibRaw_openbayer_patterns.LIBRAW_OPENBAYER_BGGR, "BGGR")
+    case GRBG extends BayerPattern(LibRaw_openbayer_patterns.LIBRAW_OPENBAYER_GRBG, "GRBG")
+    case GBRG extends BayerPattern(LibRaw_openbayer_patterns.LIBRAW_OPENBAYER_GBRG, "GBRG")
+
+    /** Color filter at pixel `(x, y)`: 0 - red, 1 - green, 2 - blue. */
+    def colorAt(x: Int, y: Int): Int = "RGB".indexOf(colors.charAt((y & 1) * 2 + (x & 1)))
+  }
+
+  /**
+   * Generate a `width` x `height` Bayer frame, one byte per pixel, rows stored one after another.
+   * The same `seed` gives the same frame.
+   */
+  def generate(width: Int, height: Int, pattern: BayerPattern, seed: Long = 0): Array[Byte] = {
+    require(width > 1 && height > 1, s"Frame has to be at least 2x2, got: ${width}x$height")
+
+    val random = new Random(seed)
+    val frame  = new Array[Byte](width * height)
+    val cx     = width / 2.0
+    val cy     = height / 2.0
+    val radius = math.min(width, height) / 4.0
+    for (y <- 0 until height) {
+      val fy = y.toDouble / height
+      for (x <- 0 until width) {
+        val fx = x.toDouble / width
+
+        // Background gradients
+        var r = 40 + 160 * fx
+        var g = 40 + 160 * fy
+        var b = 200 - 120 * (fx + fy) / 2
+
+        // A disc with a sharp edge
+        val dx = x - cx
+        val dy = y - cy
+        if (dx * dx + dy * dy < radius * radius) {
+          r = 230 - r / 2
+          g = 200 - g / 2
+          b = 60
+        }
+
+        // Fine stripes in the bottom band, challenging for demosaicing
+        if (fy > 0.8 && ((x / 2) & 1) == 0) {
+          r *= 0.5
+          g *= 0.5
+          b *= 0.5
+        }
+
+        val v = pattern.colorAt(x, y) match {
+          case 0 => r
+          case 1 => g
+          case _ => b
+        }
+        frame(y * width + x) = math.max(0, math.min(255, v + random.nextGaussian() * 2).round).toInt.toByte
+      }
+    }
+    frame
+  }
+
+  /**
+   * Load Bayer `data` to `lr` using `open_bayer`, the next step is `unpack()`.
+   *
+   * LibRaw reads from `data` during `unpack()`, it has to stay valid until then.
+   */
+  def openBayer(lr: LibRaw, data: BytePointer, width: Int, height: Int, pattern: BayerPattern): Unit = {
+    val ret = lr.open_bayer(data, width * height, width.toShort, height.toShort, 0, 0, 0, 0, 0,
+                            pattern.value.value.toByte, 0, 0, 0)
+    if (ret != LibRaw_errors.LIBRAW_SUCCESS.value) {
+      val msg = Using.resource(libraw_strerror(ret))(_.getString)
+      throw new Exception("Error while calling `open_bayer` : " + msg + " [" + ret + "]")
+    }
+  }
+}
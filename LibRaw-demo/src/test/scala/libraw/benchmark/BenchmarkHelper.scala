@@ -22,11 +22,14 @@
 
 package libraw.benchmark
 
+import libraw.examples.StageHistograms
+
 import scala.collection.mutable.ListBuffer
 import scala.collection.{immutable, mutable}
 
 class BenchmarkHelper(val testIter: Int) {
   private val _results = mutable.LinkedHashMap.empty[String, ListBuffer[Double]]
+  private val _stageHistograms = mutable.LinkedHashMap.empty[String, StageHistograms]
 
   def results: immutable.Map[String, List[Double]] = {
     _results.map { case (k, v) => (k, v.toList) }.toMap
@@ -52,4 +55,16 @@ class BenchmarkHelper(val testIter: Int) {
       println(f"  $t: $minVal%7.2f ms.")
     }
   }
+
+  /** Per-stage histograms for the `tag`, filled for instance by `ProgressTimer.finish`. */
+  def stageHistograms(tag: String): StageHistograms = {
+    _stageHistograms.getOrElseUpdate(tag, new StageHistograms())
+  }
+
+  def printStageResults(): Unit = {
+    _stageHistograms.foreach { case (tag, histograms) =>
+      println(s"  $tag")
+      histograms.printResults()
+    }
+  }
 }
@@ -0,0 +1,100 @@
+package libraw.benchmark
+
+import ij.ImagePlus
+import libraw.benchmark.DemosaicBenchmark.handleError
+import libraw.examples.LibRawImagePlus
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.global.LibRaw.*
+import org.bytedeco.libraw.{LibRaw, libraw_processed_image_t}
+
+import java.util.Objects
+import scala.util.Using
+
+/**
+ * Compares conversion of LibRaw memory images to ImageJ `ImagePlus`:
+ * the reference byte-by-byte conversion in `DemosaicBenchmark` with `LibRawImagePlus.toImagePlus`,
+ * on a single thread and split into parallel row bands.
+ *
+ * The input is a synthetic 2048x1536 BGGR frame demosaiced to 8-bit and to 16-bit RGB.
+ * Before timing, output of each conversion is checked to be identical to the reference.
+ */
+object DeinterleaveBenchmark {
+
+  private val Width  = 2048
+  private val Height = 1536
+
+  /** Demosaic synthetic Bayer data and return the memory image, it has to be released with `dcraw_clear_mem`. */
+  private def makeMemImage(output_bps: Int): libraw_processed_image_t = {
+    val buffer = Array.tabulate[Byte](Width * Height) { i =>
+      val x = i % Width
+      val y = i / Width
+      ((x * 7 + y * 13 + (x * y) % 31) & 0xff).toByte
+    }
+
+    Using.resource(new LibRaw()) { rp =>
+      val data = new BytePointer(buffer.length.toLong).put(buffer, 0, buffer.length)
+      val ret = rp.open_bayer(data, buffer.length, Width.toShort, Height.toShort, 0, 0, 0, 0, 0,
+                              LibRaw_openbayer_patterns.LIBRAW_OPENBAYER_BGGR.value.toByte, 0, 0, 0)
+      handleError(ret, "open_bayer")
+
+      rp.imgdata().params.output_bps(output_bps)
+      handleError(rp.unpack(), "unpack")
+      handleError(rp.dcraw_process(), "dcraw_process")
+
+      val err   = Array[Int](0)
+      val image = rp.dcraw_make_mem_image(err)
+      handleError(err.head, "dcraw_make_mem_image")
+      data.close()
+      image
+    }
+  }
+
+  private def pixels(imp: ImagePlus): Seq[AnyRef] = {
+    if (imp.getType == ImagePlus.COLOR_RGB)
+      Seq(imp.getProcessor.getPixels)
+    else
+      (1 to imp.getStackSize).map(imp.getStack.getPixels)
+  }
+
+  private def checkIdentical(tag: String, expected: ImagePlus, actual: ImagePlus): Unit = {
+    val e = pixels(expected)
+    val a = pixels(actual)
+    if (e.length != a.length || !e.zip(a).forall((x, y) => Objects.deepEquals(x, y))) {
+      throw new AssertionError(s"$tag: output differs from the reference conversion")
+    }
+    println(s"$tag: output identical to the reference conversion")
+  }
+
+  def main(args: Array[String]): Unit = {
+
+    val nbBands = Runtime.getRuntime.availableProcessors
+    val helper  = new BenchmarkHelper(testIter = 20)
+
+    for (bps <- Seq(8, 16)) {
+      val image = makeMemImage(bps)
+      try {
+        println()
+        println(s"${image.width()} x ${image.height()}, ${image.colors()} colors, ${image.bits()} bits")
+
+        val reference = DemosaicBenchmark.memImageToImagePlus(bps, image)
+        checkIdentical(s"$bps-bit fast          ", reference, LibRawImagePlus.toImagePlus(image))
+        checkIdentical(s"$bps-bit fast, $nbBands bands", reference, LibRawImagePlus.toImagePlus(image, nbBands))
+
+        for (_ <- 0 until 5) {
+          helper.measure[libraw_processed_image_t, ImagePlus](
+            s"$bps-bit reference", image, DemosaicBenchmark.memImageToImagePlus(bps, _))
+          helper.measure[libraw_processed_image_t, ImagePlus](
+            s"$bps-bit fast", image, LibRawImagePlus.toImagePlus(_))
+          helper.measure[libraw_processed_image_t, ImagePlus](
+            s"$bps-bit fast, $nbBands bands", image, LibRawImagePlus.toImagePlus(_, nbBands))
+        }
+      } finally {
+        LibRaw.dcraw_clear_mem(image)
+      }
+    }
+
+    println()
+    println("Min time:")
+    helper.printResults()
+  }
+}
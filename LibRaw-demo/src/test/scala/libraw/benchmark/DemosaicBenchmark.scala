@@ -4,7 +4,7 @@ import ij.process.{ByteProcessor, ColorProcessor, ShortProcessor}
 import ij.{CompositeImage, ImagePlus, ImageStack}
 import org.bytedeco.javacpp.{BytePointer, Pointer}
 import org.bytedeco.libraw.global.LibRaw.*
-import org.bytedeco.libraw.{LibRaw, progress_callback}
+import org.bytedeco.libraw.{LibRaw, libraw_processed_image_t, progress_callback}
 
 import scala.util.Using
 
@@ -29,69 +29,76 @@ object DemosaicBenchmark {
     val err = Array[Int](0)
     Using.resource(lr.dcraw_make_mem_image(err)) { im =>
       handleError(err.head, "Error while calling `dcraw_make_mem_image` ")
+      memImageToImagePlus(output_bps, im)
+    }
+  }
 
-      assert(im.`type`().value == LibRaw_image_formats.LIBRAW_IMAGE_BITMAP.value)
-
-      val height = im.height()
-      val width  = im.width()
-      val colors = im.colors()
-
-      output_bps match {
-        case 8 =>
-          val data = new Array[Byte](width * height * colors)
-          im.data().get(data)
-          val slicePixels = Array.fill(colors)(new Array[Byte](width * height))
-          for (i <- 0 until width * height) {
-            for (c <- 0 until colors) {
-              slicePixels(c)(i) = data(i * colors + c)
-            }
+  /**
+   * Reference conversion, byte by byte. `LibRawImagePlus.toImagePlus` is a faster alternative,
+   * see `DeinterleaveBenchmark`.
+   */
+  private[benchmark] def memImageToImagePlus(output_bps: Int, im: libraw_processed_image_t): ImagePlus = {
+    assert(im.`type`().value == LibRaw_image_formats.LIBRAW_IMAGE_BITMAP.value)
+
+    val height = im.height()
+    val width  = im.width()
+    val colors = im.colors()
+
+    output_bps match {
+      case 8 =>
+        val data = new Array[Byte](width * height * colors)
+        im.data().get(data)
+        val slicePixels = Array.fill(colors)(new Array[Byte](width * height))
+        for (i <- 0 until width * height) {
+          for (c <- 0 until colors) {
+            slicePixels(c)(i) = data(i * colors + c)
           }
+        }
 
-          if (colors == 3) {
-            val cp = new ColorProcessor(width, height)
-            cp.setRGB(slicePixels(0), slicePixels(1), slicePixels(2))
-            new ImagePlus("", cp)
-          } else {
-            val imageStack = new ImageStack(width, height)
-            for ((pixels, i) <- slicePixels.zipWithIndex) {
-              imageStack.addSlice(s"${i + 1}", new ByteProcessor(width, height, pixels))
-            }
-            new ImagePlus("", imageStack)
+        if (colors == 3) {
+          val cp = new ColorProcessor(width, height)
+          cp.setRGB(slicePixels(0), slicePixels(1), slicePixels(2))
+          new ImagePlus("", cp)
+        } else {
+          val imageStack = new ImageStack(width, height)
+          for ((pixels, i) <- slicePixels.zipWithIndex) {
+            imageStack.addSlice(s"${i + 1}", new ByteProcessor(width, height, pixels))
           }
-
-        case 16 =>
-          val data = new Array[Byte](width * height * colors * 2)
-          im.data().get(data)
-
-          val slicePixels = Array.fill(colors)(new Array[Short](width * height))
-          for (y <- 0 until height) {
-            val ySrcOffset = y * width * colors * 2
-            val yDstOffset = y * width
-            for (x <- 0 until width) {
-              val xSrcOffset = x * colors * 2 + ySrcOffset
-              val xDstOffset = x + yDstOffset
-              for (c <- 0 until colors) {
-                val cSrcOffset = c * 2 + xSrcOffset
-                val p0         = data(cSrcOffset + 0) & 0xFF
-                val p1         = data(cSrcOffset + 1) & 0xFF
-                val p          = (((p1 << 8) + p0) & 0xFFFF).toShort
-                slicePixels(c)(xDstOffset) = p
-              }
+          new ImagePlus("", imageStack)
+        }
+
+      case 16 =>
+        val data = new Array[Byte](width * height * colors * 2)
+        im.data().get(data)
+
+        val slicePixels = Array.fill(colors)(new Array[Short](width * height))
+        for (y <- 0 until height) {
+          val ySrcOffset = y * width * colors * 2
+          val yDstOffset = y * width
+          for (x <- 0 until width) {
+            val xSrcOffset = x * colors * 2 + ySrcOffset
+            val xDstOffset = x + yDstOffset
+            for (c <- 0 until colors) {
+              val cSrcOffset = c * 2 + xSrcOffset
+              val p0         = data(cSrcOffset + 0) & 0xFF
+              val p1         = data(cSrcOffset + 1) & 0xFF
+              val p          = (((p1 << 8) + p0) & 0xFFFF).toShort
+              slicePixels(c)(xDstOffset) = p
             }
           }
-
-          val imageStack = new ImageStack(width, height)
-          val sliceNames = if (colors == 3) Seq("Red", "Green", "Blue") else (1 to colors).map(_.toString)
-          for ((pixels, name) <- slicePixels.zip(sliceNames)) {
-            imageStack.addSlice(name, new ShortProcessor(width, height, pixels, null))
-          }
-
-          val dst = new ImagePlus("", imageStack)
-          if (colors <= CompositeImage.MAX_CHANNELS)
-            new CompositeImage(dst, if (colors == 3) CompositeImage.COMPOSITE else CompositeImage.GRAYSCALE)
-          else
-            dst
-      }
+        }
+
+        val imageStack = new ImageStack(width, height)
+        val sliceNames = if (colors == 3) Seq("Red", "Green", "Blue") else (1 to colors).map(_.toString)
+        for ((pixels, name) <- slicePixels.zip(sliceNames)) {
+          imageStack.addSlice(name, new ShortProcessor(width, height, pixels, null))
+        }
+
+        val dst = new ImagePlus("", imageStack)
+        if (colors <= CompositeImage.MAX_CHANNELS)
+          new CompositeImage(dst, if (colors == 3) CompositeImage.COMPOSITE else CompositeImage.GRAYSCALE)
+        else
+          dst
     }
   }
 
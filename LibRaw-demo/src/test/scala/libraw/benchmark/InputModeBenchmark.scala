@@ -0,0 +1,81 @@
+package libraw.benchmark
+
+import libraw.examples.RawProcessor.InputMode
+import libraw.examples.{RawBatch, StageTimes}
+import org.bytedeco.libraw.global.LibRaw.{LibRaw_errors, libraw_strerror}
+
+import java.io.File
+import scala.sys.process.*
+import scala.util.Using
+
+/**
+ * Compares input modes of `RawProcessor`: `open_file`, memory-mapped `open_buffer`,
+ * and `open_buffer` on a reusable direct buffer.
+ *
+ * Each raw file in a directory is opened and unpacked, without further processing, since input mode affects only
+ * reading of the file. Each mode is run first on a cold page cache, then on a warm page cache.
+ * Dropping the page cache requires root privileges on Linux (`/proc/sys/vm/drop_caches`),
+ * if that fails the "cold" run is likely to be warm as well.
+ * Files that fail to open or unpack are reported and excluded from the results.
+ *
+ * Usage:
+ * {{{
+ *   InputModeBenchmark <directory with raw files> [number of threads]
+ * }}}
+ */
+object InputModeBenchmark {
+
+  private def dropPageCache(): Boolean = {
+    val ok = Seq("sh", "-c", "sync && echo 3 > /proc/sys/vm/drop_caches").! == 0
+    if (!ok) println("  Cannot drop page cache, cold results may be warm.")
+    ok
+  }
+
+  private def handleError(err: Int, prefix: String): Unit = {
+    if (err != LibRaw_errors.LIBRAW_SUCCESS.value) {
+      val msg = Using.resource(libraw_strerror(err))(_.getString)
+      throw new Exception(prefix + " : " + msg)
+    }
+  }
+
+  private def run(files: Seq[File], nbThreads: Int, inputMode: InputMode, tag: String): Unit = {
+    val t0 = System.nanoTime()
+    // `withOpened` fails if the file cannot be opened
+    val results = RawBatch.run(files, nbThreads, inputMode) { (processor, file) =>
+      val stageTimes = new StageTimes()
+      processor.withOpened(file.getPath, stageTimes) { r =>
+        stageTimes.time("unpack") {
+          handleError(r.unpack(), "Cannot unpack " + file.getPath)
+        }
+      }
+      stageTimes
+    }
+    val seconds = (System.nanoTime() - t0) / 1e9
+
+    val stageTimes = new StageTimes()
+    results.flatMap(_._2.toOption).foreach(stageTimes ++= _)
+    val succeeded = results.filter(_._2.isSuccess).map(_._1)
+    val megaBytes = succeeded.map(_.length).sum / 1e6
+
+    println(f"$tag: ${succeeded.length / seconds}%7.2f files/s, ${megaBytes / seconds}%8.2f MB/s")
+    results.foreach { (file, result) =>
+      result.failed.foreach(ex => println(s"  Skipped ${file.getName}: ${ex.getMessage}"))
+    }
+    stageTimes.printResults()
+  }
+
+  def main(args: Array[String]): Unit = {
+    val srcDir    = new File(if (args.length > 0) args(0) else "data")
+    val nbThreads = if (args.length > 1) args(1).toInt else Runtime.getRuntime.availableProcessors
+
+    val files = RawBatch.listRawFiles(srcDir)
+    println(s"Reading ${files.length} raw files from ${srcDir.getPath} using $nbThreads threads")
+
+    for (mode <- InputMode.values) {
+      println()
+      dropPageCache()
+      run(files, nbThreads, mode, f"$mode%-12s cold")
+      run(files, nbThreads, mode, f"$mode%-12s warm")
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package libraw.benchmark
+
+import libraw.benchmark.DemosaicBenchmark.handleError
+import libraw.examples.SyntheticBayer.BayerPattern
+import libraw.examples.{ProgressTimer, RawBatch, RawProcessor, SyntheticBayer}
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.LibRaw
+
+import java.io.File
+import scala.util.Using
+
+/**
+ * Time spent in each LibRaw processing stage, measured with `ProgressTimer`, for each demosaic algorithm.
+ *
+ * Without arguments, a synthetic 2048x1536 BGGR frame is processed.
+ * When a directory is given, raw files in it are processed and stage times are also grouped by camera model.
+ *
+ * Usage:
+ * {{{
+ *   StageTimingBenchmark [directory with raw files]
+ * }}}
+ */
+object StageTimingBenchmark {
+
+  /** Demosaic algorithms, values of `user_qual` */
+  private val Algorithms = Seq(0 -> "linear", 1 -> "VNG", 2 -> "PPG", 3 -> "AHD", 4 -> "DCB", 11 -> "DHT", 12 -> "AAHD")
+
+  private val NbIter = 5
+
+  private def benchmarkSynthetic(helper: BenchmarkHelper): Unit = {
+    val width  = 2048
+    val height = 1536
+    val frame  = SyntheticBayer.generate(width, height, BayerPattern.BGGR)
+
+    Using.Manager { use =>
+      val data  = use(new BytePointer(frame.length.toLong).put(frame, 0, frame.length))
+      val lr    = use(new LibRaw())
+      val timer = new ProgressTimer()
+      lr.set_progress_handler(timer, null)
+
+      for ((userQual, name) <- Algorithms) {
+        val tag        = s"synthetic ${width}x$height, $name"
+        val histograms = helper.stageHistograms(tag)
+        helper.measure[Int, Unit](tag, userQual, { q =>
+          timer.start()
+          SyntheticBayer.openBayer(lr, data, width, height, BayerPattern.BGGR)
+          lr.imgdata().params.user_qual(q)
+          handleError(lr.unpack(), "unpack")
+          handleError(lr.dcraw_process(), "dcraw_process")
+          timer.finish(histograms)
+          lr.recycle()
+        })
+      }
+    }.get
+  }
+
+  private def benchmarkFiles(helper: BenchmarkHelper, dir: File): Unit = {
+    val files = RawBatch.listRawFiles(dir)
+    Using.resource(new RawProcessor(verbose = false)) { processor =>
+      val timer = new ProgressTimer()
+      processor.setProgressCallback(timer)
+
+      for ((userQual, name) <- Algorithms) {
+        val params = RawProcessor.Params(demosaic_algorithm = Option(userQual))
+        helper.measure[Seq[File], Unit](s"${files.length} files, $name", files, { fs =>
+          for (file <- fs) {
+            timer.start()
+            processor.withOpened(file.getPath) { r =>
+              params.applyTo(r.imgdata().params)
+              val model = r.imgdata().idata().make().getString.trim + " " + r.imgdata().idata().model().getString.trim
+              handleError(r.unpack(), "unpack")
+              handleError(r.dcraw_process(), "dcraw_process")
+              timer.finish(helper.stageHistograms(s"$model, $name"))
+            }
+          }
+        })
+      }
+    }
+  }
+
+  def main(args: Array[String]): Unit = {
+
+    // Each measurement runs `NbIter` times, stage histograms collect all of them
+    val helper = new BenchmarkHelper(testIter = NbIter)
+
+    if (args.length > 0) benchmarkFiles(helper, new File(args(0))) else benchmarkSynthetic(helper)
+
+    println()
+    println("Time per processing:")
+    helper.printResults()
+
+    println()
+    println("Time per stage:")
+    helper.printStageResults()
+  }
+}
@@ -0,0 +1,93 @@
+package libraw.benchmark
+
+import libraw.benchmark.DemosaicBenchmark.handleError
+import libraw.examples.SyntheticBayer.BayerPattern
+import libraw.examples.{RawProcessor, StreamingDebayer, SyntheticBayer}
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.libraw.LibRaw
+
+import java.nio.ByteBuffer
+import scala.util.Using
+
+/**
+ * Sustained frame rate of demosaicing a stream of synthetic 2048x1536 BGGR frames,
+ * comparing `StreamingDebayer` with creating a new `LibRaw` instance, input buffer, and output image for each frame,
+ * as done in `DemosaicBenchmark.debayer`.
+ *
+ * Usage:
+ * {{{
+ *   StreamingDebayerBenchmark [duration in seconds] [demosaic algorithm (user_qual)]
+ * }}}
+ */
+object StreamingDebayerBenchmark {
+
+  private val Width   = 2048
+  private val Height  = 1536
+  private val Pattern = BayerPattern.BGGR
+
+  /** Demosaic a frame allocating all native resources for it, and release them afterwards. */
+  private def debayerAllocating(frame: ByteBuffer, userQual: Int): Int = {
+    val buffer = new Array[Byte](frame.remaining())
+    frame.duplicate().get(buffer)
+
+    Using.resource(new LibRaw()) { rp =>
+      Using.resource(new BytePointer(buffer.length.toLong).put(buffer, 0, buffer.length)) { data =>
+        SyntheticBayer.openBayer(rp, data, Width, Height, Pattern)
+        rp.imgdata().params.user_qual(userQual)
+        handleError(rp.unpack(), "unpack")
+        handleError(rp.dcraw_process(), "dcraw_process")
+
+        val err   = Array[Int](0)
+        val image = rp.dcraw_make_mem_image(err)
+        handleError(err.head, "dcraw_make_mem_image")
+        val size = image.data_size()
+        LibRaw.dcraw_clear_mem(image)
+        size
+      }
+    }
+  }
+
+  /** Process frames in a loop for `seconds`, after a short warm-up, and return frames per second. */
+  private def sustainedFps(tag: String, frames: Seq[ByteBuffer], seconds: Double)(op: ByteBuffer => Unit): Double = {
+    frames.foreach(op)
+
+    val t0       = System.nanoTime()
+    val deadline = t0 + (seconds * 1e9).toLong
+    var count    = 0
+    while (System.nanoTime() < deadline) {
+      op(frames(count % frames.length))
+      count += 1
+    }
+    val fps = count / ((System.nanoTime() - t0) / 1e9)
+    println(f"$tag: $count frames, $fps%7.2f frames/s")
+    fps
+  }
+
+  def main(args: Array[String]): Unit = {
+    val seconds  = if (args.length > 0) args(0).toDouble else 10
+    val userQual = if (args.length > 1) args(1).toInt else 0
+
+    // A few different frames, in direct buffers, as delivered by a camera driver
+    val frames = (0 until 4).map { i =>
+      val frame = SyntheticBayer.generate(Width, Height, Pattern, seed = i)
+      ByteBuffer.allocateDirect(frame.length).put(frame).flip()
+    }
+
+    println(s"Demosaicing ${Width}x$Height $Pattern frames, user_qual = $userQual, for $seconds s")
+
+    val allocating = sustainedFps("allocating per frame", frames, seconds) { frame =>
+      debayerAllocating(frame, userQual)
+      ()
+    }
+
+    val params = RawProcessor.Params(demosaic_algorithm = Option(userQual))
+    Using.resource(new StreamingDebayer(Width, Height, Pattern, params)) { debayer =>
+      val streaming = sustainedFps("StreamingDebayer    ", frames, seconds) { frame =>
+        debayer.debayer(frame)
+        ()
+      }
+      println(s"Output format: ${debayer.format.getOrElse("unknown")}")
+      println(f"Speed-up: ${streaming / allocating}%.2f")
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2019 Jarek Sacha. All Rights Reserved.
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
  *
  * Author's e-mail: jpsacha at gmail.com
  */
@@ -13,6 +13,7 @@ import org.bytedeco.opencv.global.opencv_imgproc._
 import org.bytedeco.opencv.global.opencv_video._
 import org.bytedeco.opencv.opencv_core._
 
+import java.io.{File, PrintWriter}
 import javax.swing.WindowConstants
 import scala.util.Using
 
@@ -24,49 +25,111 @@ import scala.util.Using
   *
   * This version of the example is implemented using OpenCV C API.
   *
+  * The example can also run headless, extracting motion events to a CSV file instead of displaying the foreground:
+  * {{{
+  *   Ex6MOGMotionDetector --events events.csv [--scale 0.5] [data/bike.avi]
+  * }}}
+  * In that mode frames are processed as fast as possible, see `MotionEventExtractor`.
+  *
   * @see opencv_cookbook.chapter11.Ex1ReadVideoSequence
   */
 object Ex6MOGMotionDetector extends App {
 
+  // Parse command line: options followed by optional input video file
+  private def option(name: String): Option[String] =
+    args.sliding(2).collectFirst { case Array(`name`, value) => value }
+
+  val eventsFile = option("--events").map(new File(_))
+  val scale      = option("--scale").map(_.toDouble).getOrElse(0.5)
+  val inputFile  = args
+    .lastOption
+    .filter(a => !a.startsWith("--") && args.length % 2 == 1)
+    .getOrElse("data/bike.avi")
+
   // Open video video file
-  val grabber = new FFmpegFrameGrabber("data/bike.avi")
+  val grabber = new FFmpegFrameGrabber(inputFile)
   // Open video video file
   grabber.start()
 
-  // Prepare window to display frames
-  val canvasFrame = new CanvasFrame("Extracted Foreground")
-  canvasFrame.setCanvasSize(grabber.getImageWidth, grabber.getImageHeight)
-  // Exit the example when the canvas frame is closed
-  canvasFrame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE)
+  eventsFile match {
+    case Some(file) => extractEvents(file)
+    case None       => display()
+  }
+
+  grabber.release()
+
+  /** Display extracted foreground at the original frame rate. */
+  def display(): Unit = {
+    // Prepare window to display frames
+    val canvasFrame = new CanvasFrame("Extracted Foreground")
+    canvasFrame.setCanvasSize(grabber.getImageWidth, grabber.getImageHeight)
+    // Exit the example when the canvas frame is closed
+    canvasFrame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE)
 
-  // Time between frames in the video
-  val delay = math.round(1000d / grabber.getFrameRate)
+    // Time between frames in the video
+    val delay = math.round(1000d / grabber.getFrameRate)
 
-  // foreground binary image
-  val foreground = new Mat()
+    // foreground binary image
+    val foreground = new Mat()
 
-  Using.resource(new OpenCVFrameConverter.ToMat()) { frameConverter =>
+    Using.resource(new OpenCVFrameConverter.ToMat()) { frameConverter =>
 
-    // Mixture of Gaussians approach
-    val mog = createBackgroundSubtractorMOG2()
+      // Mixture of Gaussians approach
+      val mog = createBackgroundSubtractorMOG2()
 
-    for (frame <- Iterator.continually(grabber.grab()).takeWhile(_ != null)) {
+      for (frame <- Iterator.continually(grabber.grab()).takeWhile(_ != null)) {
 
-      val inputMat = frameConverter.convert(frame)
+        val inputMat = frameConverter.convert(frame)
 
-      // update the background
-      // and return the foreground
-      mog(inputMat, foreground, 0.01)
+        // update the background
+        // and return the foreground
+        mog(inputMat, foreground, 0.01)
 
-      // Complement the image
-      threshold(foreground, foreground, 128, 255, THRESH_BINARY_INV)
+        // Complement the image
+        threshold(foreground, foreground, 128, 255, THRESH_BINARY_INV)
 
-      canvasFrame.showImage(toBufferedImage(foreground))
+        canvasFrame.showImage(toBufferedImage(foreground))
 
-      // Delay
-      Thread.sleep(delay)
+        // Delay
+        Thread.sleep(delay)
+      }
     }
   }
 
-  grabber.release()
+  /** Write motion events to a CSV file, processing frames without delay. */
+  def extractEvents(file: File): Unit = {
+    println(s"Extracting motion events from: $inputFile")
+    println(s"  scale: $scale")
+
+    val extractor  = new MotionEventExtractor(scale = scale)
+    var frameCount = 0L
+    var eventCount = 0
+    val t0         = System.nanoTime()
+
+    Using.resources(new PrintWriter(file), new OpenCVFrameConverter.ToMat()) { (writer, frameConverter) =>
+      writer.println(MotionEventExtractor.CSVHeader)
+      def write(event: MotionEventExtractor.MotionEvent): Unit = {
+        writer.println(event.toCSV)
+        eventCount += 1
+      }
+
+      for (frame <- Iterator.continually(grabber.grabImage()).takeWhile(_ != null)) {
+        val inputMat = frameConverter.convert(frame)
+        if (inputMat != null) {
+          extractor.process(inputMat, frame.timestamp).foreach(write)
+          frameCount += 1
+        }
+      }
+      extractor.finish().foreach(write)
+    }
+
+    val seconds     = (System.nanoTime() - t0) / 1e9
+    val fps         = frameCount / seconds
+    val realTimeFps = grabber.getFrameRate
+    println(s"Wrote $eventCount events to: ${file.getCanonicalPath}")
+    println(f"Processed $frameCount frames in $seconds%.2f s: $fps%.1f fps")
+    if (realTimeFps > 0 && fps > realTimeFps) {
+      println(f"  ${fps / realTimeFps}%.1fx faster than real time ($realTimeFps%.1f fps)")
+    }
+  }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter11
+
+import opencv_cookbook.chapter11.MotionEventExtractor.MotionEvent
+import org.bytedeco.javacpp.indexer.IntIndexer
+import org.bytedeco.opencv.global.opencv_imgproc._
+import org.bytedeco.opencv.global.opencv_video._
+import org.bytedeco.opencv.opencv_core._
+
+
+object MotionEventExtractor {
+
+  /** Motion event: continuous sequence of frames with detected motion.
+    *
+    * @param startTimestamp timestamp of the first frame with motion, in microseconds
+    * @param endTimestamp   timestamp of the last frame with motion, in microseconds
+    * @param boundingBox    union of all motion blobs in the event, in input frame coordinates
+    * @param frameCount     number of frames in which motion was detected
+    */
+  case class MotionEvent(startTimestamp: Long, endTimestamp: Long, boundingBox: Rect, frameCount: Int) {
+    def toCSV: String =
+      s"$startTimestamp,$endTimestamp," +
+        s"${boundingBox.x},${boundingBox.y},${boundingBox.width},${boundingBox.height},$frameCount"
+  }
+
+  val CSVHeader = "start_us,end_us,x,y,width,height,frames"
+}
+
+/** Extracts motion events from a video using mixture of Gaussians background model (`BackgroundSubtractorMOG2`).
+  *
+  * Frames are downscaled before background modeling, foreground is split into connected components (blobs),
+  * and consecutive frames containing blobs are merged into a single `MotionEvent`.
+  *
+  * @param scale        scale applied to input frames before background modeling, `1.0` means full resolution
+  * @param learningRate learning rate of the background model
+  * @param minBlobArea  minimum area of a blob, in downscaled pixels, to be considered motion
+  * @param maxGapFrames number of frames without motion that still continue the current event
+  */
+class MotionEventExtractor(val scale: Double = 0.5,
+                           val learningRate: Double = 0.01,
+                           val minBlobArea: Int = 20,
+                           val maxGapFrames: Int = 5) {
+
+  require(scale > 0 && scale <= 1, "Argument `scale` must be in range (0, 1].")
+
+  private val mog        = createBackgroundSubtractorMOG2()
+  private val small      = new Mat()
+  private val foreground = new Mat()
+  private val labels     = new Mat()
+  private val stats      = new Mat()
+  private val centroids  = new Mat()
+  private val kernel     = getStructuringElement(MORPH_RECT, new Size(3, 3))
+
+  // State of the currently open event
+  private var eventStart: Long = -1
+  private var eventEnd: Long   = -1
+  private var eventFrames: Int = 0
+  private var gapFrames: Int   = 0
+  private var x1, y1, x2, y2   = 0
+
+  /** Process next frame.
+    *
+    * @param inputFrame frame to process
+    * @param timestamp  timestamp of the frame, in microseconds
+    * @return event that was completed by this frame, if any
+    */
+  def process(inputFrame: Mat, timestamp: Long): Option[MotionEvent] = {
+
+    val input =
+      if (scale < 1) {
+        resize(inputFrame, small, new Size(), scale, scale, INTER_AREA)
+        small
+      } else inputFrame
+
+    // update the background and return the foreground
+    mog(input, foreground, learningRate)
+
+    // Drop shadows (marked by MOG2 as 127) and remove isolated foreground pixels
+    threshold(foreground, foreground, 128, 255, THRESH_BINARY)
+    morphologyEx(foreground, foreground, MORPH_OPEN, kernel)
+
+    if (updateBoundingBox()) {
+      if (eventStart < 0) eventStart = timestamp
+      eventEnd = timestamp
+      eventFrames += 1
+      gapFrames = 0
+      None
+    } else if (eventStart >= 0) {
+      gapFrames += 1
+      if (gapFrames > maxGapFrames) closeEvent() else None
+    } else {
+      None
+    }
+  }
+
+  /** Close the event that is still open at the end of the video, if any. */
+  def finish(): Option[MotionEvent] = if (eventStart >= 0) closeEvent() else None
+
+  /** Find blobs in the current foreground and add them to the bounding box of the current event.
+    *
+    * @return `true` if at least one blob was found
+    */
+  private def updateBoundingBox(): Boolean = {
+    val n = connectedComponentsWithStats(foreground, labels, stats, centroids)
+    val si = stats.createIndexer().asInstanceOf[IntIndexer]
+    var found = false
+    // Label 0 is the background
+    for (i <- 1 until n if si.get(i, CC_STAT_AREA) >= minBlobArea) {
+      val left   = si.get(i, CC_STAT_LEFT)
+      val top    = si.get(i, CC_STAT_TOP)
+      val right  = left + si.get(i, CC_STAT_WIDTH)
+      val bottom = top + si.get(i, CC_STAT_HEIGHT)
+      if (eventFrames == 0 && !found) {
+        x1 = left; y1 = top; x2 = right; y2 = bottom
+      } else {
+        x1 = math.min(x1, left); y1 = math.min(y1, top)
+        x2 = math.max(x2, right); y2 = math.max(y2, bottom)
+      }
+      found = true
+    }
+    si.release()
+    found
+  }
+
+  private def closeEvent(): Option[MotionEvent] = {
+    // Scale bounding box back to input frame coordinates
+    val box = new Rect(
+      (x1 / scale).toInt, (y1 / scale).toInt,
+      math.ceil((x2 - x1) / scale).toInt, math.ceil((y2 - y1) / scale).toInt
+    )
+    val event = MotionEvent(eventStart, eventEnd, box, eventFrames)
+    eventStart = -1
+    eventEnd = -1
+    eventFrames = 0
+    gapFrames = 0
+    Option(event)
+  }
+}
+
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter15
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.opencv.global.opencv_core._
+import org.bytedeco.opencv.global.opencv_dnn._
+import org.bytedeco.opencv.opencv_core._
+import org.bytedeco.opencv.opencv_dnn.Net
+
+import java.io.File
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentLinkedQueue
+import scala.collection.concurrent.TrieMap
+import scala.collection.mutable
+import scala.concurrent.{ExecutionContext, Future}
+
+
+/** Description of a Caffe model and its input size.
+  *
+  * @param configuration model configuration file (`*.prototxt`)
+  * @param binary        model weights file (`*.caffemodel`)
+  * @param inWidth       width of network input
+  * @param inHeight      height of network input
+  */
+case class DnnModel(configuration: File, binary: File, inWidth: Int, inHeight: Int)
+
+object DnnModel {
+  /** SSD face detection model used in `Ex1FaceDetection`. */
+  val FaceDetection: DnnModel = DnnModel(
+    new File("models/face_detection/deploy.prototxt"),
+    new File("models/face_detection/res10_300x300_ssd_iter_140000.caffemodel"),
+    300, 300
+  )
+}
+
+/**
+  * Registry of DNN models shared within a JVM.
+  *
+  * Files of each model are read once and kept in memory, `Net` instances are created from that shared read-only copy.
+  * `Net` instances are warmed up, by running a forward pass on a dummy input, before they are handed out.
+  * The first forward pass is much slower than the following ones, due to lazy initialization of layers and
+  * memory allocation. Instances returned by `release` are kept for reuse, so later users of the same model do not pay
+  * for parsing and warm-up again. `preload` can be used at application startup to do that work in the background.
+  *
+  * A `Net` instance is not thread safe, it should be used by a single thread between `acquire` and `release`.
+  */
+object DnnModelRegistry {
+
+  /** Content of model files */
+  private class ModelData(model: DnnModel) {
+    val configuration = new BytePointer(Files.readAllBytes(model.configuration.toPath): _*)
+    val binary        = new BytePointer(Files.readAllBytes(model.binary.toPath): _*)
+  }
+
+  private val modelData = mutable.HashMap.empty[DnnModel, ModelData]
+  private val idleNets  = TrieMap.empty[DnnModel, ConcurrentLinkedQueue[Net]]
+
+  /** Get a warmed up `Net` for the `model`, reusing a previously released one if available. */
+  def acquire(model: DnnModel): Net =
+    Option(idleQueue(model).poll()).getOrElse(createNet(model))
+
+  /** Return the `net` to the registry, so it can be reused by other users of the `model`. */
+  def release(model: DnnModel, net: Net): Unit = idleQueue(model).add(net)
+
+  /** Create and warm up `count` instances of the `model` in the background.
+    *
+    * @return future that completes when all the instances are ready for use
+    */
+  def preload(model: DnnModel, count: Int = 1)(implicit ec: ExecutionContext): Future[Unit] =
+    Future.traverse(1 to count)(_ => Future(release(model, createNet(model)))).map(_ => ())
+
+  /** Number of warmed up instances of the `model` that are available for reuse. */
+  def idleCount(model: DnnModel): Int = idleQueue(model).size
+
+  /** Close all idle `Net` instances and release content of model files. */
+  def clear(): Unit = {
+    idleNets.values.foreach(q => Iterator.continually(q.poll()).takeWhile(_ != null).foreach(_.close()))
+    idleNets.clear()
+    modelData.synchronized {
+      modelData.values.foreach { d =>
+        d.configuration.close()
+        d.binary.close()
+      }
+      modelData.clear()
+    }
+  }
+
+  /** Parse the `model` and run a forward pass on dummy input. */
+  def createNet(model: DnnModel): Net = {
+    // Model files are read only once, even if several instances are created concurrently
+    val data = modelData.synchronized(modelData.getOrElseUpdate(model, new ModelData(model)))
+    val net  = readNetFromCaffe(data.configuration, data.configuration.capacity(), data.binary, data.binary.capacity())
+    if (net.empty()) {
+      throw new IllegalArgumentException(s"Cannot load model: ${model.binary.getCanonicalPath}")
+    }
+    net.setPreferableBackend(DNN_BACKEND_OPENCV)
+    net.setPreferableTarget(DNN_TARGET_CPU)
+    warmUp(model, net)
+    net
+  }
+
+  private def warmUp(model: DnnModel, net: Net): Unit = {
+    val dummy = new Mat(model.inHeight, model.inWidth, CV_8UC3, Scalar.all(0))
+    net.setInput(blobFromImage(dummy, 1.0, new Size(model.inWidth, model.inHeight), Scalar.all(0), false, false, CV_32F))
+    net.forward()
+  }
+
+  private def idleQueue(model: DnnModel): ConcurrentLinkedQueue[Net] =
+    idleNets.getOrElseUpdate(model, new ConcurrentLinkedQueue[Net]())
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter15
+
+import opencv_cookbook.OpenCVUtils._
+import org.bytedeco.opencv.global.opencv_imgcodecs._
+
+import java.io.File
+import java.util.concurrent.Executors
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.util.Using
+
+/**
+  * Measures CPU throughput of face detection using `FaceDetector`, for several batch sizes.
+  *
+  * All `*.jpg` images from the `data` directory are used as input.
+  * First, a single `Net` instance processes images in batches of size 1, 4, and 8.
+  * Then images are processed concurrently by several threads sharing a pool of `Net` instances.
+  */
+object Ex2FaceDetectionThroughput extends App {
+
+  val batchSizes = Seq(1, 4, 8)
+  val nbRepeats  = 3
+
+  val images = new File("data")
+    .listFiles()
+    .filter(_.getName.toLowerCase.endsWith(".jpg"))
+    .sortBy(_.getName)
+    .map(loadOrExit(_, IMREAD_COLOR))
+    .toSeq
+  println(s"Loaded ${images.length} test images")
+
+  Using.resource(new FaceDetector()) { detector =>
+    // Warm up, first forward pass is much slower than following ones
+    detector.detect(images.head)
+
+    for (batchSize <- batchSizes) {
+      val t0 = System.nanoTime()
+      for (_ <- 0 until nbRepeats; batch <- images.grouped(batchSize)) {
+        detector.detect(batch)
+      }
+      val seconds = (System.nanoTime() - t0) / 1e9
+      println(f"Batch size $batchSize%2d: ${nbRepeats * images.length / seconds}%7.2f images/s")
+    }
+  }
+
+  // Concurrent callers, one `Net` instance per thread
+  val nbThreads = math.max(1, Runtime.getRuntime.availableProcessors / 2)
+  Using.resource(new FaceDetector(poolSize = nbThreads)) { detector =>
+    val executor = Executors.newFixedThreadPool(nbThreads)
+    try {
+      implicit val ec: ExecutionContext = ExecutionContext.fromExecutor(executor)
+      // Warm up all `Net` instances in the pool
+      Await.result(Future.traverse(0 until nbThreads)(_ => Future(detector.detect(images.head))), Duration.Inf)
+
+      val t0      = System.nanoTime()
+      val batches = (0 until nbRepeats).flatMap(_ => images.grouped(4))
+      Await.result(Future.traverse(batches)(batch => Future(detector.detect(batch))), Duration.Inf)
+      val seconds = (System.nanoTime() - t0) / 1e9
+      println(f"$nbThreads%2d threads, batch size 4: ${nbRepeats * images.length / seconds}%7.2f images/s")
+    } finally {
+      executor.shutdown()
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter15
+
+import opencv_cookbook.StopWatch
+import org.bytedeco.javacv.{FFmpegFrameGrabber, OpenCVFrameConverter}
+
+import scala.util.Using
+
+/**
+  * Detect faces in a video, running the neural network only every N frames and tracking faces in between,
+  * see `FaceTracker`.
+  *
+  * Each frame is also processed by running detection on every frame. Those detections are used as a reference to
+  * report accuracy of tracked face boxes, next to effective frame rate of both approaches.
+  *
+  * Usage:
+  * {{{
+  *   Ex3VideoFaceDetection <video file> [N]
+  * }}}
+  * The video file is required, none of the videos in `data` contain faces.
+  */
+object Ex3VideoFaceDetection extends App {
+
+  if (args.isEmpty) {
+    println("Usage: Ex3VideoFaceDetection <video file> [N]")
+    sys.exit(1)
+  }
+
+  val inputFile   = args(0)
+  val detectEvery = args.drop(1).headOption.map(_.toInt).getOrElse(10)
+
+  // Tracked box matching a reference box with at least this IoU is counted as correct
+  val iouThreshold = 0.5
+
+  val trackerWatch   = new StopWatch()
+  val referenceWatch = new StopWatch()
+
+  var referenceFaces = 0L
+  var matchedFaces   = 0L
+  var iouSum         = 0.0
+
+  println(s"Processing video file: $inputFile")
+  println(s"  detect every $detectEvery frames")
+
+  Using.resources(new FaceDetector(), new FFmpegFrameGrabber(inputFile), new OpenCVFrameConverter.ToMat()) {
+    (detector, grabber, frameConverter) =>
+      grabber.start()
+
+      val tracker = new FaceTracker(detector, detectEvery = detectEvery)
+
+      for (frame <- Iterator.continually(grabber.grabImage()).takeWhile(_ != null)) {
+        val mat = frameConverter.convert(frame)
+
+        val tracked   = trackerWatch.add(tracker.process(mat))
+        val reference = referenceWatch.add(detector.detect(mat))
+
+        // Best match for each of the reference faces
+        for (r <- reference) {
+          val bestIoU = tracked.map(t => FaceTracker.iou(r.rect, t)).maxOption.getOrElse(0.0)
+          referenceFaces += 1
+          iouSum += bestIoU
+          if (bestIoU >= iouThreshold) matchedFaces += 1
+        }
+      }
+
+      grabber.stop()
+
+      val frames = tracker.frameCount
+      println(s"Frames: $frames, frames with detection: ${tracker.detectionCount}")
+      println(f"Detect on every frame : ${frames / referenceWatch.duration.toMillis.toDouble * 1000}%7.2f fps")
+      println(f"Detect every $detectEvery%2d frames: ${frames / trackerWatch.duration.toMillis.toDouble * 1000}%7.2f fps")
+      if (referenceFaces > 0) {
+        println(f"Reference faces: $referenceFaces, mean IoU: ${iouSum / referenceFaces}%.3f, " +
+          f"matched (IoU >= $iouThreshold): ${100.0 * matchedFaces / referenceFaces}%.1f%%")
+      } else {
+        println("No faces detected in the reference, accuracy cannot be evaluated.")
+      }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter15
+
+import opencv_cookbook.OpenCVUtils._
+import opencv_cookbook.StopWatch
+import org.bytedeco.opencv.global.opencv_core._
+import org.bytedeco.opencv.global.opencv_dnn._
+import org.bytedeco.opencv.global.opencv_imgcodecs._
+import org.bytedeco.opencv.opencv_core._
+
+import java.io.File
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.Await
+import scala.concurrent.duration.Duration
+import scala.util.Using
+
+/**
+  * Compares startup latency of face detection with and without `DnnModelRegistry`.
+  *
+  * Without the registry, each job parses the model and its first forward pass is slow (cold).
+  * With the registry, the model is parsed and warmed up in the background while the application does other startup
+  * work, so the first detection runs at warm speed.
+  */
+object Ex4ModelStartupLatency extends App {
+
+  val model = DnnModel.FaceDetection
+
+  def blob(image: Mat): Mat =
+    blobFromImage(image, 1.0, new Size(model.inWidth, model.inHeight), new Scalar(104.0, 177.0, 123.0, 128),
+      false, false, CV_32F)
+
+  /** Execute `op` and return its result and execution time in milliseconds. */
+  def time[R](op: => R): (R, Double) = {
+    val stopWatch = new StopWatch()
+    val r         = stopWatch.add(op)
+    (r, stopWatch.durationMillis)
+  }
+
+  val image = loadOrExit(new File("data/family-of-three.jpg"), IMREAD_COLOR)
+
+  //
+  // Without registry
+  //
+  val (net, parseTime) = time(readNetFromCaffe(model.configuration.getCanonicalPath, model.binary.getCanonicalPath))
+  val (_, coldTime) = time {
+    net.setInput(blob(image))
+    net.forward()
+  }
+  val warmTimes = for (_ <- 1 to 10) yield time {
+    net.setInput(blob(image))
+    net.forward()
+  }._2
+  net.close()
+
+  //
+  // With registry, start warming up the model in the background, before any other startup work
+  //
+  val preloadWatch = new StopWatch()
+  preloadWatch.start()
+  val preloaded = DnnModelRegistry.preload(model).map(_ => preloadWatch.stop())
+
+  // Other startup work, here simulated by loading an image
+  val (startupImage, startupTime) = time(loadOrExit(new File("data/family-of-three.jpg"), IMREAD_COLOR))
+
+  val (_, waitTime)     = time(Await.result(preloaded, Duration.Inf))
+  val (_, registryTime) = time(Using.resource(new FaceDetector())(_.detect(startupImage)))
+
+  println("Without registry:")
+  println(f"  parse model                  : $parseTime%8.2f ms")
+  println(f"  first forward pass (cold)    : $coldTime%8.2f ms")
+  println(f"  next forward passes (warm)   : ${warmTimes.min}%8.2f ms (min of ${warmTimes.length})")
+  println(f"  total to first result        : ${parseTime + coldTime}%8.2f ms")
+  println("With registry:")
+  println(f"  background parse and warm-up : ${preloadWatch.durationMillis}%8.2f ms")
+  println(f"  other startup work           : $startupTime%8.2f ms")
+  println(f"  waiting for warm-up          : $waitTime%8.2f ms")
+  println(f"  first detection              : $registryTime%8.2f ms")
+
+  DnnModelRegistry.clear()
+}
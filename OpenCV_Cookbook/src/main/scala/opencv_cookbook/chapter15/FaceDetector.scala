@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter15
+
+import opencv_cookbook.chapter15.FaceDetector._
+import org.bytedeco.opencv.global.opencv_core._
+import org.bytedeco.opencv.global.opencv_dnn._
+import org.bytedeco.opencv.opencv_core._
+import org.bytedeco.opencv.opencv_dnn.Net
+
+import java.io.File
+import java.nio.FloatBuffer
+import java.util.concurrent.ArrayBlockingQueue
+
+
+object FaceDetector {
+
+  val DefaultModelConfiguration: File = DnnModel.FaceDetection.configuration
+  val DefaultModelBinary: File        = DnnModel.FaceDetection.binary
+
+  /** Number of values describing each detection in the output of SSD `DetectionOutput` layer:
+    * `[imageId, label, confidence, x1, y1, x2, y2]`, coordinates are relative to image size. */
+  private val DetectionSize = 7
+
+  /** Face detected in an image.
+    *
+    * @param rect       face location in input image coordinates
+    * @param confidence detection confidence
+    */
+  case class Detection(rect: Rect, confidence: Float)
+
+  /** Decode detections from output of the SSD network.
+    *
+    * The whole output is copied in one bulk operation, rather than reading it element by element through an indexer.
+    *
+    * @param detections          output of the network, of shape `1 x 1 x N x 7`
+    * @param imageSizes          sizes of images in the batch, used to scale relative coordinates of detections
+    * @param confidenceThreshold only detections with confidence above threshold are returned
+    * @return detections for each of the images in the batch
+    */
+  def decode(detections: Mat, imageSizes: Seq[Size], confidenceThreshold: Double): IndexedSeq[Seq[Detection]] = {
+    val n      = detections.size(2)
+    val values = new Array[Float](n * DetectionSize)
+    detections.createBuffer[FloatBuffer]().get(values)
+
+    val results = IndexedSeq.fill(imageSizes.length)(Seq.newBuilder[Detection])
+    for (i <- 0 until n) {
+      val offset     = i * DetectionSize
+      val imageId    = values(offset).toInt
+      val confidence = values(offset + 2)
+      // Unused entries in the output have negative image ID
+      if (imageId >= 0 && imageId < imageSizes.length && confidence > confidenceThreshold) {
+        val width  = imageSizes(imageId).width
+        val height = imageSizes(imageId).height
+        val x1     = (values(offset + 3) * width).toInt
+        val y1     = (values(offset + 4) * height).toInt
+        val x2     = (values(offset + 5) * width).toInt
+        val y2     = (values(offset + 6) * height).toInt
+        results(imageId) += Detection(new Rect(new Point(x1, y1), new Point(x2, y2)), confidence)
+      }
+    }
+    results.map(_.result())
+  }
+}
+
+/**
+  * Face detector using a pre-trained deep learning neural network model, as in `Ex1FaceDetection`,
+  * that can be reused for many images.
+  *
+  * The model is loaded once when the detector is created. Several images can be processed in a single forward pass
+  * of the network. The detector keeps a pool of `Net` instances, each instance is used by one caller at a time,
+  * so `detect` methods can be safely called from multiple threads.
+  *
+  * `Net` instances are obtained from `DnnModelRegistry` and returned to it when the detector is closed,
+  * so detectors created later in the same JVM reuse already parsed and warmed up instances.
+  *
+  * @param poolSize            number of `Net` instances, maximum number of concurrent forward passes
+  * @param confidenceThreshold only detections with confidence above threshold are returned
+  */
+class FaceDetector(modelConfiguration: File = DefaultModelConfiguration,
+                   modelBinary: File = DefaultModelBinary,
+                   val poolSize: Int = 1,
+                   val confidenceThreshold: Double = 0.5) extends AutoCloseable {
+
+  require(poolSize > 0, "Argument `poolSize` must be greater than 0.")
+
+  val inWidth       = 300
+  val inHeight      = 300
+  val inScaleFactor = 1.0
+  val meanVal       = new Scalar(104.0, 177.0, 123.0, 128)
+
+  private val model = DnnModel(modelConfiguration, modelBinary, inWidth, inHeight)
+
+  private val nets = new ArrayBlockingQueue[Net](poolSize)
+
+  for (_ <- 0 until poolSize) nets.put(DnnModelRegistry.acquire(model))
+
+  /** Detect faces in a single image. */
+  def detect(image: Mat): Seq[Detection] = detect(Seq(image)).head
+
+  /** Detect faces in a batch of images using a single forward pass.
+    *
+    * @return detections for each of the input images, in the same order as images
+    */
+  def detect(images: Seq[Mat]): IndexedSeq[Seq[Detection]] = {
+    require(images.nonEmpty, "Argument `images` cannot be empty.")
+
+    val imageSizes = images.map(_.size())
+
+    // Convert images to format suitable for using with the net
+    val inputBlob = blobFromImages(
+      new MatVector(images: _*), inScaleFactor, new Size(inWidth, inHeight), meanVal, false, false, CV_32F)
+
+    withNet { net =>
+      // Set the network input
+      net.setInput(inputBlob)
+      // Make forward pass, output is owned by the `net` so decode it before the `net` is returned to the pool
+      decode(net.forward(), imageSizes, confidenceThreshold)
+    }
+  }
+
+  /** Borrow a `Net` from the pool for the duration of `op`. */
+  private def withNet[R](op: Net => R): R = {
+    val net = nets.take()
+    try {
+      op(net)
+    } finally {
+      nets.put(net)
+    }
+  }
+
+  override def close(): Unit = {
+    for (_ <- 0 until poolSize) DnnModelRegistry.release(model, nets.take())
+  }
+}
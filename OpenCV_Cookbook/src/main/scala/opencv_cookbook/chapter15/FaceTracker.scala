@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2011-2026 Jarek Sacha. All Rights Reserved.
+ *
+ * Author's e-mail: jpsacha at gmail.com
+ */
+
+package opencv_cookbook.chapter15
+
+import opencv_cookbook.OpenCVUtils._
+import org.bytedeco.javacpp.indexer.UByteIndexer
+import org.bytedeco.opencv.global.opencv_core._
+import org.bytedeco.opencv.global.opencv_imgproc._
+import org.bytedeco.opencv.global.opencv_video._
+import org.bytedeco.opencv.opencv_core._
+
+
+object FaceTracker {
+
+  /** Intersection over union of two rectangles, `0` if they do not overlap. */
+  def iou(a: Rect, b: Rect): Double = {
+    val w = math.min(a.x + a.width, b.x + b.width) - math.max(a.x, b.x)
+    val h = math.min(a.y + a.height, b.y + b.height) - math.max(a.y, b.y)
+    if (w <= 0 || h <= 0) 0
+    else {
+      val intersection = w.toDouble * h
+      intersection / (a.area() + b.area() - intersection)
+    }
+  }
+
+  private def median(values: Array[Float]): Float = {
+    val sorted = values.sorted
+    sorted(sorted.length / 2)
+  }
+}
+
+/** Detect faces in a video, running the neural network only on some of the frames.
+  *
+  * Faces are detected by `detector` every `detectEvery` frames, or sooner when a scene change is detected or
+  * a tracked face is lost. In the frames between detections, feature points inside each face box are tracked
+  * using optical flow, like in `opencv_cookbook.chapter11.FeatureTracker`,
+  * and each box is moved by the median displacement of its points.
+  *
+  * A lost face triggers detection only once between scheduled detections. If the face is lost again, for instance,
+  * a face without enough feature points to track, its box stays in place until the next scheduled detection,
+  * so the detector is not run on every frame.
+  *
+  * @param detector             face detector used on key frames
+  * @param detectEvery          maximum number of frames between detections
+  * @param sceneChangeThreshold mean absolute difference of gray levels, between consecutive frames, that triggers
+  *                             detection
+  * @param minTrackedPoints     a face with fewer successfully tracked points is considered lost
+  */
+class FaceTracker(detector: FaceDetector,
+                  val detectEvery: Int = 10,
+                  val sceneChangeThreshold: Double = 20,
+                  val minTrackedPoints: Int = 4) {
+
+  import FaceTracker._
+
+  require(detectEvery > 0, "Argument `detectEvery` must be greater than 0.")
+
+  private val maxPointsPerFace = 30
+  private val qLevel           = 0.01
+  private val minDist          = 3.0
+  private val thumbnailSize    = new Size(64, 64)
+
+  private var grayPrevious      = new Mat()
+  private var grayCurrent       = new Mat()
+  private var thumbnailPrevious = new Mat()
+  private var thumbnailCurrent  = new Mat()
+  private val thumbnailDiff     = new Mat()
+
+  /** Current face locations and points tracked within each face */
+  private var faces: IndexedSeq[Rect]                 = IndexedSeq.empty
+  private var facePoints: IndexedSeq[Array[Point2f]] = IndexedSeq.empty
+
+  // Start with detection on the first frame
+  private var framesSinceDetection = detectEvery
+  private var faceLost             = false
+  private var detectOnLoss         = true
+
+  /** Number of frames on which detector was used. */
+  var detectionCount: Long = 0
+
+  /** Number of processed frames. */
+  var frameCount: Long = 0
+
+  /** Process next frame.
+    *
+    * @return face locations in the frame
+    */
+  def process(frame: Mat): Seq[Rect] = {
+    cvtColor(frame, grayCurrent, COLOR_BGR2GRAY)
+    val sceneChanged = isSceneChange
+
+    if (faceLost || sceneChanged || framesSinceDetection >= detectEvery) {
+      detect(frame)
+    } else {
+      track()
+    }
+
+    frameCount += 1
+
+    // current image becomes previous one
+    val h = grayPrevious
+    grayPrevious = grayCurrent
+    grayCurrent = h
+
+    faces
+  }
+
+  private def detect(frame: Mat): Unit = {
+    val bounds = new Rect(0, 0, frame.cols, frame.rows)
+    faces = detector.detect(frame)
+      .map(d => clip(d.rect, bounds))
+      .filter(r => r.width > 0 && r.height > 0)
+      .toIndexedSeq
+    facePoints = faces.map(detectFeaturePoints)
+    framesSinceDetection = 1
+    // Detection triggered by a lost face is not repeated before the next scheduled one
+    detectOnLoss = !faceLost
+    faceLost = false
+    detectionCount += 1
+  }
+
+  private def track(): Unit = {
+    val bounds = new Rect(0, 0, grayCurrent.cols, grayCurrent.rows)
+    val moved = for ((rect, points) <- faces.zip(facePoints)) yield {
+      val (pointsOld, pointsNew) = trackPoints(points)
+      if (pointsNew.length < minTrackedPoints) {
+        // Lost the face, keep the old location and, if allowed, run detection on the next frame
+        if (detectOnLoss) faceLost = true
+        (rect, pointsNew)
+      } else {
+        // Move the box by median displacement of its points, median is robust to few badly tracked points
+        val dx = median(pointsNew.indices.map(i => pointsNew(i).x - pointsOld(i).x).toArray)
+        val dy = median(pointsNew.indices.map(i => pointsNew(i).y - pointsOld(i).y).toArray)
+        val box = new Rect(math.round(rect.x + dx), math.round(rect.y + dy), rect.width, rect.height)
+        (clip(box, bounds), pointsNew)
+      }
+    }
+    // Drop faces that moved out of the frame
+    val tracked = moved.filter { case (r, _) => r.width > 0 && r.height > 0 }
+    faces = tracked.map(_._1)
+    facePoints = tracked.map(_._2)
+    framesSinceDetection += 1
+  }
+
+  /** Track points from previous to the current frame.
+    *
+    * @return successfully tracked points, their locations in the previous frame and in the current frame
+    */
+  private def trackPoints(points: Array[Point2f]): (Array[Point2f], Array[Point2f]) = {
+    if (points.isEmpty) (Array.empty, Array.empty)
+    else {
+      val pointsNewMat   = new Mat()
+      val trackingStatus = new Mat()
+      val err            = new Mat()
+      calcOpticalFlowPyrLK(grayPrevious, grayCurrent, toMatPoint2f(points.toSeq), pointsNewMat, trackingStatus, err)
+      val pointsNew = toPoint2fArray(pointsNewMat)
+      val status    = trackingStatus.createIndexer().asInstanceOf[UByteIndexer]
+      val accepted  = pointsNew.indices.filter(i => status.get(i) != 0).toArray
+      status.release()
+      (accepted.map(points), accepted.map(pointsNew))
+    }
+  }
+
+  /** Detect feature points inside a face box, in full frame coordinates. */
+  private def detectFeaturePoints(rect: Rect): Array[Point2f] = {
+    val features = new Mat()
+    goodFeaturesToTrack(new Mat(grayCurrent, rect), features, maxPointsPerFace, qLevel, minDist)
+    if (features.empty()) Array.empty
+    else toPoint2fArray(features).map(p => new Point2f(p.x + rect.x, p.y + rect.y))
+  }
+
+  /** Detect significant change between previous and current frame by comparing their thumbnails. */
+  private def isSceneChange: Boolean = {
+    resize(grayCurrent, thumbnailCurrent, thumbnailSize, 0, 0, INTER_AREA)
+    val changed =
+      !thumbnailPrevious.empty() && {
+        absdiff(thumbnailPrevious, thumbnailCurrent, thumbnailDiff)
+        mean(thumbnailDiff).get(0) > sceneChangeThreshold
+      }
+    val h = thumbnailPrevious
+    thumbnailPrevious = thumbnailCurrent
+    thumbnailCurrent = h
+    changed
+  }
+
+  private def clip(rect: Rect, bounds: Rect): Rect = {
+    val x1 = math.max(rect.x, bounds.x)
+    val y1 = math.max(rect.y, bounds.y)
+    val x2 = math.min(rect.x + rect.width, bounds.x + bounds.width)
+    val y2 = math.min(rect.y + rect.height, bounds.y + bounds.height)
+    new Rect(x1, y1, math.max(0, x2 - x1), math.max(0, y2 - y1))
+  }
+}
@@ -0,0 +1,147 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.{BytePointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.AcquisitionEngine.{DropPolicy, Frame}
+import spinnaker_c.acquisition.{AcquisitionEngine, SpinnakerFrameSource}
+import spinnaker_c.helpers.*
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import scala.jdk.CollectionConverters.*
+import scala.util.Using
+
+/**
+ * Variant of `Acquisition_C` that grabs images on one thread and converts and saves them on a pool of workers,
+ * using `AcquisitionEngine`.
+ *
+ * In `Acquisition_C` each image is held in the camera buffer while it is converted and saved as JPEG.
+ * Here the image data is copied to a pooled buffer and the image is released to the camera right away.
+ * If conversion and saving cannot keep up with the camera, the oldest frames waiting in the queue are dropped.
+ */
+object AcquisitionEngine_C {
+
+  private val NumImages = 100
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    val hNodeMapTLDevice = use(new spinNodeMapHandle())
+    check(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap .")
+    val serialNumber = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber").getOrElse("")
+
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+      setEnumerationNodeValue(hNodeMap, "AcquisitionMode", "Continuous")
+
+      // Frame buffers are sized for the current image format
+      val frameSize = maxFrameSize(hNodeMap)
+
+      // Image processor is not shared between threads, each worker creates its own
+      val processors = new ConcurrentLinkedQueue[spinImageProcessor]()
+      val processor  = ThreadLocal.withInitial[spinImageProcessor] { () =>
+        val p = new spinImageProcessor()
+        check(spinImageProcessorCreate(p), "Unable to create image processor.")
+        check(
+          spinImageProcessorSetColorProcessing(
+            p,
+            spinColorProcessingAlgorithm.SPINNAKER_COLOR_PROCESSING_ALGORITHM_HQ_LINEAR
+          ),
+          "Unable to set image processor color processing method."
+        )
+        processors.add(p)
+        p
+      }
+
+      def convertAndSave(frame: Frame): Unit = Using.Manager { use =>
+        val h           = frame.header
+        val pixelFormat = spinPixelFormatEnums.values.find(_.value == h.pixelFormat).get
+        val hImage      = use(new spinImage())
+        check(
+          spinImageCreateEx(hImage, h.width, h.height, 0, 0, pixelFormat, new BytePointer(frame.data)),
+          "Unable to create image."
+        )
+        val hConverted = use(new spinImage())
+        try
+          check(spinImageCreateEmpty(hConverted), "Unable to create image.")
+          check(
+            spinImageProcessorConvert(processor.get, hImage, hConverted, spinPixelFormatEnums.PixelFormat_Mono8),
+            "Unable to convert image."
+          )
+          val prefix   = if serialNumber.isEmpty then "AcquisitionEngine-C-" else s"AcquisitionEngine-C-$serialNumber-"
+          val filename = s"$prefix${h.frameId}.jpg"
+          val format   = spinImageFileFormat.SPINNAKER_IMAGE_FILE_FORMAT_JPEG
+          check(spinImageSave(hConverted, use(new BytePointer(filename)), format), "Unable to save image.")
+        finally
+          printOnError(spinImageDestroy(hConverted), "Unable to destroy image.")
+          printOnError(spinImageDestroy(hImage), "Unable to destroy image.")
+      }.get
+
+      val source = new SpinnakerFrameSource(hCam, frameSize)
+      val engine =
+        new AcquisitionEngine(source, queueCapacity = 16, nbWorkers = 4, dropPolicy = DropPolicy.DropOldest)(convertAndSave)
+      try
+        val t0 = System.nanoTime()
+        engine.start()
+        val deadline = t0 + 60L * 1000000000L
+        while engine.stats.grabbed < NumImages && System.nanoTime() < deadline && engine.grabFailure.isEmpty do
+          Thread.sleep(10)
+        engine.stop()
+        val seconds = (System.nanoTime() - t0) / 1e9
+        engine.grabFailure.foreach(ex => println("Acquisition stopped early: " + ex.getMessage))
+
+        val s = engine.stats
+        println(f"Grabbed ${s.grabbed} images in $seconds%.2f s, ${s.grabbed / seconds}%.1f fps")
+        println(s"Saved: ${s.processed}, dropped: ${s.dropped}, failed: ${s.failed}")
+        println(s"Incomplete images skipped: ${s.incomplete}, grab timeouts: ${s.timeouts}")
+        println(f"Average latency from grab to saved image: ${s.meanLatencyMillis}%.1f ms")
+      finally
+        engine.close()
+        source.close()
+        processors.asScala.foreach { p =>
+          printOnError(spinImageProcessorDestroy(p), "Unable to destroy image processor.")
+          p.close()
+        }
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+}
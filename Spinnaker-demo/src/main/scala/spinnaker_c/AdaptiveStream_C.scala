@@ -0,0 +1,126 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.{BytePointer, LongPointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+import spinnaker_c.nodemap.NodeCache
+import spinnaker_c.stream.*
+import spinnaker_c.stream.StreamTuner.Limits
+
+import java.util.concurrent.locks.LockSupport
+import scala.util.Using
+
+/**
+ * Shows how to adjust stream buffer count and buffer handling mode during acquisition with `StreamTuner`,
+ * based on the latency and drop rate measured by the consumer.
+ *
+ * Processing of each image is simulated by waiting, going through phases: fast, too slow for the camera frame rate,
+ * and fast again. Each second the measurement is passed to the tuner and its decisions are applied to the camera.
+ * See `StreamTunerSimulation` for the same without a camera.
+ */
+object AdaptiveStream_C {
+
+  private val SecondsPerPhase = 20
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+      val nodes = use(NodeCache(hNodeMap))
+      nodes.setEnumeration("AcquisitionMode", "Continuous")
+
+      val fps    = nodes.getFloat("AcquisitionFrameRate")
+      val period = 1000 / fps
+      // Name and processing time of an image
+      val phases = Seq(("fast", 0.3 * period), ("slow", 1.5 * period), ("fast", 0.3 * period))
+
+      val control = use(new SpinStreamControl(hCam, StreamSettings(3, BufferHandlingMode.OldestFirst)))
+      val limits  = Limits(maxBufferCount = math.min(64, control.maxBufferCount), maxLatencyMillis = 4 * period)
+      val tuner   = new StreamTuner(limits)
+      val monitor = new StreamMonitor()
+      println(f"Camera at $fps%.1f fps, $limits")
+
+      val hImage       = use(new spinImage())
+      val isIncomplete = use(new BytePointer(1L))
+      val pFrameId     = use(new LongPointer(1L))
+      val pTimestamp   = use(new LongPointer(1L))
+
+      check(spinCameraBeginAcquisition(hCam), "Unable to begin image acquisition.")
+      try
+        for ((name, processingMillis) <- phases) {
+          println(f"--- Consumer $name: processing $processingMillis%.1f ms")
+          for (second <- 0 until SecondsPerPhase) {
+            val intervalEnd = System.nanoTime() + 1000000000L
+            while (System.nanoTime() < intervalEnd) {
+              val err = spinCameraGetNextImageEx(hCam, 1000, hImage)
+              if (err.intern() != spinError.SPINNAKER_ERR_TIMEOUT) {
+                check(err, "Unable to get next image.")
+                try
+                  check(spinImageIsIncomplete(hImage, isIncomplete), "Unable to determine image completion.")
+                  if (!isIncomplete.getBool) {
+                    check(spinImageGetFrameID(hImage, pFrameId), "spinImageGetFrameID()")
+                    check(spinImageGetTimeStamp(hImage, pTimestamp), "spinImageGetTimeStamp()")
+                    LockSupport.parkNanos((processingMillis * 1e6).toLong)
+                    monitor.record(pFrameId.get(), pTimestamp.get())
+                  }
+                finally
+                  printOnError(spinImageRelease(hImage), "Unable to release image.")
+              }
+            }
+
+            val settings = control.settings
+            val m        = monitor.snapshot()
+            println(
+              f"${settings.toString}%-24s frames ${m.frames}%3d dropped ${m.dropped}%3d " +
+                f"latency ${m.meanLatencyMillis}%7.1f ms"
+            )
+            tuner.update(settings, m).foreach(d => control.apply(d.to))
+          }
+        }
+      finally
+        check(spinCameraEndAcquisition(hCam), "Unable to end acquisition.")
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+}
@@ -139,7 +139,7 @@ object ChunkData_C {
    * When chunk data mode is turned on, the data is made available in both the nodemap
    * and each image.
    */
-  private def configureChunkData(hNodeMap: spinNodeMapHandle): Unit = Using.Manager { use =>
+  private[spinnaker_c] def configureChunkData(hNodeMap: spinNodeMapHandle): Unit = Using.Manager { use =>
     printf("\n\n*** CONFIGURING CHUNK DATA ***\n\n")
 
     //
@@ -575,7 +575,7 @@ object ChunkData_C {
   }.get
 
   /** This function disables each type of chunk data before disabling chunk data mode. */
-  private def disableChunkData(hNodeMap: spinNodeMapHandle): Unit = Using.Manager { use =>
+  private[spinnaker_c] def disableChunkData(hNodeMap: spinNodeMapHandle): Unit = Using.Manager { use =>
 
     val hChunkSelector = nodeMapGetNode(hNodeMap, "ChunkSelector")
     checkIsReadable(hChunkSelector, "ChunkSelector")
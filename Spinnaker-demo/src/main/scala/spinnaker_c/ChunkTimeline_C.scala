@@ -0,0 +1,114 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.{BytePointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.chunks.ChunkTimelineRecorder.Format
+import spinnaker_c.chunks.{ChunkField, ChunkTimelineRecorder, SpinImageChunkValues}
+import spinnaker_c.helpers.*
+
+import java.nio.file.Paths
+import scala.util.Using
+
+/**
+ * Variant of `ChunkData_C` that records chunk data of each image to a CSV timeline file
+ * using `ChunkTimelineRecorder`, instead of printing it, so it can keep up with the camera frame rate.
+ *
+ * Images are not converted or saved, only chunk data is read before the image is released.
+ * Frames dropped between received images are detected from gaps in the frame ID.
+ */
+object ChunkTimeline_C {
+
+  private val NumImages = 1000
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    val hNodeMapTLDevice = use(new spinNodeMapHandle())
+    check(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap .")
+    val serialNumber = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber").getOrElse("")
+
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+
+      ChunkData_C.configureChunkData(hNodeMap)
+      try
+        setEnumerationNodeValue(hNodeMap, "AcquisitionMode", "Continuous")
+
+        // Chunks not available on the camera are skipped
+        val fields = SpinImageChunkValues.enabledFields(hNodeMap, ChunkField.Default)
+        ChunkField.Default.diff(fields).foreach(f => println(s"${f.name} is not enabled, it is not recorded"))
+
+        val filename = if serialNumber.isEmpty then "ChunkTimeline-C.csv" else s"ChunkTimeline-C-$serialNumber.csv"
+        val values   = use(new SpinImageChunkValues(fields))
+        val recorder = use(new ChunkTimelineRecorder(fields, Paths.get(filename), Format.CSV))
+
+        // Allocated once, reused for each image
+        val hImage       = use(new spinImage())
+        val isIncomplete = use(new BytePointer(1L))
+        var incomplete   = 0
+
+        check(spinCameraBeginAcquisition(hCam), "Unable to begin image acquisition.")
+        println(s"Recording chunk data of $NumImages images...")
+        try
+          for _ <- 0 until NumImages do {
+            check(spinCameraGetNextImageEx(hCam, 1000, hImage), "Unable to get next image.")
+            try
+              check(spinImageIsIncomplete(hImage, isIncomplete), "Unable to determine image completion.")
+              if isIncomplete.getBool then incomplete += 1
+              else recorder.record(values.of(hImage))
+            finally
+              printOnError(spinImageRelease(hImage), "Unable to release image.")
+          }
+        finally
+          check(spinCameraEndAcquisition(hCam), "Unable to end acquisition.")
+
+        recorder.close()
+        println(s"Chunk data of ${recorder.frames} images saved at $filename")
+        println(s"Incomplete images: $incomplete")
+        println(s"Dropped frames: ${recorder.droppedFrames} in ${recorder.gaps} gaps")
+      finally
+        ChunkData_C.disableChunkData(hNodeMap)
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+}
@@ -0,0 +1,129 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.SizeTPointer
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.MultiCameraCapture.{FrameSet, Grouping}
+import spinnaker_c.acquisition.{MultiCameraCapture, SpinnakerFrameSource}
+import spinnaker_c.helpers.*
+
+import scala.util.Using
+
+/**
+ * Captures from all connected cameras in parallel and groups images into synchronized sets, using
+ * `MultiCameraCapture`.
+ *
+ * `Trigger_C` and `Acquisition_C` run cameras one after another. Here all cameras are configured for software
+ * trigger, each camera has its own grabber thread, and the main thread triggers all cameras at a fixed rate.
+ * Images from the same trigger have the same frame ID and are grouped into a set.
+ * With a hardware trigger wired to all cameras, only the trigger configuration needs to change.
+ *
+ * Reported timestamp skew is meaningful only if camera clocks are synchronized, for instance, using IEEE 1588 (PTP).
+ */
+object MultiCameraCapture_C {
+
+  private val NumTriggers          = 100
+  private val TriggerPeriodMs      = 100L
+  private val AcquisitionTimeoutMs = 1000L
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          val hCameras = (0 until numCameras.get.toInt).map { i =>
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            hCamera
+          }
+          try
+            if hCameras.nonEmpty then runCameras(hCameras)
+          finally
+            hCameras.foreach(hCamera => printOnError(spinCameraRelease(hCamera), "Error releasing camera."))
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runCameras(hCameras: IndexedSeq[spinCamera]): Unit = Using.Manager { use =>
+    hCameras.foreach(hCam => check(spinCameraInit(hCam), "Unable to initialize camera."))
+    try
+      val hNodeMaps = hCameras.map { hCam =>
+        val hNodeMap = use(new spinNodeMapHandle)
+        check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+        hNodeMap
+      }
+
+      // Trigger mode has to be off while the trigger source is selected, see `Trigger_C`
+      hNodeMaps.foreach { hNodeMap =>
+        setEnumerationNodeValue(hNodeMap, "TriggerMode", "Off")
+        setEnumerationNodeValue(hNodeMap, "TriggerSelector", "FrameStart")
+        setEnumerationNodeValue(hNodeMap, "TriggerSource", "Software")
+        setEnumerationNodeValue(hNodeMap, "TriggerMode", "On")
+        setEnumerationNodeValue(hNodeMap, "AcquisitionMode", "Continuous")
+      }
+      // Blackfly and Flea3 GEV cameras need 1 second delay after trigger mode is turned on
+      Thread.sleep(1000)
+
+      try
+        val hTriggerSoftware = hNodeMaps.map(hNodeMap => use(nodeMapGetNode(hNodeMap, "TriggerSoftware")))
+        // Frame buffers of each camera are sized for its current image format
+        val sources = hCameras.zip(hNodeMaps).map { (hCam, hNodeMap) =>
+          use(new SpinnakerFrameSource(hCam, maxFrameSize(hNodeMap)))
+        }
+
+        val process: FrameSet => Unit = { set =>
+          val ids = set.frames.flatten.map(_.header.frameId)
+          if (ids.head % 10 == 0) println(f"Set of frame ${ids.head}, skew ${set.skewNanos / 1e3}%.1f us")
+        }
+
+        val capture = new MultiCameraCapture(
+          sources,
+          Grouping.ByFrameId,
+          setTimeoutMillis = AcquisitionTimeoutMs,
+          grabTimeoutMillis = AcquisitionTimeoutMs
+        )(process)
+        try
+          capture.start()
+          for _ <- 0 until NumTriggers do {
+            hTriggerSoftware.foreach(h => check(spinCommandExecute(h), "Unable to execute software trigger."))
+            Thread.sleep(TriggerPeriodMs)
+          }
+        finally
+          capture.stop()
+
+        val s = capture.stats
+        println()
+        println(s"Sets: complete ${s.completeSets}, incomplete ${s.incompleteSets}")
+        println(s"Grabbed per camera:   ${s.grabbed.mkString(", ")}")
+        println(s"Dropped per camera:   ${s.dropped.mkString(", ")}")
+        println(s"Unmatched per camera: ${s.unmatched.mkString(", ")}")
+        println(s"Incomplete images per camera: ${sources.map(_.incompleteCount).mkString(", ")}")
+        println(f"Device timestamp skew: mean ${s.meanSkewMicros}%.1f us, max ${s.maxSkewMicros}%.1f us")
+      finally
+        hNodeMaps.foreach(hNodeMap => setEnumerationNodeValue(hNodeMap, "TriggerMode", "Off"))
+    finally
+      hCameras.foreach(hCam => check(spinCameraDeInit(hCam), "Unable to deinitialize camera."))
+  }.get
+}
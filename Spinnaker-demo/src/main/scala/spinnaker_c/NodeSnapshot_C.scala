@@ -0,0 +1,118 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.SizeTPointer
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+import spinnaker_c.nodemap.{NodeCache, NodeSnapshot, SpinNodeMapOps}
+
+import java.nio.file.{Files, Path}
+import scala.util.Using
+
+/**
+ * Shows how to restore camera configuration at startup from a `NodeSnapshot`, writing only nodes that changed.
+ *
+ * On the first run the camera is configured node by node and the values of all writable nodes are saved to
+ * a snapshot file named after camera model and serial number. On the following runs the snapshot is restored,
+ * and startup time is reported with the snapshot, writing only nodes that differ from the live values,
+ * and without it, writing all nodes.
+ * Delete the snapshot file to configure the camera again.
+ */
+object NodeSnapshot_C {
+
+  private val SnapshotDir = Path.of(".")
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    val hNodeMapTLDevice = use(new spinNodeMapHandle())
+    check(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap .")
+    val model  = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceModelName").getOrElse("Unknown")
+    val serial = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber").getOrElse("Unknown")
+
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+      val ops  = use(new SpinNodeMapOps(hNodeMap))
+      val file = NodeSnapshot.file(SnapshotDir, model, serial)
+
+      if (!Files.exists(file)) {
+        val t0 = System.nanoTime()
+        configure(hNodeMap)
+        val configureMillis = (System.nanoTime() - t0) / 1e6
+
+        val t1       = System.nanoTime()
+        val snapshot = NodeSnapshot.capture(ops, model, serial)
+        snapshot.write(file)
+        val captureMillis = (System.nanoTime() - t1) / 1e6
+
+        println(f"Camera $model $serial configured node by node in $configureMillis%.1f ms")
+        println(f"Snapshot of ${snapshot.values.length} nodes captured to $file in $captureMillis%.1f ms")
+        println("Run again to restore configuration from the snapshot")
+      } else {
+        val snapshot = NodeSnapshot.read(file)
+        println(s"Snapshot of ${snapshot.values.length} nodes read from $file")
+
+        val runs = Seq("with snapshot, changed nodes" -> true, "without snapshot, all nodes" -> false)
+        for ((label, onlyChanged) <- runs) {
+          val t0     = System.nanoTime()
+          val result = snapshot.restore(ops, onlyChanged)
+          val millis = (System.nanoTime() - t0) / 1e6
+          println(f"Startup $label: ${result.changes.length} nodes written in ${result.passes} passes, $millis%.1f ms")
+          if (result.skipped.nonEmpty) println(s"  Not restored: ${result.skipped.mkString(", ")}")
+        }
+      }
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+
+  /** Example configuration, set node by node, as an application would do at startup. */
+  private def configure(hNodeMap: spinNodeMapHandle): Unit =
+    Using.resource(NodeCache(hNodeMap)) { nodes =>
+      nodes.setEnumeration("AcquisitionMode", "Continuous")
+      nodes.setEnumeration("ExposureAuto", "Off")
+      nodes.setFloat("ExposureTime", 5000)
+      nodes.setEnumeration("GainAuto", "Off")
+      nodes.setFloat("Gain", 6)
+      nodes.setBoolean("AcquisitionFrameRateEnable", true)
+      nodes.setFloat("AcquisitionFrameRate", 30)
+    }
+}
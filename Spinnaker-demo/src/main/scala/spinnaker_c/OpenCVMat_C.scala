@@ -0,0 +1,113 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.{BytePointer, SizeTPointer}
+import org.bytedeco.opencv.global.opencv_core.mean
+import org.bytedeco.opencv.global.opencv_imgcodecs.imwrite
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+import spinnaker_c.opencv.{MatPool, PooledMat, SpinImageMats}
+
+import scala.collection.mutable
+import scala.util.Using
+
+/**
+ * Shows how to analyze images with OpenCV without saving them to disk or copying pixels by hand, using `SpinImageMats`.
+ *
+ * Each image is wrapped as an OpenCV `Mat` that refers to the camera buffer, its mean intensity is computed,
+ * and the image is released back to the camera. Every tenth image is copied to a `MatPool` buffer, the copies
+ * outlive the camera buffers and are saved with OpenCV after acquisition ends.
+ */
+object OpenCVMat_C {
+
+  private val NumImages = 50
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    val hNodeMapTLDevice = use(new spinNodeMapHandle())
+    check(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap .")
+    val serialNumber = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber").getOrElse("")
+
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+      setEnumerationNodeValue(hNodeMap, "AcquisitionMode", "Continuous")
+
+      val mats         = use(new SpinImageMats())
+      val pool         = use(new MatPool(capacity = NumImages / 10))
+      val copies       = mutable.ArrayBuffer.empty[PooledMat]
+      val hImage       = use(new spinImage())
+      val isIncomplete = use(new BytePointer(1L))
+
+      check(spinCameraBeginAcquisition(hCam), "Unable to begin image acquisition.")
+      try
+        for (i <- 0 until NumImages) {
+          check(spinCameraGetNextImageEx(hCam, 1000, hImage), "Unable to get next image.")
+          check(spinImageIsIncomplete(hImage, isIncomplete), "Unable to determine image completion.")
+          if (isIncomplete.getBool) {
+            println(s"Image $i incomplete")
+            printOnError(spinImageRelease(hImage), "Unable to release image.")
+          } else {
+            // Released back to the camera when closed
+            Using.resource(mats.wrap(hImage)) { image =>
+              val h = image.header
+              println(f"Image ${h.frameId}: ${h.width}x${h.height}, mean intensity ${mean(image.mat).get(0)}%.1f")
+              if (i % 10 == 0) copies += pool.copy(image)
+            }
+          }
+        }
+      finally
+        check(spinCameraEndAcquisition(hCam), "Unable to end acquisition.")
+
+      for (copy <- copies) {
+        val prefix   = if serialNumber.isEmpty then "OpenCVMat-C-" else s"OpenCVMat-C-$serialNumber-"
+        val filename = s"$prefix${copy.header.frameId}.png"
+        try
+          if (imwrite(filename, copy.mat)) println(s"Image saved at $filename")
+          else println(s"Unable to save $filename")
+        finally
+          copy.close()
+      }
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+}
@@ -0,0 +1,148 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.{BytePointer, IntPointer, LongPointer, Pointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.chunks.{ChunkField, SpinImageChunkValues}
+import spinnaker_c.helpers.*
+import spinnaker_c.recording.{AsyncRawFrameWriter, RawFrameWriter}
+
+import scala.util.Using
+
+/**
+ * Variant of `ChunkData_C` that saves each image as a raw frame with its chunk data, using `AsyncRawFrameWriter`,
+ * instead of converting and saving it as JPEG, so it can keep up with high frame rates.
+ *
+ * Image data and chunk values are copied to a buffer of the writer and the image is released right away,
+ * frames are written to memory-mapped segment files on the writer thread.
+ * Use `RawFrameExport` to export the frames to PNG or JPEG afterwards.
+ */
+object RawCapture_C {
+
+  private val NumImages = 1000
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    val hNodeMapTLDevice = use(new spinNodeMapHandle())
+    check(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap .")
+    val serialNumber = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber").getOrElse("")
+
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+
+      ChunkData_C.configureChunkData(hNodeMap)
+      try
+        setEnumerationNodeValue(hNodeMap, "AcquisitionMode", "Continuous")
+
+        // Writer buffers are sized for the current image format, including chunk data
+        val frameSize = maxFrameSize(hNodeMap)
+
+        // Chunks not available on the camera are skipped
+        val fields = SpinImageChunkValues.enabledFields(hNodeMap, ChunkField.Default)
+        ChunkField.Default.diff(fields).foreach(f => println(s"${f.name} is not enabled, it is not recorded"))
+
+        val baseName = if serialNumber.isEmpty then "RawCapture-C" else s"RawCapture-C-$serialNumber"
+        val values   = use(new SpinImageChunkValues(fields))
+        val writer   = new RawFrameWriter(baseName, fields)
+        val async    = use(new AsyncRawFrameWriter(writer, frameSize))
+
+        // Allocated once, reused for each image
+        val hImage       = use(new spinImage())
+        val isIncomplete = use(new BytePointer(1L))
+        val pData        = use(new Pointer())
+        val pSize        = use(new SizeTPointer(1L))
+        val pWidth       = use(new SizeTPointer(1L))
+        val pHeight      = use(new SizeTPointer(1L))
+        val pStride      = use(new SizeTPointer(1L))
+        val pPixelFormat = use(new IntPointer(1L))
+        val pFrameId     = use(new LongPointer(1L))
+        val pTimestamp   = use(new LongPointer(1L))
+        var incomplete   = 0
+
+        check(spinCameraBeginAcquisition(hCam), "Unable to begin image acquisition.")
+        println(s"Capturing $NumImages images...")
+        val t0 = System.nanoTime()
+        try
+          for _ <- 0 until NumImages do {
+            check(spinCameraGetNextImageEx(hCam, 1000, hImage), "Unable to get next image.")
+            try
+              check(spinImageIsIncomplete(hImage, isIncomplete), "Unable to determine image completion.")
+              if isIncomplete.getBool then incomplete += 1
+              else
+                check(spinImageGetWidth(hImage, pWidth), "spinImageGetWidth()")
+                check(spinImageGetHeight(hImage, pHeight), "spinImageGetHeight()")
+                check(spinImageGetStride(hImage, pStride), "spinImageGetStride()")
+                check(spinImageGetPixelFormat(hImage, pPixelFormat), "spinImageGetPixelFormat()")
+                check(spinImageGetFrameID(hImage, pFrameId), "spinImageGetFrameID()")
+                check(spinImageGetTimeStamp(hImage, pTimestamp), "spinImageGetTimeStamp()")
+                check(spinImageGetBufferSize(hImage, pSize), "spinImageGetBufferSize()")
+                check(spinImageGetData(hImage, pData), "spinImageGetData()")
+                val header = FrameHeader(
+                  width = pWidth.get().toInt,
+                  height = pHeight.get().toInt,
+                  stride = pStride.get().toInt,
+                  pixelFormat = pPixelFormat.get(),
+                  frameId = pFrameId.get(),
+                  timestamp = pTimestamp.get(),
+                  size = pSize.get().toInt
+                )
+                val data = new BytePointer(pData).capacity(header.size.toLong).asByteBuffer()
+                async.offer(header, data, values.of(hImage))
+            finally
+              printOnError(spinImageRelease(hImage), "Unable to release image.")
+          }
+        finally
+          check(spinCameraEndAcquisition(hCam), "Unable to end acquisition.")
+
+        async.close()
+        val seconds = (System.nanoTime() - t0) / 1e9
+        println(f"Written ${writer.framesWritten} frames, ${writer.bytesWritten / 1e6}%.1f MB in $seconds%.2f s")
+        println(s"Dropped by the writer: ${async.framesDropped}, incomplete images: $incomplete")
+        println(s"Segments: ${writer.segments.mkString(", ")}")
+      finally
+        ChunkData_C.disableChunkData(hNodeMap)
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+}
@@ -9,6 +9,7 @@ import org.bytedeco.spinnaker.global.Spinnaker_C.spinImageFileFormat.SPINNAKER_I
 import org.bytedeco.spinnaker.global.Spinnaker_C.spinImageStatus.SPINNAKER_IMAGE_STATUS_NO_ERROR
 import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums.PixelFormat_Mono8
 import spinnaker_c.helpers.*
+import spinnaker_c.sequencer.SequencerBuilder
 
 import java.io.File
 import scala.util.Using
@@ -28,9 +29,9 @@ import scala.util.control.Breaks.{break, breakable}
  *  application of the sequencer is creating high dynamic range images.
  *
  *  This example is probably the most complex and definitely the longest. As
- *  such, the configuration has been split between three functions. The first
+ *  such, the configuration has been split between three steps. The first
  *  prepares the camera to set the sequences, the second sets the settings for
- *  a single sequence (it is run five times), and the third configures the
+ *  all five sequences with a `SequencerBuilder`, and the third configures the
  *  camera to use the sequencer when it acquires images.
  */
 object Sequencer_C {
@@ -133,41 +134,94 @@ object Sequencer_C {
       // set to its minimum, also incrementing by 10% of its maximum; and gain
       // is set to its minimum, incrementing by 2% of its maximum.
       //
+      // States are added to a SequencerBuilder, which reads the limits of the
+      // settings once and validates all states before anything is written;
+      // the states are then programmed using cached nodes, writing only
+      // values that change from one state to the next.
+      //
       val k_numSequences = 5
 
-      // Retrieve maximum width; width recorded in pixels// Retrieve maximum width; width recorded in pixels
-      val widthMax = nodeGetMaxLong(hNodeMap, "Width")
-
-      // Retrieve maximum height; height recorded in pixels// Retrieve maximum height; height recorded in pixels
-      val heightMax = nodeGetMaxLong(hNodeMap, "Height")
+      val timeout = Using.resource(SequencerBuilder(hNodeMap)) { sequencer =>
+        val limits = sequencer.limits
 
-      // Retrieve maximum exposure time; exposure time recorded in microseconds// Retrieve maximum exposure time; exposure time recorded in microseconds
-      val exposureTimeMax = math.min(nodeGetMaxDouble(hNodeMap, "ExposureTime"), 2_000_000d)
+        // Retrieve maximum width and height; recorded in pixels. Width and
+        // height are not set if they are not writable on this camera model
+        val widthMax  = limits.width.fold(0L)(_.max)
+        val heightMax = limits.height.fold(0L)(_.max)
 
-      val exposureTimeMin = nodeGetMinDouble(hNodeMap, "ExposureTime")
+        // Retrieve maximum exposure time; exposure time recorded in microseconds
+        val exposureTimeMax = math.min(limits.exposureTime.max, 2_000_000d)
 
-      // Retrieve maximum and minimum gain; gain recorded in decibels// Retrieve maximum and minimum gain; gain recorded in decibels
-      val gainMax = nodeGetMaxDouble(hNodeMap, "Gain")
-      val gainMin = nodeGetMinDouble(hNodeMap, "Gain")
+        for (sequenceNumber <- 0 until k_numSequences)
+          sequencer.state(
+            widthMax / 4 + sequenceNumber * (widthMax / 10),
+            heightMax / 4 + sequenceNumber * (heightMax / 10),
+            limits.exposureTime.min + sequenceNumber * exposureTimeMax / 10.0,
+            limits.gain.min + sequenceNumber * limits.gain.max / 50.0
+          )
 
-      // Set individual sequences// Set individual sequences
-      var widthToSet        = widthMax / 4
-      var heightToSet       = heightMax / 4
-      var exposureTimeToSet = exposureTimeMin
-      var gainToSet         = gainMin
+        // Validate all states, then set them
+        val plan = sequencer.plan()
+        for ((state, sequenceNumber) <- plan.states.zipWithIndex)
+          printf(
+            "Sequence %d: width %d, height %d, exposure time %f, gain %f...\n",
+            sequenceNumber,
+            state.width,
+            state.height,
+            state.exposureTime,
+            state.gain
+          )
+        if (limits.width.isEmpty || limits.height.isEmpty)
+          printf("Unable to set width or height for sequencer, not writable on all camera models...\n")
+
+        //
+        // Set each state; for each state, program selects the sequence number,
+        // applies the custom settings, selects the trigger type and next state
+        // number, and saves the state
+        //
+        // *** NOTES ***
+        // Select the index of the state to be set.
+        //
+        // *** LATER ***
+        // The next state - i.e. the state to be linked to -
+        // also needs to be set before saving the current state.
+        //
+        // *** NOTES ***
+        // Width, height, exposure time, and gain are set in this example. If
+        // the sequencer isn't working properly, it may be important to ensure
+        // that each feature is enabled on the sequencer. Features are enabled
+        // by default, so this is not explored in this example.
+        //
+        // Changing the height and width for the sequencer is not available
+        // for all camera models.
+        //
+        // *** NOTES ***
+        // It is a requirement of every state to have its trigger source set.
+        // The trigger source refers to the moment when the sequencer changes
+        // from one state to the next.
+        //
+        // *** NOTES ***
+        // When setting the next state in the sequence, ensure it does not
+        // exceed the maximum and that the states loop appropriately.
+        //
+        // *** NOTES ***
+        // Once all appropriate settings have been configured, make sure to
+        // save the state to the sequence. Notice that these settings will be
+        // lost when the camera is power-cycled.
+        //
+        val result = sequencer.program(plan)
+        printf(
+          "%d sequences saved, %d values written, %d already set...\n\n",
+          result.saved,
+          result.written,
+          result.unchanged
+        )
 
-      for (sequenceNumber <- 0 until k_numSequences) {
-        setSingleState(hNodeMap, sequenceNumber, widthToSet, heightToSet, exposureTimeToSet, gainToSet)
-        widthToSet += widthMax / 10
-        heightToSet += heightMax / 10
-        exposureTimeToSet += exposureTimeMax / 10.0
-        gainToSet += gainMax / 50.0
+        // Calculate appropriate acquisition grab timeout window based on exposure time
+        // Note: exposure time is in microseconds and needs to be converted to milliseconds
+        ((plan.states.map(_.exposureTime).max / 1000) + 1000).toInt
       }
 
-      // Calculate appropriate acquisition grab timeout window based on exposure time// Calculate appropriate acquisition grab timeout window based on exposure time
-      // Note: exposureTimeToSet is in microseconds and needs to be converted to milliseconds// Note: exposureTimeToSet is in microseconds and needs to be converted to milliseconds
-      val timeout = ((exposureTimeToSet / 1000) + 1000).toInt
-
       // Configure sequencer to acquire images// Configure sequencer to acquire images
       configureSequencerPartTwo(hNodeMap)
 
@@ -270,120 +324,6 @@ object Sequencer_C {
     printf("Sequencer configuration mode enabled...\n\n")
   }.get
 
-  /**
-   * This function sets a single state. It sets the sequence number, applies
-   * custom settings, selects the trigger type and next state number, and saves
-   * the state. The custom values that are applied are all calculated in the
-   * function that calls this one, RunSingleCamera().
-   */
-  private def setSingleState(
-    hNodeMap: spinNodeMapHandle,
-    sequenceNumber: Int,
-    widthToSet: Long,
-    heightToSet: Long,
-    exposureTimeToSet: Double,
-    gainToSet: Double
-  ): Unit = Using.Manager { use =>
-    //
-    // Select the sequence number
-    //
-    // *** NOTES ***
-    // Select the index of the state to be set.
-    //
-    // *** LATER ***
-    // The next state - i.e. the state to be linked to -
-    // also needs to be set before saving the current state.
-    //
-    integerSetValue(hNodeMap, "SequencerSetSelector", sequenceNumber)
-    printf("Customizing sequence %d...\n", sequenceNumber)
-
-    //
-    // Set desired settings for the current state
-    //
-    // *** NOTES ***
-    // Width, height, exposure time, and gain are set in this example. If
-    // the sequencer isn't working properly, it may be important to ensure
-    // that each feature is enabled on the sequencer. Features are enabled
-    // by default, so this is not explored in this example.
-    //
-    // Changing the height and width for the sequencer is not available
-    // for all camera models.
-    //
-    // Set width; width recorded in pixels
-    val hWidth = use(nodeMapGetNode(hNodeMap, "Width"))
-    if (isReadable(hWidth, "hWidth") && isWritable(hWidth, "hWidth")) {
-      val widthInc = use(new LongPointer(1)).put(0)
-      check(spinIntegerGetInc(hWidth, widthInc), "Unable to set width")
-      val widthToSet1 =
-        if widthToSet % widthInc.get != 0 then
-          (widthToSet / widthInc.get) * widthInc.get
-        else
-          widthToSet
-      integerSetValue(hNodeMap, "Width", widthToSet1)
-      printf("\tWidth set to %d...\n", widthToSet1.toInt)
-    } else
-      printf("\tUnable to get or set width width for sequencer not readable/writable on all camera models...\n")
-
-    // Set height; height recorded in pixels
-    val hHeight = use(nodeMapGetNode(hNodeMap, "Height"))
-    if (isReadable(hHeight, "hHeight") && isWritable(hHeight, "hHeight")) {
-      val heightInc = use(new LongPointer(1)).put(0)
-      check(spinIntegerGetInc(hHeight, heightInc), "Unable to set height")
-      val heightToSet1 =
-        if heightToSet % heightInc.get != 0 then
-          (heightToSet / heightInc.get) * heightInc.get
-        else
-          heightToSet
-      integerSetValue(hNodeMap, "Height", heightToSet1)
-      printf("\tHeight set to %d...\n", heightToSet1.toInt)
-    } else
-      printf("\tUnable to get or set height height for sequencer not readable/writable on all camera models...\n")
-
-    // Set exposure time; exposure time recorded in microseconds
-    floatSetValue(hNodeMap, "ExposureTime", exposureTimeToSet)
-    printf("\tExposure time set to %f...\n", exposureTimeToSet)
-
-    // Set gain; gain recorded in decibels
-    floatSetValue(hNodeMap, "Gain", gainToSet)
-    printf("\tGain set to %f...\n", gainToSet)
-
-    //
-    // Set the trigger type for the current sequence
-    //
-    // *** NOTES ***
-    // It is a requirement of every state to have its trigger source set.
-    // The trigger source refers to the moment when the sequencer changes
-    // from one state to the next.
-    //
-    setEnumerationNodeValue(hNodeMap, "SequencerTriggerSource", "FrameStart")
-    printf("\tTrigger source set to start of frame...\n")
-
-    //
-    // Set the next state in the sequence
-    //
-    // *** NOTES ***
-    // When setting the next state in the sequence, ensure it does not
-    // exceed the maximum and that the states loop appropriately.
-    //
-    val finalSequenceIndex = 4
-    val nextSequence       = if (sequenceNumber != finalSequenceIndex) sequenceNumber + 1 else 0
-    integerSetValue(hNodeMap, "SequencerSetNext", nextSequence)
-    printf("\tNext sequence set to %d...\n", nextSequence)
-
-    //
-    // Save current state
-    //
-    // *** NOTES ***
-    // Once all appropriate settings have been configured, make sure to
-    // save the state to the sequence. Notice that these settings will be
-    // lost when the camera is power-cycled.
-    //
-    val hSequencerSetSave = use(nodeMapGetNode(hNodeMap, "SequencerSetSave"))
-    checkIsWritable(hSequencerSetSave, "hSequencerSetSave")
-    check(spinCommandExecute(hSequencerSetSave), "Unable to save sequence.")
-    printf("\tSequence %d saved...\n\n", sequenceNumber)
-  }.get
-
   /**
    * Now that the states have all been set, this function readies the camera
    * to use the sequencer during image acquisition.
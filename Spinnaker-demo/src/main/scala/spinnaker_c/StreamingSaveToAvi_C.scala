@@ -0,0 +1,113 @@
+package spinnaker_c
+
+import org.bytedeco.javacpp.{DoublePointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.SpinnakerFrameSource
+import spinnaker_c.helpers.*
+import spinnaker_c.recording.SpinVideoBackend.Codec
+import spinnaker_c.recording.{SegmentedVideoWriter, SpinVideoBackend, StreamingVideoRecorder}
+
+import scala.util.Using
+
+/**
+ * Variant of `SaveToAvi_C` that writes the video while images are acquired, using `StreamingVideoRecorder`.
+ *
+ * `SaveToAvi_C` keeps all converted images in memory and creates the video after acquisition ends,
+ * so the length of the recording is limited by available memory.
+ * Here the video file is opened when the first image arrives and each image is appended by a writer thread,
+ * a new video file is started every `SegmentMillis` of recording.
+ */
+object StreamingSaveToAvi_C {
+
+  private val RecordingMillis = 30000L
+  private val SegmentMillis   = 10000L
+
+  private val chosenCodec = Codec.MJPG
+
+  def main(args: Array[String]): Unit = {
+    Using.Manager { use =>
+      val hSystem = use(new spinSystem())
+      exitOnError(spinSystemGetInstance(hSystem), "Unable to retrieve system instance.")
+
+      try {
+        printLibraryVersion(hSystem)
+
+        val hCameraList = use(new spinCameraList())
+        exitOnError(spinCameraListCreateEmpty(hCameraList), "Unable to create camera list.")
+        try {
+          exitOnError(spinSystemGetCameras(hSystem, hCameraList), "Unable to retrieve camera list.")
+
+          val numCameras = use(new SizeTPointer(1))
+          exitOnError(spinCameraListGetSize(hCameraList, numCameras), "Unable to retrieve number of cameras.")
+          println("Number of cameras detected: " + numCameras.get + "\n")
+
+          for i <- 0 until numCameras.get.toInt do {
+            val hCamera = use(new spinCamera())
+            exitOnError(spinCameraListGet(hCameraList, i, hCamera), s"Unable to retrieve camera $i from list.")
+            try
+              runSingleCamera(hCamera)
+            finally
+              printOnError(spinCameraRelease(hCamera), "Error releasing camera.")
+          }
+        } finally
+          exitOnError(spinCameraListClear(hCameraList), "Unable to clear camera list.")
+          exitOnError(spinCameraListDestroy(hCameraList), "Unable to destroy camera list.")
+      } catch {
+        case ex: Throwable =>
+          ex.printStackTrace()
+      } finally
+        exitOnError(spinSystemReleaseInstance(hSystem), "Unable to release system instance.")
+    }
+
+    println("\nDone!\n")
+  }
+
+  @throws[spinnaker_c.helpers.SpinnakerSDKException]
+  def runSingleCamera(hCam: spinCamera): Unit = Using.Manager { use =>
+    val hNodeMapTLDevice = use(new spinNodeMapHandle())
+    check(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap .")
+    val serialNumber = nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber").getOrElse("")
+
+    check(spinCameraInit(hCam), "Unable to initialize camera.")
+    try
+      val hNodeMap = use(new spinNodeMapHandle)
+      check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+      setEnumerationNodeValue(hNodeMap, "AcquisitionMode", "Continuous")
+
+      // Video plays in real time when its frame rate is the acquisition frame rate
+      val hAcquisitionFrameRate = use(nodeMapGetNode(hNodeMap, "AcquisitionFrameRate"))
+      checkIsReadable(hAcquisitionFrameRate, "AcquisitionFrameRate")
+      val acquisitionFrameRate = use(new DoublePointer(1))
+      check(spinFloatGetValue(hAcquisitionFrameRate, acquisitionFrameRate), "Unable to retrieve frame rate.")
+      printf("Video frame rate: %f\n", acquisitionFrameRate.get)
+
+      // Frame buffers are sized for the current image format
+      val frameSize = maxFrameSize(hNodeMap)
+
+      val snStr  = if serialNumber.isEmpty then "" else s"$serialNumber-"
+      val source = new SpinnakerFrameSource(hCam, frameSize)
+      val writer = new SegmentedVideoWriter(
+        new SpinVideoBackend(chosenCodec),
+        s"StreamingSaveToAvi-C-$snStr$chosenCodec",
+        frameRate = acquisitionFrameRate.get,
+        maxSegmentMillis = SegmentMillis
+      )
+      val recorder = new StreamingVideoRecorder(source, writer)
+      try
+        println(s"Recording for ${RecordingMillis / 1000} s...")
+        recorder.start()
+        Thread.sleep(RecordingMillis)
+        recorder.stop()
+
+        val s = recorder.stats
+        println(s"Grabbed: ${s.grabbed}, appended: ${recorder.framesWritten}, dropped: ${s.dropped}")
+        println(s"Incomplete images skipped: ${s.incomplete}, grab timeouts: ${s.timeouts}")
+        writer.segments.foreach(p => println(s"Video saved at $p"))
+      finally
+        recorder.close()
+        source.close()
+    finally
+      check(spinCameraDeInit(hCam), "Unable to deinitialize camera.")
+  }.get
+}
@@ -0,0 +1,227 @@
+package spinnaker_c.acquisition
+
+import spinnaker_c.acquisition.AcquisitionEngine.{DropPolicy, Frame, Stats}
+
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.{ArrayBlockingQueue, TimeUnit}
+import scala.util.control.NonFatal
+
+object AcquisitionEngine {
+
+  /** What to do with a new frame when the queue of frames waiting for processing is full. */
+  enum DropPolicy {
+
+    /** Drop the new frame, frames in the queue are processed in order of arrival. */
+    case DropNewest
+
+    /** Drop the oldest frame waiting in the queue and add the new one, keeps latency low. */
+    case DropOldest
+  }
+
+  /**
+   * Frame waiting for processing.
+   *
+   * @param data      frame pixel data, valid only during processing, the buffer is reused for other frames afterwards
+   * @param grabNanos `System.nanoTime()` when the frame was grabbed from the source
+   */
+  case class Frame(header: FrameHeader, data: ByteBuffer, grabNanos: Long)
+
+  /**
+   * Engine counters.
+   *
+   * @param grabbed           frames received from the source
+   * @param processed         frames successfully processed
+   * @param dropped           frames dropped because processing could not keep up
+   * @param failed            frames for which processing failed with an exception
+   * @param timeouts          grab attempts that timed out
+   * @param incomplete        incomplete frames received from the source and skipped
+   * @param meanLatencyMillis average time from grabbing a frame to the end of its processing
+   * @param queued            frames currently waiting in the queue
+   */
+  case class Stats(
+    grabbed: Long,
+    processed: Long,
+    dropped: Long,
+    failed: Long,
+    timeouts: Long,
+    incomplete: Long,
+    meanLatencyMillis: Double,
+    queued: Int
+  ) {
+    def dropRate: Double = if (grabbed == 0) 0 else dropped.toDouble / grabbed
+  }
+}
+
+/**
+ * Acquisition engine that separates grabbing frames from processing them.
+ *
+ * A dedicated grabber thread retrieves frames from the `source`, copying each into a buffer from a preallocated pool,
+ * so camera buffers are returned to the camera right away. Frames are passed to a bounded queue and processed
+ * by `nbWorkers` worker threads calling `process`, for instance, to convert and save the image.
+ * When processing cannot keep up and the queue is full, frames are dropped according to `dropPolicy`,
+ * the grabber is never blocked by processing.
+ * When grabbing fails, the grabber waits before retrying, doubling the wait after each consecutive failure. After
+ * `maxGrabFailures` consecutive failures, for instance, when the camera was disconnected, grabbing stops and
+ * the cause is available as `grabFailure`.
+ *
+ * @param source            source of frames
+ * @param queueCapacity     maximum number of frames waiting for processing
+ * @param nbWorkers         number of processing threads
+ * @param dropPolicy        which frame is dropped when the queue is full
+ * @param grabTimeoutMillis timeout of a single grab from the source
+ * @param maxGrabFailures   number of consecutive grab failures after which grabbing stops
+ * @param process           called on a worker thread for each frame, frame data is only valid during the call
+ */
+class AcquisitionEngine(
+  source: FrameSource,
+  queueCapacity: Int = 8,
+  nbWorkers: Int = 2,
+  dropPolicy: DropPolicy = DropPolicy.DropOldest,
+  grabTimeoutMillis: Long = 1000,
+  maxGrabFailures: Int = 10
+)(process: Frame => Unit) extends AutoCloseable {
+  require(queueCapacity > 0, s"Queue capacity has to be positive, got $queueCapacity")
+  require(nbWorkers > 0, s"Number of workers has to be positive, got $nbWorkers")
+  require(maxGrabFailures > 0, s"Maximum number of grab failures has to be positive, got $maxGrabFailures")
+
+  // Each frame in the queue or in processing, and one being grabbed, holds a buffer
+  private val pool = new ArrayBlockingQueue[ByteBuffer](queueCapacity + nbWorkers + 1)
+  for (_ <- 0 until queueCapacity + nbWorkers + 1) pool.put(ByteBuffer.allocateDirect(source.maxFrameSize))
+
+  private val queue = new ArrayBlockingQueue[Frame](queueCapacity)
+
+  private val grabbed      = new AtomicLong()
+  private val processed    = new AtomicLong()
+  private val dropped      = new AtomicLong()
+  private val failed       = new AtomicLong()
+  private val timeouts     = new AtomicLong()
+  private val incomplete   = new AtomicLong()
+  private val latencyNanos = new AtomicLong()
+
+  @volatile private var grabbing                = false
+  @volatile private var _grabFailure: Throwable = null
+  @volatile private var working  = false
+
+  private var threads: Seq[Thread] = Seq.empty
+
+  /** Start the source, the grabber thread, and the workers. */
+  def start(): Unit = {
+    require(threads.isEmpty, "Engine already started")
+    source.start()
+    grabbing = true
+    working = true
+    val workers = (0 until nbWorkers).map(i => new Thread(() => workerLoop(), s"acquisition-worker-$i"))
+    val grabber = new Thread(() => grabLoop(), "acquisition-grabber")
+    grabber.setPriority(Thread.MAX_PRIORITY)
+    threads = grabber +: workers
+    threads.foreach(_.start())
+  }
+
+  /** Stop grabbing, process frames remaining in the queue, and stop the workers and the source. */
+  def stop(): Unit = {
+    if (threads.nonEmpty) {
+      grabbing = false
+      threads.head.join()
+      source.stop()
+      working = false
+      threads.tail.foreach(_.join())
+      threads = Seq.empty
+    }
+  }
+
+  override def close(): Unit = stop()
+
+  /** Error of the last grab attempt if grabbing stopped after `maxGrabFailures` consecutive failures. */
+  def grabFailure: Option[Throwable] = Option(_grabFailure)
+
+  def stats: Stats = {
+    val n = processed.get()
+    Stats(
+      grabbed = grabbed.get(),
+      processed = n,
+      dropped = dropped.get(),
+      failed = failed.get(),
+      timeouts = timeouts.get(),
+      incomplete = incomplete.get(),
+      meanLatencyMillis = if (n == 0) 0 else latencyNanos.get() / 1e6 / n,
+      queued = queue.size()
+    )
+  }
+
+  private def grabLoop(): Unit = {
+    var failures = 0
+    while (grabbing) {
+      // The pool has a buffer for each queue slot and each worker, plus one, so one is always available here,
+      // if that ever fails, the frame is grabbed and dropped
+      var buffer = pool.poll()
+
+      try {
+        // `grab` returns `None` both on timeout and for a skipped incomplete frame
+        val incompleteBefore = source.incompleteCount
+        source.grab(grabTimeoutMillis, Option(buffer)) match {
+          case Some(header) =>
+            grabbed.incrementAndGet()
+            if (buffer == null) {
+              dropped.incrementAndGet()
+            } else {
+              enqueue(Frame(header, buffer, System.nanoTime()))
+              buffer = null
+            }
+          case None =>
+            if (source.incompleteCount != incompleteBefore) incomplete.incrementAndGet()
+            else timeouts.incrementAndGet()
+        }
+        failures = 0
+      } catch {
+        case NonFatal(ex) =>
+          failed.incrementAndGet()
+          failures += 1
+          println("Failed to grab a frame: " + ex.getMessage)
+          if (failures >= maxGrabFailures) {
+            println(s"Grabbing stopped after $failures consecutive failures")
+            _grabFailure = ex
+            grabbing = false
+          } else {
+            // A persistent error, like a disconnected camera, should not turn into a busy loop
+            Thread.sleep(10L << math.min(failures - 1, 6))
+          }
+      } finally {
+        if (buffer != null) pool.offer(buffer)
+      }
+    }
+  }
+
+  private def enqueue(frame: Frame): Unit = {
+    if (!queue.offer(frame)) {
+      dropped.incrementAndGet()
+      dropPolicy match {
+        case DropPolicy.DropNewest =>
+          pool.offer(frame.data)
+        case DropPolicy.DropOldest =>
+          val oldest = queue.poll()
+          if (oldest != null) pool.offer(oldest.data)
+          if (!queue.offer(frame)) pool.offer(frame.data)
+      }
+    }
+  }
+
+  private def workerLoop(): Unit = {
+    while (working || !queue.isEmpty) {
+      val frame = queue.poll(100, TimeUnit.MILLISECONDS)
+      if (frame != null) {
+        try {
+          process(frame)
+          processed.incrementAndGet()
+          latencyNanos.addAndGet(System.nanoTime() - frame.grabNanos)
+        } catch {
+          case NonFatal(ex) =>
+            failed.incrementAndGet()
+            println(s"Failed to process frame ${frame.header.frameId}: ${ex.getMessage}")
+        } finally {
+          pool.offer(frame.data)
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package spinnaker_c.acquisition
+
+import spinnaker_c.acquisition.AcquisitionEngine.{DropPolicy, Frame}
+
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Benchmark of `AcquisitionEngine` using `SyntheticFrameSource`, no camera is needed.
+ *
+ * Frames are produced at a fixed rate, processing of each frame takes a fixed time.
+ * For different numbers of workers and drop policies the benchmark reports sustained processed frames per second,
+ * number of dropped frames, and average latency from grabbing a frame to the end of its processing.
+ *
+ * Usage:
+ * {{{
+ *   AcquisitionEngineBenchmark [source fps] [processing time per frame in ms] [duration in seconds]
+ * }}}
+ */
+object AcquisitionEngineBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val fps             = if (args.length > 0) args(0).toDouble else 100
+    val processingMs    = if (args.length > 1) args(1).toDouble else 25
+    val durationSeconds = if (args.length > 2) args(2).toDouble else 5
+
+    val width  = 1440
+    val height = 1080
+
+    println(f"Source: ${width}x$height Mono8 at $fps%.1f fps, processing: $processingMs%.1f ms per frame")
+    println()
+    println(
+      f"${"workers"}%8s ${"policy"}%11s ${"grabbed"}%8s ${"processed"}%10s ${"dropped"}%8s ${"fps"}%8s " +
+        f"${"latency ms"}%11s"
+    )
+
+    // Touch the data, as a real consumer would, then simulate the rest of processing time
+    val process: Frame => Unit = { frame =>
+      var sum = 0L
+      var i   = 0
+      while (i < frame.header.size) {
+        sum += frame.data.get(i)
+        i += 64
+      }
+      LockSupport.parkNanos((processingMs * 1e6).toLong)
+      if (sum == Long.MinValue) println(sum)
+    }
+
+    for (nbWorkers <- Seq(1, 2, 4); dropPolicy <- DropPolicy.values) {
+      val source = new SyntheticFrameSource(width, height, fps)
+      val engine =
+        new AcquisitionEngine(source, queueCapacity = 8, nbWorkers = nbWorkers, dropPolicy = dropPolicy)(process)
+
+      val t0 = System.nanoTime()
+      engine.start()
+      Thread.sleep((durationSeconds * 1000).toLong)
+      engine.stop()
+      val seconds = (System.nanoTime() - t0) / 1e9
+
+      val s = engine.stats
+      println(
+        f"$nbWorkers%8d ${dropPolicy.toString}%11s ${s.grabbed}%8d ${s.processed}%10d ${s.dropped}%8d " +
+          f"${s.processed / seconds}%8.1f ${s.meanLatencyMillis}%11.1f"
+      )
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package spinnaker_c.acquisition
+
+import java.nio.ByteBuffer
+
+/**
+ * Description of a frame delivered by a `FrameSource`.
+ *
+ * @param width       frame width in pixels
+ * @param height      frame height in pixels
+ * @param stride      number of bytes between starts of consecutive rows
+ * @param pixelFormat pixel format, value of `spinPixelFormatEnums`
+ * @param frameId     frame ID assigned by the camera or source
+ * @param timestamp   device timestamp in nanoseconds
+ * @param size        number of bytes of pixel data
+ */
+case class FrameHeader(
+  width: Int,
+  height: Int,
+  stride: Int,
+  pixelFormat: Int,
+  frameId: Long,
+  timestamp: Long,
+  size: Int
+)
+
+/**
+ * Source of frames, for instance, a Spinnaker camera (`SpinnakerFrameSource`) or
+ * a synthetic in-process source (`SyntheticFrameSource`) used to benchmark consumers without a camera.
+ *
+ * A source owns its own frame buffers, `grab` copies the pixel data to a buffer supplied by the caller and returns
+ * the source buffer right away, for a camera that means that the image is released back to the camera.
+ */
+trait FrameSource extends AutoCloseable {
+
+  /** Maximum size of a frame in bytes, buffers passed to `grab` should have at least this capacity. */
+  def maxFrameSize: Int
+
+  /** Start acquisition. */
+  def start(): Unit
+
+  /** Stop acquisition. */
+  def stop(): Unit
+
+  /**
+   * Wait for the next frame.
+   *
+   * @param timeoutMillis maximum time to wait for the frame
+   * @param target        buffer to copy the frame data to, starting at position 0.
+   *                      If empty, the frame is retrieved and discarded, for instance, when there is no space for it.
+   * @return frame header or `None` if no complete frame was received before the timeout,
+   *         an incomplete frame received is skipped and counted in `incompleteCount`
+   */
+  def grab(timeoutMillis: Long, target: Option[ByteBuffer]): Option[FrameHeader]
+
+  /** Number of incomplete frames received and skipped by `grab`. */
+  def incompleteCount: Long = 0
+
+  override def close(): Unit = stop()
+}
@@ -0,0 +1,286 @@
+package spinnaker_c.acquisition
+
+import spinnaker_c.acquisition.AcquisitionEngine.Frame
+import spinnaker_c.acquisition.MultiCameraCapture.{FrameSet, Grouping, Stats}
+
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.{AtomicLong, AtomicLongArray}
+import java.util.concurrent.{ArrayBlockingQueue, TimeUnit}
+import scala.util.control.NonFatal
+
+object MultiCameraCapture {
+
+  /** How frames from different cameras are grouped into a set. */
+  enum Grouping {
+
+    /**
+     * Frames with the same frame ID, for instance, when all cameras are triggered by the same hardware trigger.
+     * All cameras should start acquisition before the first trigger.
+     */
+    case ByFrameId
+
+    /**
+     * Frames with device timestamps within `toleranceNanos` of each other.
+     * Camera clocks have to be synchronized, for instance, using IEEE 1588 (PTP).
+     */
+    case ByTimestamp(toleranceNanos: Long)
+  }
+
+  /**
+   * Frames captured at the same time, one for each camera, in order of sources.
+   * Frame data is valid only during processing.
+   *
+   * @param frames frame for each camera, empty if the camera did not deliver a matching frame in time
+   */
+  case class FrameSet(frames: IndexedSeq[Option[Frame]]) {
+    def isComplete: Boolean = frames.forall(_.isDefined)
+
+    /** Difference between the latest and the earliest device timestamp in the set. */
+    def skewNanos: Long = {
+      val timestamps = frames.flatten.map(_.header.timestamp)
+      if (timestamps.isEmpty) 0 else timestamps.max - timestamps.min
+    }
+  }
+
+  /**
+   * Capture counters.
+   *
+   * @param completeSets   sets with a frame from each camera
+   * @param incompleteSets sets with frames missing for some cameras
+   * @param failedSets     sets for which processing failed with an exception
+   * @param grabbed        frames received from each camera
+   * @param dropped        frames of each camera dropped because its queue was full
+   * @param unmatched      frames of each camera discarded because no other camera delivered a matching frame
+   * @param meanSkewMicros average device timestamp skew of complete sets
+   * @param maxSkewMicros  maximum device timestamp skew of complete sets
+   */
+  case class Stats(
+    completeSets: Long,
+    incompleteSets: Long,
+    failedSets: Long,
+    grabbed: Seq[Long],
+    dropped: Seq[Long],
+    unmatched: Seq[Long],
+    meanSkewMicros: Double,
+    maxSkewMicros: Double
+  ) {
+    def incompleteRate: Double = {
+      val n = completeSets + incompleteSets
+      if (n == 0) 0 else incompleteSets.toDouble / n
+    }
+  }
+}
+
+/**
+ * Captures frames from several cameras in parallel and groups them into synchronized sets.
+ *
+ * Each source has its own grabber thread, which copies frames to pooled buffers and adds them to a bounded
+ * queue of that source. When a queue is full, its oldest frame is dropped, so a slow camera or slow processing
+ * does not stall grabbing from other cameras.
+ * A matcher thread takes the oldest frame of each camera and groups frames according to `grouping`.
+ * When a camera misses a trigger, its next frame is ahead of the frames of other cameras, these can no longer be
+ * completed and form an incomplete set. A frame that matches no frame of another camera is discarded as unmatched.
+ * When a camera does not deliver a frame within `setTimeoutMillis`, the set is incomplete too.
+ *
+ * @param sources           cameras, the order is preserved in each `FrameSet`
+ * @param grouping          how frames are grouped into sets
+ * @param queueCapacity     maximum number of frames waiting in queue of each camera
+ * @param setTimeoutMillis  maximum time to wait for frames of a set
+ * @param emitIncomplete    if `true` incomplete sets are passed to `process`, otherwise they are only counted
+ * @param grabTimeoutMillis timeout of a single grab from a source
+ * @param process           called on the matcher thread for each set, frame data is only valid during the call
+ */
+class MultiCameraCapture(
+  sources: IndexedSeq[FrameSource],
+  grouping: Grouping = Grouping.ByFrameId,
+  queueCapacity: Int = 8,
+  setTimeoutMillis: Long = 1000,
+  emitIncomplete: Boolean = false,
+  grabTimeoutMillis: Long = 1000
+)(process: FrameSet => Unit) extends AutoCloseable {
+  require(sources.nonEmpty, "At least one source is needed")
+  require(queueCapacity > 0, s"Queue capacity has to be positive, got $queueCapacity")
+
+  private val nbCameras = sources.length
+
+  // Each frame in the queue, one being grabbed, and one waiting for its set, holds a buffer
+  private val pools = sources.map { source =>
+    val pool = new ArrayBlockingQueue[ByteBuffer](queueCapacity + 2)
+    for (_ <- 0 until queueCapacity + 2) pool.put(ByteBuffer.allocateDirect(source.maxFrameSize))
+    pool
+  }
+
+  private val queues = sources.map(_ => new ArrayBlockingQueue[Frame](queueCapacity))
+
+  // Oldest frame of each camera, not yet in a set, accessed only by the matcher thread
+  private val heads = new Array[Frame](nbCameras)
+
+  private val completeSets   = new AtomicLong()
+  private val incompleteSets = new AtomicLong()
+  private val failedSets     = new AtomicLong()
+  private val grabbed        = new AtomicLongArray(nbCameras)
+  private val dropped        = new AtomicLongArray(nbCameras)
+  private val unmatched      = new AtomicLongArray(nbCameras)
+  private val skewSumNanos   = new AtomicLong()
+  private val skewMaxNanos   = new AtomicLong()
+
+  @volatile private var grabbing = false
+  @volatile private var matching = false
+
+  private var grabbers: Seq[Thread] = Seq.empty
+  private var matcher: Thread       = null
+
+  /** Start sources, grabber threads, and the matcher thread. */
+  def start(): Unit = {
+    require(matcher == null, "Capture already started")
+    sources.foreach(_.start())
+    grabbing = true
+    matching = true
+    grabbers = sources.indices.map(i => new Thread(() => grabLoop(i), s"capture-grabber-$i"))
+    grabbers.foreach(_.setPriority(Thread.MAX_PRIORITY))
+    matcher = new Thread(() => matchLoop(), "capture-matcher")
+    grabbers.foreach(_.start())
+    matcher.start()
+  }
+
+  /** Stop grabbing, group frames remaining in the queues, and stop the sources. */
+  def stop(): Unit = {
+    if (matcher != null) {
+      grabbing = false
+      grabbers.foreach(_.join())
+      sources.foreach(_.stop())
+      matching = false
+      matcher.join()
+      grabbers = Seq.empty
+      matcher = null
+    }
+  }
+
+  override def close(): Unit = stop()
+
+  def stats: Stats = {
+    val n = completeSets.get()
+    def counts(a: AtomicLongArray) = (0 until nbCameras).map(a.get)
+    Stats(
+      completeSets = n,
+      incompleteSets = incompleteSets.get(),
+      failedSets = failedSets.get(),
+      grabbed = counts(grabbed),
+      dropped = counts(dropped),
+      unmatched = counts(unmatched),
+      meanSkewMicros = if (n == 0) 0 else skewSumNanos.get() / 1e3 / n,
+      maxSkewMicros = skewMaxNanos.get() / 1e3
+    )
+  }
+
+  private def grabLoop(camera: Int): Unit = {
+    val source = sources(camera)
+    val pool   = pools(camera)
+    val queue  = queues(camera)
+    while (grabbing) {
+      var buffer = pool.poll()
+      try {
+        source.grab(grabTimeoutMillis, Option(buffer)) match {
+          case Some(header) =>
+            grabbed.incrementAndGet(camera)
+            if (buffer == null) {
+              dropped.incrementAndGet(camera)
+            } else {
+              val frame = Frame(header, buffer, System.nanoTime())
+              buffer = null
+              if (!queue.offer(frame)) {
+                // Drop the oldest frame, it is the least likely to be matched
+                dropped.incrementAndGet(camera)
+                val oldest = queue.poll()
+                if (oldest != null) pool.offer(oldest.data)
+                if (!queue.offer(frame)) pool.offer(frame.data)
+              }
+            }
+          case None =>
+        }
+      } catch {
+        case NonFatal(ex) =>
+          println(s"Failed to grab a frame from camera $camera: ${ex.getMessage}")
+      } finally {
+        if (buffer != null) pool.offer(buffer)
+      }
+    }
+  }
+
+  private def matchLoop(): Unit = {
+    while (matching || queues.exists(!_.isEmpty)) {
+      val allPresent = fillHeads()
+      if (heads.exists(_ != null)) {
+        val keys      = heads.iterator.filter(_ != null).map(key).toSeq
+        val reference = keys.max
+        val oldest    = keys.min
+        if (isBefore(oldest, reference)) {
+          // A camera is ahead, frames with the oldest key cannot be completed any more, they form an incomplete set,
+          // or are unmatched if there is only one. Later frames stay for the next set.
+          val members = (0 until nbCameras).filter(i => heads(i) != null && !isBefore(oldest, key(heads(i))))
+          if (members.length > 1) emitSet(complete = false, members)
+          else {
+            unmatched.incrementAndGet(members.head)
+            release(members.head)
+          }
+        } else if (allPresent || matching) emitSet(allPresent, 0 until nbCameras)
+        // When stopping, remaining frames that do not form a complete set are not counted as incomplete sets
+        else for (i <- 0 until nbCameras) if (heads(i) != null) release(i)
+      }
+    }
+    for (i <- 0 until nbCameras) if (heads(i) != null) release(i)
+  }
+
+  /** Wait for frames of cameras that have no frame waiting for a set, returns `true` if all cameras have one. */
+  private def fillHeads(): Boolean = {
+    val deadline = System.nanoTime() + setTimeoutMillis * 1000000L
+    var all      = true
+    for (i <- 0 until nbCameras) {
+      if (heads(i) == null) {
+        val waitNanos = if (matching) math.max(0L, deadline - System.nanoTime()) else 0L
+        heads(i) = queues(i).poll(waitNanos, TimeUnit.NANOSECONDS)
+        if (heads(i) == null) all = false
+      }
+    }
+    all
+  }
+
+  /** Process the set of frames waiting of cameras `members`, and release them. */
+  private def emitSet(complete: Boolean, members: IndexedSeq[Int]): Unit = {
+    val set = FrameSet((0 until nbCameras).map(i => if (members.contains(i)) Option(heads(i)) else None))
+    try {
+      if (complete) {
+        completeSets.incrementAndGet()
+        val skew = set.skewNanos
+        skewSumNanos.addAndGet(skew)
+        skewMaxNanos.accumulateAndGet(skew, (a, b) => math.max(a, b))
+        process(set)
+      } else {
+        incompleteSets.incrementAndGet()
+        if (emitIncomplete) process(set)
+      }
+    } catch {
+      case NonFatal(ex) =>
+        failedSets.incrementAndGet()
+        println(s"Failed to process frame set: ${ex.getMessage}")
+    } finally {
+      for (i <- members) if (heads(i) != null) release(i)
+    }
+  }
+
+  private def key(frame: Frame): Long = grouping match {
+    case Grouping.ByFrameId      => frame.header.frameId
+    case Grouping.ByTimestamp(_) => frame.header.timestamp
+  }
+
+  // `true` if a frame with key `k` cannot be in the same set as a frame with key `reference`
+  private def isBefore(k: Long, reference: Long): Boolean = grouping match {
+    case Grouping.ByFrameId                   => k < reference
+    case Grouping.ByTimestamp(toleranceNanos) => reference - k > toleranceNanos
+  }
+
+  private def release(camera: Int): Unit = {
+    pools(camera).offer(heads(camera).data)
+    heads(camera) = null
+  }
+}
@@ -0,0 +1,72 @@
+package spinnaker_c.acquisition
+
+import spinnaker_c.acquisition.MultiCameraCapture.{FrameSet, Grouping}
+
+/**
+ * Multi-camera capture with `SimulatedCameraSource`s sharing a `SimulatedTrigger`, no cameras are needed.
+ *
+ * Frames are grouped by frame ID and by device timestamps, for each grouping the benchmark reports complete and
+ * incomplete sets, frames dropped and discarded as unmatched, and timestamp skew within complete sets.
+ *
+ * Usage:
+ * {{{
+ *   MultiCameraCaptureBenchmark [cameras] [fps] [timestamp jitter us] [delivery jitter us] [drop probability]
+ *                               [duration in seconds]
+ * }}}
+ */
+object MultiCameraCaptureBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val nbCameras         = if (args.length > 0) args(0).toInt else 4
+    val fps               = if (args.length > 1) args(1).toDouble else 60
+    val timestampJitterUs = if (args.length > 2) args(2).toDouble else 50
+    val deliveryJitterUs  = if (args.length > 3) args(3).toDouble else 5000
+    val dropProbability   = if (args.length > 4) args(4).toDouble else 0.01
+    val durationSeconds   = if (args.length > 5) args(5).toDouble else 5
+
+    // Frames within a quarter of the trigger period are considered simultaneous
+    val toleranceNanos = (1e9 / fps / 4).toLong
+
+    println(
+      f"$nbCameras cameras at $fps%.1f fps, timestamp jitter $timestampJitterUs%.0f us, " +
+        f"delivery jitter $deliveryJitterUs%.0f us, drop probability $dropProbability%.3f"
+    )
+    println()
+
+    val groupings = Seq(Grouping.ByFrameId, Grouping.ByTimestamp(toleranceNanos))
+    for (grouping <- groupings) {
+      val trigger = new SimulatedTrigger(fps)
+      val sources = (0 until nbCameras).map { i =>
+        new SimulatedCameraSource(
+          trigger,
+          timestampJitterMicros = timestampJitterUs,
+          deliveryJitterMicros = deliveryJitterUs,
+          dropProbability = dropProbability,
+          seed = i
+        )
+      }
+
+      // Touch the data of each frame, as a real consumer would
+      val process: FrameSet => Unit = { set =>
+        var sum = 0L
+        set.frames.flatten.foreach(f => sum += f.data.get(0))
+        if (sum == Long.MinValue) println(sum)
+      }
+
+      val capture = new MultiCameraCapture(sources, grouping, setTimeoutMillis = (2000 / fps).toLong)(process)
+      capture.start()
+      Thread.sleep((durationSeconds * 1000).toLong)
+      capture.stop()
+
+      val s = capture.stats
+      println(s"Grouping: $grouping")
+      println(f"  Sets: complete ${s.completeSets}, incomplete ${s.incompleteSets} (${s.incompleteRate * 100}%.2f%%)")
+      println(s"  Grabbed per camera:   ${s.grabbed.mkString(", ")}")
+      println(s"  Missed triggers:      ${sources.map(_.missedTriggers).mkString(", ")}")
+      println(s"  Dropped per camera:   ${s.dropped.mkString(", ")}")
+      println(s"  Unmatched per camera: ${s.unmatched.mkString(", ")}")
+      println(f"  Skew: mean ${s.meanSkewMicros}%.1f us, max ${s.maxSkewMicros}%.1f us")
+      println()
+    }
+  }
+}
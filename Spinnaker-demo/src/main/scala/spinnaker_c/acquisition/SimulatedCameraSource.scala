@@ -0,0 +1,127 @@
+package spinnaker_c.acquisition
+
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums
+
+import java.nio.ByteBuffer
+import java.util.SplittableRandom
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Trigger shared by `SimulatedCameraSource`s, fires at a fixed rate starting when it is created.
+ *
+ * @param fps triggers per second
+ */
+class SimulatedTrigger(val fps: Double) {
+  require(fps > 0, s"Trigger rate has to be positive, got $fps")
+
+  val periodNanos: Long = (1e9 / fps).toLong
+  val epochNanos: Long  = System.nanoTime()
+}
+
+/**
+ * Simulated triggered camera producing `Mono8` frames, for testing multi-camera capture without cameras.
+ *
+ * A frame is exposed on each trigger of the shared `trigger`. Frame ID is the trigger count, so frames of cameras
+ * sharing a trigger have matching IDs. Device timestamp is the trigger time, offset by `clockOffsetNanos`
+ * and normally distributed jitter. Each frame is delivered after a random delay up to `deliveryJitterMicros`,
+ * so frames of different cameras arrive in different order. With probability `dropProbability` a camera misses
+ * a trigger, there is no frame with that ID.
+ *
+ * @param trigger               shared trigger
+ * @param timestampJitterMicros standard deviation of device timestamp jitter
+ * @param deliveryJitterMicros  maximum delay between trigger and frame delivery
+ * @param clockOffsetNanos      offset of the camera clock from the trigger clock
+ * @param dropProbability       probability that a trigger is missed
+ * @param seed                  random seed
+ */
+class SimulatedCameraSource(
+  trigger: SimulatedTrigger,
+  val width: Int = 640,
+  val height: Int = 480,
+  timestampJitterMicros: Double = 0,
+  deliveryJitterMicros: Double = 0,
+  clockOffsetNanos: Long = 0,
+  dropProbability: Double = 0,
+  seed: Long = 0
+) extends FrameSource {
+  require(dropProbability >= 0 && dropProbability < 1, s"Drop probability has to be in [0, 1), got $dropProbability")
+
+  private val random = new SplittableRandom(seed)
+
+  private val pattern: ByteBuffer = {
+    val b = ByteBuffer.allocateDirect(width * height)
+    for (y <- 0 until height; x <- 0 until width) b.put(((x + y) & 0xff).toByte)
+    b.clear()
+    b
+  }
+
+  @volatile private var running = false
+  private var nextTrigger       = 0L
+  // Next frame to deliver, `pendingTrigger` is -1 if not chosen yet
+  private var pendingTrigger = -1L
+  private var pendingReadyAt = 0L
+  private var _missed        = 0L
+
+  /** Number of triggers missed so far. */
+  def missedTriggers: Long = _missed
+
+  override def maxFrameSize: Int = width * height
+
+  override def start(): Unit = {
+    // Start with the next trigger
+    nextTrigger = (System.nanoTime() - trigger.epochNanos) / trigger.periodNanos + 1
+    pendingTrigger = -1
+    running = true
+  }
+
+  override def stop(): Unit = running = false
+
+  override def grab(timeoutMillis: Long, target: Option[ByteBuffer]): Option[FrameHeader] = {
+    if (!running) return None
+
+    if (pendingTrigger < 0) {
+      var t = nextTrigger
+      while (random.nextDouble() < dropProbability) {
+        t += 1
+        _missed += 1
+      }
+      pendingTrigger = t
+      pendingReadyAt =
+        trigger.epochNanos + t * trigger.periodNanos + (random.nextDouble() * deliveryJitterMicros * 1000).toLong
+    }
+
+    val now = System.nanoTime()
+    if (pendingReadyAt - now > timeoutMillis * 1000000L) {
+      LockSupport.parkNanos(timeoutMillis * 1000000L)
+      return None
+    }
+    while (System.nanoTime() < pendingReadyAt) LockSupport.parkNanos(pendingReadyAt - System.nanoTime())
+
+    val t = pendingTrigger
+    pendingTrigger = -1
+    nextTrigger = t + 1
+
+    target.foreach { b =>
+      b.clear()
+      b.put(pattern.duplicate())
+      b.flip()
+    }
+
+    val jitter = (gaussian() * timestampJitterMicros * 1000).toLong
+    Option(
+      FrameHeader(
+        width = width,
+        height = height,
+        stride = width,
+        pixelFormat = spinPixelFormatEnums.PixelFormat_Mono8.value,
+        frameId = t,
+        timestamp = t * trigger.periodNanos + clockOffsetNanos + jitter,
+        size = width * height
+      )
+    )
+  }
+
+  // Standard normal value, Box-Muller transform
+  private def gaussian(): Double =
+    math.sqrt(-2 * math.log(1 - random.nextDouble())) * math.cos(2 * math.Pi * random.nextDouble())
+}
@@ -0,0 +1,107 @@
+package spinnaker_c.acquisition
+
+import org.bytedeco.javacpp.{BytePointer, IntPointer, LongPointer, Pointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+
+import java.nio.ByteBuffer
+
+/**
+ * Frames from a Spinnaker camera.
+ *
+ * The camera has to be initialized and configured, for instance, with acquisition mode set to continuous, before
+ * calling `start()`. Each grabbed image is copied to the target buffer and released back to the camera right away,
+ * so the camera buffer is not held while the frame is processed.
+ * Incomplete images are released and skipped, their number is available as `incompleteCount`.
+ *
+ * @param hCam         initialized camera
+ * @param maxFrameSize maximum frame size in bytes, for instance, `Width * Height * bytes per pixel`
+ */
+class SpinnakerFrameSource(hCam: spinCamera, override val maxFrameSize: Int) extends FrameSource {
+
+  // Reused for each frame to avoid allocating native memory in the acquisition loop
+  private val hImage       = new spinImage()
+  private val isIncomplete = new BytePointer(1L)
+  private val pData        = new Pointer()
+  private val pSize        = new SizeTPointer(1L)
+  private val pWidth       = new SizeTPointer(1L)
+  private val pHeight      = new SizeTPointer(1L)
+  private val pStride      = new SizeTPointer(1L)
+  private val pPixelFormat = new IntPointer(1L)
+  private val pFrameId     = new LongPointer(1L)
+  private val pTimestamp   = new LongPointer(1L)
+
+  private var acquiring        = false
+  private var _incompleteCount = 0L
+
+  /** Number of incomplete images received from the camera and skipped. */
+  override def incompleteCount: Long = _incompleteCount
+
+  override def start(): Unit = {
+    check(spinCameraBeginAcquisition(hCam), "Unable to begin image acquisition.")
+    acquiring = true
+  }
+
+  override def stop(): Unit = {
+    if (acquiring) {
+      acquiring = false
+      check(spinCameraEndAcquisition(hCam), "Unable to end acquisition.")
+    }
+  }
+
+  override def grab(timeoutMillis: Long, target: Option[ByteBuffer]): Option[FrameHeader] = {
+    val err = spinCameraGetNextImageEx(hCam, timeoutMillis, hImage)
+    if (err.intern() == spinError.SPINNAKER_ERR_TIMEOUT) return None
+    check(err, "Unable to get next image.")
+
+    try {
+      check(spinImageIsIncomplete(hImage, isIncomplete), "Unable to determine image completion.")
+      if (isIncomplete.getBool) {
+        _incompleteCount += 1
+        None
+      } else {
+        check(spinImageGetWidth(hImage, pWidth), "spinImageGetWidth()")
+        check(spinImageGetHeight(hImage, pHeight), "spinImageGetHeight()")
+        check(spinImageGetStride(hImage, pStride), "spinImageGetStride()")
+        check(spinImageGetPixelFormat(hImage, pPixelFormat), "spinImageGetPixelFormat()")
+        check(spinImageGetFrameID(hImage, pFrameId), "spinImageGetFrameID()")
+        check(spinImageGetTimeStamp(hImage, pTimestamp), "spinImageGetTimeStamp()")
+        check(spinImageGetBufferSize(hImage, pSize), "spinImageGetBufferSize()")
+
+        val size = pSize.get().toInt
+        target.foreach { t =>
+          require(t.capacity() >= size, s"Target buffer too small, ${t.capacity()} < $size")
+          check(spinImageGetData(hImage, pData), "spinImageGetData()")
+          t.clear()
+          t.put(new BytePointer(pData).capacity(size.toLong).asByteBuffer())
+          t.flip()
+        }
+
+        Option(
+          FrameHeader(
+            width = pWidth.get().toInt,
+            height = pHeight.get().toInt,
+            stride = pStride.get().toInt,
+            pixelFormat = pPixelFormat.get(),
+            frameId = pFrameId.get(),
+            timestamp = pTimestamp.get(),
+            size = size
+          )
+        )
+      }
+    } finally {
+      // Release the camera buffer as soon as the data is copied
+      printOnError(spinImageRelease(hImage), "Unable to release image.")
+    }
+  }
+
+  override def close(): Unit = {
+    try {
+      stop()
+    } finally {
+      Seq(hImage, isIncomplete, pData, pSize, pWidth, pHeight, pStride, pPixelFormat, pFrameId, pTimestamp)
+        .foreach(_.close())
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package spinnaker_c.acquisition
+
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums
+
+import java.nio.ByteBuffer
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * In-process source of `Mono8` frames with a moving diagonal gradient, for testing and benchmarking without a camera.
+ *
+ * Frames are produced at `fps` frames per second, like a free-running camera. If frames are requested slower than
+ * that, the frames in between are skipped and the frame ID jumps, as it would for a camera that drops frames.
+ * With `fps` equal to 0, a new frame is produced on each call to `grab`.
+ *
+ * Frame data is copied from a precomputed pattern, so the cost of producing a frame is similar to copying it.
+ */
+class SyntheticFrameSource(val width: Int, val height: Int, val fps: Double = 0) extends FrameSource {
+  require(width > 0 && height > 0, s"Frame size has to be positive, got ${width}x$height")
+  require(fps >= 0, s"Frames per second cannot be negative, got $fps")
+
+  private val periodNanos = if (fps > 0) (1e9 / fps).toLong else 0L
+
+  // Pattern twice as wide as a frame, a frame is a window into it shifted by the frame ID
+  private val pattern: ByteBuffer = {
+    val b = ByteBuffer.allocateDirect(2 * width * height)
+    for (y <- 0 until height; x <- 0 until 2 * width) b.put(((x + y) & 0xff).toByte)
+    b.clear()
+    b
+  }
+
+  @volatile private var running = false
+  private var startNanos        = 0L
+  private var nextFrameId       = 0L
+
+  override def maxFrameSize: Int = width * height
+
+  override def start(): Unit = {
+    startNanos = System.nanoTime()
+    nextFrameId = 0
+    running = true
+  }
+
+  override def stop(): Unit = running = false
+
+  override def grab(timeoutMillis: Long, target: Option[ByteBuffer]): Option[FrameHeader] = {
+    if (!running) return None
+
+    val frameId =
+      if (periodNanos == 0) nextFrameId
+      else {
+        // Wait for the next frame "exposure", skip frames that were not grabbed in time
+        val now     = System.nanoTime()
+        val id      = math.max(nextFrameId, (now - startNanos) / periodNanos + 1)
+        val readyAt = startNanos + id * periodNanos
+        if (readyAt - now > timeoutMillis * 1000000L) {
+          LockSupport.parkNanos(timeoutMillis * 1000000L)
+          return None
+        }
+        while (System.nanoTime() < readyAt) LockSupport.parkNanos(readyAt - System.nanoTime())
+        id
+      }
+    nextFrameId = frameId + 1
+
+    target.foreach { t =>
+      val shift = (frameId % width).toInt
+      t.clear()
+      for (y <- 0 until height) {
+        val row = pattern.duplicate()
+        row.position(y * 2 * width + shift).limit(y * 2 * width + shift + width)
+        t.put(row)
+      }
+      t.flip()
+    }
+
+    val timestamp = if (periodNanos == 0) System.nanoTime() - startNanos else frameId * periodNanos
+    Option(
+      FrameHeader(
+        width = width,
+        height = height,
+        stride = width,
+        pixelFormat = spinPixelFormatEnums.PixelFormat_Mono8.value,
+        frameId = frameId,
+        timestamp = timestamp,
+        size = width * height
+      )
+    )
+  }
+}
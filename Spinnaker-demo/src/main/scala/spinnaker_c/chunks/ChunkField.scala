@@ -0,0 +1,32 @@
+package spinnaker_c.chunks
+
+/**
+ * Chunk data field recorded by `ChunkTimelineRecorder`.
+ *
+ * @param name chunk name, for instance, "ChunkExposureTime"
+ * @param kind type of the chunk value
+ */
+case class ChunkField(name: String, kind: ChunkField.Kind)
+
+object ChunkField {
+
+  enum Kind {
+    case Integer, Float
+  }
+
+  def integer(name: String): ChunkField = ChunkField(name, Kind.Integer)
+
+  def float(name: String): ChunkField = ChunkField(name, Kind.Float)
+
+  /**
+   * Fields available on most cameras, in addition to frame ID and timestamp that are always recorded.
+   * Not all of them may be enabled on a given camera, see `SpinImageChunkValues.enabledFields`.
+   */
+  val Default: Seq[ChunkField] = Seq(
+    float("ChunkExposureTime"),
+    float("ChunkGain"),
+    float("ChunkBlackLevel"),
+    integer("ChunkWidth"),
+    integer("ChunkHeight")
+  )
+}
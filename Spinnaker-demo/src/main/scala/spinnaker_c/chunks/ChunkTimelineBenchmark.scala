@@ -0,0 +1,69 @@
+package spinnaker_c.chunks
+
+import spinnaker_c.chunks.ChunkTimelineRecorder.Format
+
+import java.nio.file.{Path, Paths}
+
+/**
+ * Records chunk data of simulated frames with `SyntheticChunkSource`, no camera is needed.
+ *
+ * For each file format reports time to record a frame, including writes to the file, and the file size.
+ * The binary file is read back and compared with the source, and the number of dropped frames detected from
+ * frame ID gaps is compared with the number of frames the source dropped.
+ *
+ * Usage:
+ * {{{
+ *   ChunkTimelineBenchmark [number of frames] [drop probability]
+ * }}}
+ */
+object ChunkTimelineBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val nbFrames        = if (args.length > 0) args(0).toInt else 1_000_000
+    val dropProbability = if (args.length > 1) args(1).toDouble else 0.001
+
+    val fields = ChunkField.Default
+
+    println(f"${"format"}%8s ${"ns/frame"}%10s ${"file kB"}%10s ${"dropped"}%10s ${"detected"}%10s")
+    for (format <- Format.values) {
+      val file     = Paths.get(s"ChunkTimelineBenchmark.${format.toString.toLowerCase}")
+      val source   = new SyntheticChunkSource(fields, dropProbability = dropProbability)
+      val recorder = new ChunkTimelineRecorder(fields, file, format)
+
+      val t0 = System.nanoTime()
+      var i  = 0
+      while (i < nbFrames) {
+        recorder.record(source.next())
+        i += 1
+      }
+      recorder.close()
+      val nanos = (System.nanoTime() - t0).toDouble / nbFrames
+
+      println(
+        f"${format.toString}%8s $nanos%10.1f ${file.toFile.length() / 1024}%10d ${source.droppedFrames}%10d " +
+          f"${recorder.droppedFrames}%10d"
+      )
+
+      if (format == Format.Binary) verify(file, fields, dropProbability)
+    }
+  }
+
+  // Compare timeline read from the file with values from a source with the same seed
+  private def verify(file: Path, fields: Seq[ChunkField], dropProbability: Double): Unit = {
+    val timeline = ChunkTimelineRecorder.readBinary(file)
+    val source   = new SyntheticChunkSource(fields, dropProbability = dropProbability)
+    val mismatch = (0 until timeline.length).find { i =>
+      source.next()
+      timeline.frameIds(i) != source.frameId ||
+      timeline.timestamps(i) != source.timestamp ||
+      fields.indices.exists { f =>
+        if (timeline.intColumns(f) != null) timeline.intColumns(f)(i) != source.intValue(f)
+        else timeline.floatColumns(f)(i) != source.floatValue(f)
+      }
+    }
+    mismatch match {
+      case Some(i) => println(s"Timeline read from $file differs from the source at frame $i")
+      case None    => println(s"Timeline read from $file matches the source, ${timeline.length} frames")
+    }
+  }
+}
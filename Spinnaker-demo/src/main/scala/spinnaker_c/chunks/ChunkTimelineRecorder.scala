@@ -0,0 +1,254 @@
+package spinnaker_c.chunks
+
+import spinnaker_c.chunks.ChunkField.Kind
+import spinnaker_c.chunks.ChunkTimelineRecorder.{Format, Magic, Version}
+
+import java.io.*
+import java.nio.file.{Files, Path}
+import scala.collection.mutable.ArrayBuffer
+import scala.util.Using
+
+object ChunkTimelineRecorder {
+
+  enum Format {
+
+    /** Header followed by blocks of rows, each block stores column after column, see `readBinary`. */
+    case Binary
+
+    /** Row per frame with frame ID, timestamp, number of frames dropped before it, and the fields. */
+    case CSV
+  }
+
+  private val Magic   = 0x43484b54 // "CHKT"
+  private val Version = 1
+
+  /**
+   * Timeline read from a binary file.
+   *
+   * @param droppedBefore number of frames missing before each frame, based on frame ID
+   * @param intColumns    values of integer fields, `null` for float fields
+   * @param floatColumns  values of float fields, `null` for integer fields
+   */
+  case class Timeline(
+    fields: Seq[ChunkField],
+    frameIds: Array[Long],
+    timestamps: Array[Long],
+    droppedBefore: Array[Int],
+    intColumns: Array[Array[Long]],
+    floatColumns: Array[Array[Double]]
+  ) {
+    def length: Int = frameIds.length
+
+    def intColumn(name: String): Array[Long] = intColumns(fields.indexWhere(_.name == name))
+
+    def floatColumn(name: String): Array[Double] = floatColumns(fields.indexWhere(_.name == name))
+  }
+
+  /** Read timeline written in `Format.Binary`. */
+  def readBinary(file: Path): Timeline =
+    Using.resource(new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) { in =>
+      if (in.readInt() != Magic) throw new IOException(s"Not a chunk timeline file: $file")
+      val version = in.readInt()
+      if (version != Version) throw new IOException(s"Unsupported chunk timeline version $version: $file")
+
+      val fields = (0 until in.readInt()).map { _ =>
+        val name = in.readUTF()
+        ChunkField(name, Kind.fromOrdinal(in.readByte()))
+      }
+
+      val frameIds      = ArrayBuffer.empty[Long]
+      val timestamps    = ArrayBuffer.empty[Long]
+      val droppedBefore = ArrayBuffer.empty[Int]
+      val intColumns    = fields.map(_ => ArrayBuffer.empty[Long])
+      val floatColumns  = fields.map(_ => ArrayBuffer.empty[Double])
+
+      var rows = readBlockSize(in)
+      while (rows >= 0) {
+        for (_ <- 0 until rows) frameIds += in.readLong()
+        for (_ <- 0 until rows) timestamps += in.readLong()
+        for (_ <- 0 until rows) droppedBefore += in.readInt()
+        for ((f, i) <- fields.zipWithIndex) f.kind match {
+          case Kind.Integer => for (_ <- 0 until rows) intColumns(i) += in.readLong()
+          case Kind.Float   => for (_ <- 0 until rows) floatColumns(i) += in.readDouble()
+        }
+        rows = readBlockSize(in)
+      }
+
+      Timeline(
+        fields,
+        frameIds.toArray,
+        timestamps.toArray,
+        droppedBefore.toArray,
+        fields.indices.map(i => if fields(i).kind == Kind.Integer then intColumns(i).toArray else null).toArray,
+        fields.indices.map(i => if fields(i).kind == Kind.Float then floatColumns(i).toArray else null).toArray
+      )
+    }
+
+  // Number of rows in the next block, -1 at the end of file
+  private def readBlockSize(in: DataInputStream): Int =
+    try in.readInt()
+    catch case _: EOFException => -1
+}
+
+/**
+ * Records chunk data of each frame to a timeline file, for instance, to check exposure and gain changes
+ * or dropped frames after a long acquisition.
+ *
+ * `ChunkData_C` prints chunk values of each frame, which is too slow to do for every frame at high frame rates.
+ * Here values are stored in preallocated primitive column arrays, `record` does not allocate.
+ * Columns are written to the file when `blockSize` frames are recorded, or `flushIntervalMillis` after
+ * the last write, whichever comes first.
+ *
+ * Dropped frames are detected from gaps in frame ID, for each frame the number of frames missing before it
+ * is recorded. If frame ID decreases, for instance, when acquisition restarts, it is not counted as a gap.
+ *
+ * Not thread safe, frames should be recorded from the acquisition thread.
+ *
+ * @param fields              chunk fields to record in addition to frame ID and timestamp
+ * @param file                output file
+ * @param format              output file format
+ * @param blockSize           number of frames buffered in memory
+ * @param flushIntervalMillis maximum time between writes to the file, 0 to write only when the buffer is full
+ */
+class ChunkTimelineRecorder(
+  fields: Seq[ChunkField],
+  file: Path,
+  format: Format = Format.Binary,
+  blockSize: Int = 1024,
+  flushIntervalMillis: Long = 1000
+) extends AutoCloseable {
+  require(blockSize > 0, s"Block size has to be positive, got $blockSize")
+
+  private val nbFields = fields.length
+
+  private val frameIds      = new Array[Long](blockSize)
+  private val timestamps    = new Array[Long](blockSize)
+  private val droppedBefore = new Array[Int](blockSize)
+
+  // Column for each field, `null` if the field is of the other kind
+  private val intColumns: Array[Array[Long]] =
+    fields.map(f => if f.kind == Kind.Integer then new Array[Long](blockSize) else null).toArray
+  private val floatColumns: Array[Array[Double]] =
+    fields.map(f => if f.kind == Kind.Float then new Array[Double](blockSize) else null).toArray
+
+  private val flushIntervalNanos = flushIntervalMillis * 1000000L
+
+  private var rows          = 0
+  private var lastFlush     = System.nanoTime()
+  private var lastFrameId   = -1L
+  private var _frames       = 0L
+  private var _dropped      = 0L
+  private var _gaps         = 0L
+  private var _frameIdReset = 0L
+  private var closed        = false
+
+  private val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))
+  private val csv = new StringBuilder()
+
+  writeHeader()
+
+  /** Number of frames recorded. */
+  def frames: Long = _frames
+
+  /** Number of frames missing based on frame ID gaps. */
+  def droppedFrames: Long = _dropped
+
+  /** Number of gaps in frame ID, each gap is one or more consecutive dropped frames. */
+  def gaps: Long = _gaps
+
+  /** Number of times frame ID decreased. */
+  def frameIdResets: Long = _frameIdReset
+
+  /** Record chunk values of a frame. */
+  def record(values: ChunkValues): Unit = {
+    val frameId = values.frameId
+
+    var missing = 0L
+    if (lastFrameId >= 0) {
+      if (frameId > lastFrameId + 1) {
+        missing = frameId - lastFrameId - 1
+        _dropped += missing
+        _gaps += 1
+      } else if (frameId <= lastFrameId) {
+        _frameIdReset += 1
+      }
+    }
+    lastFrameId = frameId
+
+    frameIds(rows) = frameId
+    timestamps(rows) = values.timestamp
+    droppedBefore(rows) = math.min(missing, Int.MaxValue).toInt
+    var f = 0
+    while (f < nbFields) {
+      if (intColumns(f) != null) intColumns(f)(rows) = values.intValue(f)
+      else floatColumns(f)(rows) = values.floatValue(f)
+      f += 1
+    }
+    rows += 1
+    _frames += 1
+
+    if (rows == blockSize || (flushIntervalNanos > 0 && System.nanoTime() - lastFlush >= flushIntervalNanos))
+      flush()
+  }
+
+  /** Write recorded frames to the file. */
+  def flush(): Unit = {
+    if (rows > 0) {
+      format match {
+        case Format.Binary => writeBinaryBlock()
+        case Format.CSV    => writeCSVRows()
+      }
+      rows = 0
+    }
+    out.flush()
+    lastFlush = System.nanoTime()
+  }
+
+  override def close(): Unit = {
+    if (!closed) {
+      closed = true
+      try {
+        flush()
+      } finally {
+        out.close()
+      }
+    }
+  }
+
+  private def writeHeader(): Unit = format match {
+    case Format.Binary =>
+      out.writeInt(Magic)
+      out.writeInt(Version)
+      out.writeInt(nbFields)
+      fields.foreach { f =>
+        out.writeUTF(f.name)
+        out.writeByte(f.kind.ordinal)
+      }
+    case Format.CSV =>
+      out.writeBytes(("FrameID" +: "Timestamp" +: "DroppedBefore" +: fields.map(_.name)).mkString("", ",", "\n"))
+  }
+
+  private def writeBinaryBlock(): Unit = {
+    out.writeInt(rows)
+    for (i <- 0 until rows) out.writeLong(frameIds(i))
+    for (i <- 0 until rows) out.writeLong(timestamps(i))
+    for (i <- 0 until rows) out.writeInt(droppedBefore(i))
+    for (f <- 0 until nbFields) {
+      if (intColumns(f) != null) for (i <- 0 until rows) out.writeLong(intColumns(f)(i))
+      else for (i <- 0 until rows) out.writeDouble(floatColumns(f)(i))
+    }
+  }
+
+  private def writeCSVRows(): Unit = {
+    for (i <- 0 until rows) {
+      csv.setLength(0)
+      csv.append(frameIds(i)).append(',').append(timestamps(i)).append(',').append(droppedBefore(i))
+      for (f <- 0 until nbFields) {
+        csv.append(',')
+        if (intColumns(f) != null) csv.append(intColumns(f)(i)) else csv.append(floatColumns(f)(i))
+      }
+      csv.append('\n')
+      out.writeBytes(csv.toString)
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package spinnaker_c.chunks
+
+/**
+ * Chunk values of the current frame, read by `ChunkTimelineRecorder`.
+ *
+ * Fields are identified by their index in the `fields` the implementation was created with,
+ * so implementations can prepare anything needed to read a field, like encoded chunk names, in advance.
+ */
+trait ChunkValues {
+
+  def frameId: Long
+
+  /** Frame timestamp in nanoseconds. */
+  def timestamp: Long
+
+  def intValue(field: Int): Long
+
+  def floatValue(field: Int): Double
+}
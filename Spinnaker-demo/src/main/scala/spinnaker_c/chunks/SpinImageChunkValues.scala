@@ -0,0 +1,77 @@
+package spinnaker_c.chunks
+
+import org.bytedeco.javacpp.{BytePointer, DoublePointer, LongPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.{spinImage, spinNodeMapHandle}
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+
+import scala.util.{Try, Using}
+
+object SpinImageChunkValues {
+
+  /**
+   * Fields of `fields` with chunks enabled on the camera, reading a chunk that is not enabled fails.
+   * Chunk data has to be configured first, see `ChunkData_C.configureChunkData`. Changes the `ChunkSelector`.
+   */
+  def enabledFields(hNodeMap: spinNodeMapHandle, fields: Seq[ChunkField]): Seq[ChunkField] = Using.Manager { use =>
+    val hSelector = use(nodeMapGetNode(hNodeMap, "ChunkSelector"))
+    val hEnable   = use(nodeMapGetNode(hNodeMap, "ChunkEnable"))
+    val pEnabled  = use(new BytePointer(1L))
+    fields.filter { f =>
+      // Selector entries are named as chunks, without the "Chunk" prefix
+      Try(use(enumerationGetEntryByName(hSelector, f.name.stripPrefix("Chunk")))).toOption.exists { hEntry =>
+        isAvailableAndReadable(hEntry, f.name) &&
+        isSuccess(spinEnumerationSetIntValue(hSelector, enumerationEntryGetIntValue(hEntry))) &&
+        isReadable(hEnable, "ChunkEnable") &&
+        isSuccess(spinBooleanGetValue(hEnable, pEnabled)) && pEnabled.getBool
+      }
+    }
+  }.get
+}
+
+/**
+ * Chunk values read from a Spinnaker image, chunk mode has to be active, see `ChunkData_C`.
+ *
+ * Chunk names are encoded once and value pointers are reused, so reading a frame does not allocate.
+ * Set the image with `of` before reading values. Not thread safe.
+ *
+ * @param fields fields that will be read, in the same order as passed to `ChunkTimelineRecorder`
+ */
+class SpinImageChunkValues(fields: Seq[ChunkField]) extends ChunkValues with AutoCloseable {
+
+  private val names        = fields.map(f => new BytePointer(f.name)).toArray
+  private val frameIdPtr   = new BytePointer("ChunkFrameID")
+  private val timestampPtr = new BytePointer("ChunkTimestamp")
+  private val pLong        = new LongPointer(1L)
+  private val pDouble      = new DoublePointer(1L)
+
+  private var hImage: spinImage = null
+
+  /** Read values of image `hImage`, returns this. */
+  def of(hImage: spinImage): SpinImageChunkValues = {
+    this.hImage = hImage
+    this
+  }
+
+  override def frameId: Long = getInt(frameIdPtr)
+
+  override def timestamp: Long = getInt(timestampPtr)
+
+  override def intValue(field: Int): Long = getInt(names(field))
+
+  override def floatValue(field: Int): Double = {
+    checkChunk(spinImageChunkDataGetFloatValue(hImage, names(field), pDouble), names(field))
+    pDouble.get()
+  }
+
+  override def close(): Unit = (names ++ Seq(frameIdPtr, timestampPtr, pLong, pDouble)).foreach(_.close())
+
+  private def getInt(name: BytePointer): Long = {
+    checkChunk(spinImageChunkDataGetIntValue(hImage, name, pLong), name)
+    pLong.get()
+  }
+
+  // Error message is only created on error, to avoid allocation for each value
+  private def checkChunk(err: spinError, name: BytePointer): Unit =
+    if (isError(err)) check(err, s"Unable to get chunk ${name.getString}.")
+}
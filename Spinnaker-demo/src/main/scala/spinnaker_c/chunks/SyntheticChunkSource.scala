@@ -0,0 +1,51 @@
+package spinnaker_c.chunks
+
+import java.util.SplittableRandom
+
+/**
+ * Chunk values of simulated frames, for testing and benchmarking without a camera.
+ *
+ * Each call to `next()` moves to the next frame. Frames are `periodNanos` apart, with probability `dropProbability`
+ * a frame is dropped, its frame ID is skipped. The number of dropped frames is available as `droppedFrames`,
+ * so it can be compared with the number detected by `ChunkTimelineRecorder`.
+ * Float fields change slowly frame to frame, like exposure under auto exposure, integer fields are constant.
+ *
+ * @param fields          fields that will be read, in the same order as passed to `ChunkTimelineRecorder`
+ * @param periodNanos     time between frames
+ * @param dropProbability probability that a frame is dropped
+ * @param seed            random seed, same seed gives the same frames
+ */
+class SyntheticChunkSource(
+  fields: Seq[ChunkField],
+  periodNanos: Long = 10000000L,
+  dropProbability: Double = 0,
+  seed: Long = 0
+) extends ChunkValues {
+  require(dropProbability >= 0 && dropProbability < 1, s"Drop probability has to be in [0, 1), got $dropProbability")
+
+  private val random = new SplittableRandom(seed)
+
+  private var _frameId       = -1L
+  private var _droppedFrames = 0L
+
+  /** Number of frames dropped so far. */
+  def droppedFrames: Long = _droppedFrames
+
+  /** Move to the next frame that was not dropped, returns this. */
+  def next(): SyntheticChunkSource = {
+    _frameId += 1
+    while (random.nextDouble() < dropProbability) {
+      _frameId += 1
+      _droppedFrames += 1
+    }
+    this
+  }
+
+  override def frameId: Long = _frameId
+
+  override def timestamp: Long = _frameId * periodNanos
+
+  override def intValue(field: Int): Long = 1000L * (field + 1)
+
+  override def floatValue(field: Int): Double = 100 * (field + 1) * (1.5 + math.sin(_frameId * 0.01 + field))
+}
@@ -150,11 +150,33 @@ package object helpers {
     hMax.get
   }.get
 
+  def nodeGetLong(hNodeMap: spinNodeMapHandle, nodeName: String): Long = Using.Manager { use =>
+    val hNode = use(nodeMapGetNode(hNodeMap, nodeName))
+    checkIsReadable(hNode, nodeName)
+    val hValue = use(new LongPointer(1)).put(0)
+    check(spinIntegerGetValue(hNode, hValue), s"Unable to get value of '$nodeName'")
+    hValue.get
+  }.get
+
+  /**
+   * Size in bytes of the largest frame sent by the camera in its current configuration, to allocate frame buffers.
+   * It is the value of `PayloadSize`, which accounts for width, height, pixel format, and chunk data. If the camera
+   * does not have that node, the current width and height with 8 bytes per pixel, the largest pixel format, is used.
+   * Call after the image format is configured.
+   */
+  def maxFrameSize(hNodeMap: spinNodeMapHandle): Int = Using.Manager { use =>
+    val hPayloadSize = use(nodeMapGetNode(hNodeMap, "PayloadSize"))
+    val size =
+      if isAvailableAndReadable(hPayloadSize, "PayloadSize") then nodeGetLong(hNodeMap, "PayloadSize")
+      else nodeGetLong(hNodeMap, "Width") * nodeGetLong(hNodeMap, "Height") * 8
+    Math.toIntExact(size)
+  }.get
+
   def nodeGetMinLong(hNodeMap: spinNodeMapHandle, nodeName: String): Long = Using.Manager { use =>
     val hNode = use(nodeMapGetNode(hNodeMap, nodeName))
     checkIsReadable(hNode, nodeName)
     val hMin = use(new LongPointer(1)).put(0)
-    check(spinIntegerGetMax(hNode, hMin), s"Unable to get min '$nodeName' (min retrieval)")
+    check(spinIntegerGetMin(hNode, hMin), s"Unable to get min '$nodeName' (min retrieval)")
     hMin.get
   }.get
 
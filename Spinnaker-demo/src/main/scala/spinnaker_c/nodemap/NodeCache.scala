@@ -0,0 +1,137 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.spinnaker.Spinnaker_C.{spinNodeHandle, spinNodeMapHandle}
+
+import java.util
+
+object NodeCache {
+
+  /** Cache of nodes of a Spinnaker nodemap, the nodemap has to be valid as long as the cache is used. */
+  def apply(hNodeMap: spinNodeMapHandle): NodeCache[spinNodeHandle] = new NodeCache(new SpinNodeMapOps(hNodeMap))
+
+  private final class Entry[N](val name: BytePointer) {
+    var node: N = null.asInstanceOf[N]
+    // Enumeration entry name -> entry integer value
+    val enumValues = new util.HashMap[String, java.lang.Long]()
+  }
+}
+
+/**
+ * Cache of nodes of a single nodemap for code that repeatedly accesses the same nodes, for instance, once per frame.
+ *
+ * Functions in `spinnaker_c.helpers`, like `floatSetValue`, encode the node name and look up the node
+ * in the nodemap by name on each call, and `setEnumerationNodeValue` also looks up the entry by name.
+ * Here node names are encoded once, each node is looked up once, and enumeration entry values are
+ * resolved once, later calls only use a hash map lookup.
+ *
+ * Node access mode is not cached, as it may change, for instance, `ExposureTime` is not writable while
+ * `ExposureAuto` is on. Setting a value of a node that is not writable fails with `SpinnakerSDKException`.
+ *
+ * `invalidate()` drops the cached nodes and enumeration values, they are looked up again on next use.
+ * Nodes and the nodemap are no longer valid when the camera is disconnected, `NodeCacheRegistry` then calls
+ * `markDisconnected()`, after which any use of the cache fails with `IllegalStateException`, a new cache has to be
+ * requested when the camera is reconnected. `invalidate()` and `markDisconnected()` can be called from any thread,
+ * for instance, from a device removal event handler. Other methods are not thread safe.
+ *
+ * @param ops operations on the nodemap, closed with the cache
+ */
+class NodeCache[N <: AnyRef](ops: NodeMapOps[N]) extends AutoCloseable {
+
+  import NodeCache.Entry
+
+  private val entries = new util.HashMap[String, Entry[N]]()
+
+  @volatile private var stale        = false
+  @volatile private var disconnected = false
+
+  /**
+   * Node name encoded as `BytePointer`, for functions that take node name,
+   * like `spinImageChunkDataGetFloatValue`. The pointer is owned by the cache.
+   */
+  def namePointer(name: String): BytePointer = entry(name).name
+
+  def node(name: String): N = {
+    val e = entry(name)
+    if (e.node eq null) e.node = ops.getNode(e.name)
+    e.node
+  }
+
+  /** Integer value of the entry `entryName` of the enumeration node `nodeName`. */
+  def enumEntryValue(nodeName: String, entryName: String): Long = {
+    val e     = entry(nodeName)
+    val value = e.enumValues.get(entryName)
+    if (value != null) value.longValue()
+    else {
+      val entryNamePtr = new BytePointer(entryName)
+      try {
+        val v = ops.enumEntryValue(node(nodeName), entryNamePtr)
+        e.enumValues.put(entryName, v)
+        v
+      } finally {
+        entryNamePtr.close()
+      }
+    }
+  }
+
+  def isReadable(name: String): Boolean = ops.isReadable(node(name))
+
+  def isWritable(name: String): Boolean = ops.isWritable(node(name))
+
+  def getInteger(name: String): Long = ops.getInteger(node(name))
+
+  def setInteger(name: String, value: Long): Unit = ops.setInteger(node(name), value)
+
+  def getFloat(name: String): Double = ops.getFloat(node(name))
+
+  def setFloat(name: String, value: Double): Unit = ops.setFloat(node(name), value)
+
+  def getBoolean(name: String): Boolean = ops.getBoolean(node(name))
+
+  def setBoolean(name: String, value: Boolean): Unit = ops.setBoolean(node(name), value)
+
+  /** Set enumeration node `nodeName` to the entry `entryName`. */
+  def setEnumeration(nodeName: String, entryName: String): Unit =
+    ops.setEnumeration(node(nodeName), enumEntryValue(nodeName, entryName))
+
+  /** Drop cached nodes and enumeration values, they are looked up again in the same nodemap on next use. */
+  def invalidate(): Unit = stale = true
+
+  /** Mark the nodemap as no longer valid, since the camera was disconnected, later use of the cache fails. */
+  def markDisconnected(): Unit = disconnected = true
+
+  override def close(): Unit = {
+    try {
+      releaseNodes()
+      entries.values().forEach(_.name.close())
+      entries.clear()
+    } finally {
+      ops.close()
+    }
+  }
+
+  private def entry(name: String): Entry[N] = {
+    if (disconnected)
+      throw new IllegalStateException(s"Cannot access node '$name', the camera of this node cache was disconnected")
+    if (stale) {
+      stale = false
+      releaseNodes()
+    }
+    var e = entries.get(name)
+    if (e == null) {
+      e = new Entry[N](new BytePointer(name))
+      entries.put(name, e)
+    }
+    e
+  }
+
+  // Encoded names stay valid, they do not depend on the nodemap
+  private def releaseNodes(): Unit =
+    entries.values().forEach { e =>
+      if (e.node ne null) {
+        ops.releaseNode(e.node)
+        e.node = null.asInstanceOf[N]
+      }
+      e.enumValues.clear()
+    }
+}
@@ -0,0 +1,104 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinError
+import spinnaker_c.helpers.SpinnakerSDKException
+
+/**
+ * Microbenchmark of node access with and without `NodeCache`, using `StubNodeMapOps`, no camera is needed.
+ *
+ * Each iteration does what a per-frame exposure adjustment could do: sets `ExposureAuto` to `Off`,
+ * and sets `ExposureTime` and `Gain`.
+ * Uncached access follows `spinnaker_c.helpers`: for each call a node name is encoded, the node is looked up,
+ * its access mode is checked, and enumeration entry is looked up by name.
+ *
+ * The stub nodemap has no native calls, with a camera nodemap each avoided lookup also saves
+ * JNI calls and the GenApi lookup by name.
+ *
+ * Usage:
+ * {{{
+ *   NodeCacheBenchmark [iterations]
+ * }}}
+ */
+object NodeCacheBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val iterations = if (args.length > 0) args(0).toInt else 1_000_000
+
+    val ops = new StubNodeMapOps()
+    ops.addEnumeration("ExposureAuto", "Off" -> 0L, "Once" -> 1L, "Continuous" -> 2L)
+    ops.addFloat("ExposureTime", 10000)
+    ops.addFloat("Gain", 0)
+    // Other nodes, so lookups are not in a trivially small map
+    for (i <- 0 until 500) ops.addInteger(s"Node$i", i)
+
+    val cache = new NodeCache(ops)
+
+    def uncached(i: Int): Unit = {
+      setEnumerationUncached(ops, "ExposureAuto", "Off")
+      setFloatUncached(ops, "ExposureTime", 10000 + i % 100)
+      setFloatUncached(ops, "Gain", i % 10)
+    }
+
+    def cached(i: Int): Unit = {
+      cache.setEnumeration("ExposureAuto", "Off")
+      cache.setFloat("ExposureTime", 10000 + i % 100)
+      cache.setFloat("Gain", i % 10)
+    }
+
+    println(f"${"access"}%10s ${"ns/iteration"}%13s ${"lookups"}%10s")
+    for (round <- 1 to 3) {
+      for ((name, f) <- Seq("uncached" -> uncached, "cached" -> cached)) {
+        val lookups0 = ops.lookups
+        val t0       = System.nanoTime()
+        var i        = 0
+        while (i < iterations) {
+          f(i)
+          i += 1
+        }
+        val nanos = (System.nanoTime() - t0).toDouble / iterations
+        // First round is a warm-up
+        if (round > 1) println(f"$name%10s $nanos%13.1f ${ops.lookups - lookups0}%10d")
+      }
+    }
+
+    cache.close()
+  }
+
+  private def setFloatUncached[N](ops: NodeMapOps[N], nodeName: String, value: Double): Unit = {
+    val name = new BytePointer(nodeName)
+    try {
+      val node = ops.getNode(name)
+      try {
+        checkIsWritable(ops, node, nodeName)
+        ops.setFloat(node, value)
+      } finally {
+        ops.releaseNode(node)
+      }
+    } finally {
+      name.close()
+    }
+  }
+
+  private def setEnumerationUncached[N](ops: NodeMapOps[N], nodeName: String, entryName: String): Unit = {
+    val name  = new BytePointer(nodeName)
+    val entry = new BytePointer(entryName)
+    try {
+      val node = ops.getNode(name)
+      try {
+        val value = ops.enumEntryValue(node, entry)
+        checkIsWritable(ops, node, nodeName)
+        ops.setEnumeration(node, value)
+      } finally {
+        ops.releaseNode(node)
+      }
+    } finally {
+      entry.close()
+      name.close()
+    }
+  }
+
+  private def checkIsWritable[N](ops: NodeMapOps[N], node: N, nodeName: String): Unit =
+    if (!ops.isWritable(node))
+      throw new SpinnakerSDKException(s"Node '$nodeName' is not writable", spinError.SPINNAKER_ERR_ACCESS_DENIED)
+}
@@ -0,0 +1,96 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.Pointer
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+
+import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedQueue}
+import scala.util.Using
+
+/**
+ * Node caches of cameras, one for the GenICam nodemap of each camera, keyed by device serial number.
+ *
+ * A device removal event handler is registered with the system (see `EnumerationEvents_C`).
+ * When a camera is disconnected its cache is marked as disconnected and removed from the registry. Any later use of
+ * that cache fails with `IllegalStateException` instead of accessing the invalid nodemap, callers have to get
+ * a new cache with `cacheFor` once the camera is reconnected.
+ *
+ * @param hSystem system instance, has to be valid until the registry is closed
+ */
+class NodeCacheRegistry(hSystem: spinSystem) extends AutoCloseable {
+
+  private val caches = new ConcurrentHashMap[String, NodeCache[spinNodeHandle]]()
+  // Caches of disconnected cameras may still be referenced by their users, they are closed with the registry
+  private val removed = new ConcurrentLinkedQueue[NodeCache[spinNodeHandle]]()
+
+  private val onArrival = new spinArrivalEventFunction {
+    override def call(hCamera: spinCamera, pUserData: Pointer): Unit = {}
+  }
+
+  private val onRemoval = new spinRemovalEventFunction {
+    override def call(hCamera: spinCamera, pUserData: Pointer): Unit =
+      serialNumber(hCamera).foreach(invalidate)
+  }
+
+  private val interfaceEventHandler = new spinInterfaceEventHandler()
+  check(
+    spinInterfaceEventHandlerCreate(interfaceEventHandler, onArrival, onRemoval, null),
+    "Unable to create interface event handler."
+  )
+  check(
+    spinSystemRegisterInterfaceEventHandler(hSystem, interfaceEventHandler),
+    "Unable to register interface event handler."
+  )
+
+  /**
+   * Cache for the GenICam nodemap of an initialized camera, created on first request.
+   * The camera nodemap has to stay valid while the cache is used, the cache is closed by the registry.
+   */
+  def cacheFor(hCam: spinCamera): NodeCache[spinNodeHandle] = {
+    val sn = serialNumber(hCam).getOrElse(throw new IllegalArgumentException("Camera serial number is not readable"))
+    caches.computeIfAbsent(
+      sn,
+      _ => {
+        val hNodeMap = new spinNodeMapHandle()
+        check(spinCameraGetNodeMap(hCam, hNodeMap), "Unable to retrieve GenICam nodemap.")
+        NodeCache(hNodeMap)
+      }
+    )
+  }
+
+  /** Mark cache of camera with serial number `serialNumber`, if any, as disconnected and remove it from registry. */
+  def invalidate(serialNumber: String): Unit = {
+    val cache = caches.remove(serialNumber)
+    if (cache != null) {
+      cache.markDisconnected()
+      removed.add(cache)
+    }
+  }
+
+  override def close(): Unit = {
+    try {
+      printOnError(
+        spinSystemUnregisterInterfaceEventHandler(hSystem, interfaceEventHandler),
+        "Unable to unregister interface event handler."
+      )
+      printOnError(
+        spinInterfaceEventHandlerDestroy(interfaceEventHandler),
+        "Unable to destroy interface event handler."
+      )
+    } finally {
+      caches.values().forEach(_.close())
+      caches.clear()
+      removed.forEach(_.close())
+      removed.clear()
+    }
+  }
+
+  private def serialNumber(hCam: spinCamera): Option[String] =
+    Using.resource(new spinNodeMapHandle()) { hNodeMapTLDevice =>
+      if (printOnError(spinCameraGetTLDeviceNodeMap(hCam, hNodeMapTLDevice), "Unable to retrieve TL device nodemap."))
+        None
+      else
+        nodeGetStringValueOpt(hNodeMapTLDevice, "DeviceSerialNumber")
+    }
+}
@@ -0,0 +1,27 @@
+package spinnaker_c.nodemap
+
+/**
+ * Node operations for validating values against node limits before writing them, and for executing commands,
+ * used by `SequencerBuilder`.
+ *
+ * @tparam N node handle
+ */
+trait NodeLimitsOps[N] extends NodeMapOps[N] {
+
+  def getIntegerMin(node: N): Long
+
+  def getIntegerMax(node: N): Long
+
+  /** Increment of an integer node, valid values are `min + k * inc`. */
+  def getIntegerInc(node: N): Long
+
+  def getFloatMin(node: N): Double
+
+  def getFloatMax(node: N): Double
+
+  /** Integer value of the current entry of an enumeration node. */
+  def getEnumeration(node: N): Long
+
+  /** Execute a command node. */
+  def execute(node: N): Unit
+}
@@ -0,0 +1,45 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.BytePointer
+
+/**
+ * Operations on nodes of a GenICam nodemap, used by `NodeCache`.
+ *
+ * `SpinNodeMapOps` implements them for a Spinnaker nodemap, `StubNodeMapOps` for an in-memory nodemap
+ * used to test and benchmark without a camera.
+ * Names are passed as encoded strings, so callers can encode them once and reuse them.
+ * Failures are reported by throwing `SpinnakerSDKException`.
+ *
+ * @tparam N node handle
+ */
+trait NodeMapOps[N] extends AutoCloseable {
+
+  /** Look up a node by name, the node should be released with `releaseNode` when no longer used. */
+  def getNode(name: BytePointer): N
+
+  def releaseNode(node: N): Unit
+
+  /** Integer value of the entry `entryName` of the enumeration node. */
+  def enumEntryValue(node: N, entryName: BytePointer): Long
+
+  def isReadable(node: N): Boolean
+
+  def isWritable(node: N): Boolean
+
+  def getInteger(node: N): Long
+
+  def setInteger(node: N, value: Long): Unit
+
+  def getFloat(node: N): Double
+
+  def setFloat(node: N, value: Double): Unit
+
+  def getBoolean(node: N): Boolean
+
+  def setBoolean(node: N, value: Boolean): Unit
+
+  /** Set enumeration node to the entry with integer value `value`. */
+  def setEnumeration(node: N, value: Long): Unit
+
+  override def close(): Unit = {}
+}
@@ -0,0 +1,281 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.BytePointer
+import spinnaker_c.helpers.SpinnakerSDKException
+import spinnaker_c.nodemap.NodeSnapshot.{Change, Magic, RestoreResult, Value, Version}
+import spinnaker_c.nodemap.NodeTreeOps.NodeKind
+
+import java.io.*
+import java.nio.file.{Files, Path}
+import scala.collection.mutable
+import scala.util.Using
+
+object NodeSnapshot {
+
+  private val Magic   = 0x4e534e50 // "NSNP"
+  private val Version = 1
+
+  /** Value of a node, enumerations are stored by entry symbolic name. */
+  enum Value {
+    case IntegerValue(value: Long)
+    case FloatValue(value: Double)
+    case BooleanValue(value: Boolean)
+    case EnumerationValue(entry: String)
+  }
+
+  /**
+   * Node whose live value differs from the snapshot.
+   *
+   * @param live live value, `None` if the node is not readable
+   */
+  case class Change(name: String, live: Option[Value], saved: Value)
+
+  /**
+   * Result of `restore`.
+   *
+   * @param changes nodes written, in the order they were written
+   * @param skipped nodes that were still not readable, not writable, or whose value was rejected after the last pass
+   * @param passes  number of passes, nodes not writable yet or whose value is rejected are deferred to the next pass
+   */
+  case class RestoreResult(changes: IndexedSeq[Change], skipped: IndexedSeq[String], passes: Int)
+
+  /**
+   * Capture values of writable nodes of a nodemap.
+   *
+   * Readable and writable integer, float, boolean, and enumeration nodes under the `root` category are captured,
+   * strings and commands are not. Values of selected features are captured for the current values of selectors only.
+   *
+   * @param exclude names of nodes not to capture
+   */
+  def capture[N](
+    ops: NodeTreeOps[N],
+    model: String,
+    serial: String,
+    root: String = "Root",
+    exclude: Set[String] = Set.empty
+  ): NodeSnapshot = {
+    val values   = mutable.LinkedHashMap.empty[String, Value]
+    val selected = mutable.HashMap.empty[String, IndexedSeq[String]]
+
+    def visit(node: N): Unit = {
+      val name = ops.nodeName(node)
+      ops.nodeKind(node) match {
+        case NodeKind.Category =>
+          val features = ops.features(node)
+          try features.foreach(visit)
+          finally features.foreach(ops.releaseNode)
+        case NodeKind.Other =>
+        case kind if !values.contains(name) && !exclude.contains(name) =>
+          if (ops.isReadable(node) && ops.isWritable(node)) {
+            values(name) = readValue(ops, node, kind)
+            val features = ops.selectedFeatures(node)
+            try if (features.nonEmpty) selected(name) = features.map(ops.nodeName)
+            finally features.foreach(ops.releaseNode)
+          }
+        case _ =>
+      }
+    }
+
+    val rootName = new BytePointer(root)
+    try {
+      val rootNode = ops.getNode(rootName)
+      try visit(rootNode)
+      finally ops.releaseNode(rootNode)
+    } finally {
+      rootName.close()
+    }
+
+    val order = dependencyOrder(values.keys.toIndexedSeq, selected.toMap)
+    NodeSnapshot(model, serial, order.map(name => name -> values(name)))
+  }
+
+  /**
+   * Order nodes so that each selector comes before the features it selects, otherwise keeping the original order.
+   * Nodes in a selection cycle, which a valid nodemap should not have, are left in their original order at the end.
+   *
+   * @param names    nodes in nodemap order
+   * @param selected selector name -> names of features it selects
+   */
+  def dependencyOrder(names: IndexedSeq[String], selected: Map[String, Seq[String]]): IndexedSeq[String] = {
+    val index     = names.zipWithIndex.toMap
+    val inDegree  = Array.fill(names.length)(0)
+    val dependent = Array.fill(names.length)(mutable.ArrayBuffer.empty[Int])
+    for ((selector, features) <- selected; s <- index.get(selector); f <- features.flatMap(index.get) if f != s) {
+      dependent(s) += f
+      inDegree(f) += 1
+    }
+
+    // Kahn's algorithm, taking the ready node earliest in nodemap order
+    val ready  = mutable.PriorityQueue.empty[Int](Ordering.Int.reverse)
+    val result = mutable.ArrayBuffer.empty[String]
+    val done   = Array.fill(names.length)(false)
+    for (i <- names.indices if inDegree(i) == 0) ready += i
+    while (ready.nonEmpty) {
+      val i = ready.dequeue()
+      result += names(i)
+      done(i) = true
+      for (d <- dependent(i)) {
+        inDegree(d) -= 1
+        if (inDegree(d) == 0) ready += d
+      }
+    }
+    for (i <- names.indices if !done(i)) result += names(i)
+    result.toIndexedSeq
+  }
+
+  /** Snapshot file of a camera in `dir`. */
+  def file(dir: Path, model: String, serial: String): Path =
+    dir.resolve(s"$model-$serial.nodes".replaceAll("[^A-Za-z0-9._-]", "_"))
+
+  def read(file: Path): NodeSnapshot =
+    Using.resource(new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) { in =>
+      if (in.readInt() != Magic) throw new IOException(s"Not a node snapshot file: $file")
+      val version = in.readInt()
+      if (version != Version) throw new IOException(s"Unsupported node snapshot version $version: $file")
+      val model  = in.readUTF()
+      val serial = in.readUTF()
+      val values = IndexedSeq.fill(in.readInt()) {
+        val name = in.readUTF()
+        val value = in.readByte() match {
+          case 0 => Value.IntegerValue(in.readLong())
+          case 1 => Value.FloatValue(in.readDouble())
+          case 2 => Value.BooleanValue(in.readBoolean())
+          case 3 => Value.EnumerationValue(in.readUTF())
+          case t => throw new IOException(s"Unknown value type $t of node '$name': $file")
+        }
+        name -> value
+      }
+      NodeSnapshot(model, serial, values)
+    }
+
+  private def readValue[N](ops: NodeTreeOps[N], node: N, kind: NodeKind): Value = kind match {
+    case NodeKind.Integer => Value.IntegerValue(ops.getInteger(node))
+    case NodeKind.Float   => Value.FloatValue(ops.getFloat(node))
+    case NodeKind.Boolean => Value.BooleanValue(ops.getBoolean(node))
+    case _                => Value.EnumerationValue(ops.getEnumerationEntry(node))
+  }
+
+  /** Read live value of the same type as `like`. */
+  private def readAs[N](ops: NodeTreeOps[N], node: N, like: Value): Value = like match {
+    case _: Value.IntegerValue     => Value.IntegerValue(ops.getInteger(node))
+    case _: Value.FloatValue       => Value.FloatValue(ops.getFloat(node))
+    case _: Value.BooleanValue     => Value.BooleanValue(ops.getBoolean(node))
+    case _: Value.EnumerationValue => Value.EnumerationValue(ops.getEnumerationEntry(node))
+  }
+}
+
+/**
+ * Values of writable nodes of a camera, to restore camera configuration at startup writing only nodes that changed.
+ *
+ * Setting many nodes one by one makes camera startup slow, each write goes to the camera registers.
+ * A snapshot is captured once, when the camera is configured, and saved to a file named after camera model and
+ * serial number, see `NodeSnapshot.file`. At startup `restore` compares the saved values with the live values and
+ * writes only the nodes that differ.
+ *
+ * Values are kept in dependency order: a selector comes before the features it selects, otherwise nodes are in
+ * nodemap order, which GenICam device descriptions generally follow for features that depend on each other.
+ * A node that is not writable yet, for instance, `ExposureTime` while `ExposureAuto` is `Continuous`, is retried
+ * after the nodes following it are written.
+ *
+ * @param values node name -> value, in dependency order
+ */
+case class NodeSnapshot(model: String, serial: String, values: IndexedSeq[(String, Value)]) {
+
+  def write(file: Path): Unit =
+    Using.resource(new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) { out =>
+      out.writeInt(Magic)
+      out.writeInt(Version)
+      out.writeUTF(model)
+      out.writeUTF(serial)
+      out.writeInt(values.length)
+      for ((name, value) <- values) {
+        out.writeUTF(name)
+        value match {
+          case Value.IntegerValue(v) =>
+            out.writeByte(0)
+            out.writeLong(v)
+          case Value.FloatValue(v) =>
+            out.writeByte(1)
+            out.writeDouble(v)
+          case Value.BooleanValue(v) =>
+            out.writeByte(2)
+            out.writeBoolean(v)
+          case Value.EnumerationValue(v) =>
+            out.writeByte(3)
+            out.writeUTF(v)
+        }
+      }
+    }
+
+  /** Nodes whose live values differ from the snapshot, in dependency order, nothing is written. */
+  def diff[N](ops: NodeTreeOps[N]): IndexedSeq[Change] =
+    values.flatMap { (name, saved) =>
+      withNode(ops, name) { node =>
+        val live = if (ops.isReadable(node)) Some(NodeSnapshot.readAs(ops, node, saved)) else None
+        Option.when(!live.contains(saved))(Change(name, live, saved))
+      }
+    }
+
+  /**
+   * Write snapshot values to the nodemap.
+   *
+   * Nodes are visited in dependency order, the live value of each node is read just before it would be written,
+   * so it reflects writes of the nodes before it. Nodes that are not readable or writable, or whose value is rejected,
+   * for instance, `Width` out of range until `OffsetX` is reduced, are deferred to the next pass, passes are repeated
+   * while some deferred node is written.
+   *
+   * @param onlyChanged if `false` all nodes are written, as a startup without a snapshot would do
+   */
+  def restore[N](ops: NodeTreeOps[N], onlyChanged: Boolean = true): RestoreResult = {
+    val changes = mutable.ArrayBuffer.empty[Change]
+    var pending = values
+    var passes  = 0
+    var written = true
+    while (pending.nonEmpty && written) {
+      passes += 1
+      written = false
+      pending = pending.filter { (name, saved) =>
+        withNode(ops, name) { node =>
+          if (!ops.isReadable(node)) true
+          else {
+            val live = NodeSnapshot.readAs(ops, node, saved)
+            if (onlyChanged && live == saved) false
+            else if (!ops.isWritable(node)) true
+            else
+              try {
+                writeValue(ops, node, saved)
+                changes += Change(name, Some(live), saved)
+                written = true
+                false
+              } catch {
+                // The value may be valid after nodes later in this pass are written
+                case _: SpinnakerSDKException => true
+              }
+          }
+        }
+      }
+    }
+    RestoreResult(changes.toIndexedSeq, pending.map(_._1), passes)
+  }
+
+  private def writeValue[N](ops: NodeTreeOps[N], node: N, value: Value): Unit = value match {
+    case Value.IntegerValue(v) => ops.setInteger(node, v)
+    case Value.FloatValue(v)   => ops.setFloat(node, v)
+    case Value.BooleanValue(v) => ops.setBoolean(node, v)
+    case Value.EnumerationValue(v) =>
+      val entry = new BytePointer(v)
+      try ops.setEnumeration(node, ops.enumEntryValue(node, entry))
+      finally entry.close()
+  }
+
+  private def withNode[N, T](ops: NodeTreeOps[N], name: String)(f: N => T): T = {
+    val pName = new BytePointer(name)
+    try {
+      val node = ops.getNode(pName)
+      try f(node)
+      finally ops.releaseNode(node)
+    } finally {
+      pName.close()
+    }
+  }
+}
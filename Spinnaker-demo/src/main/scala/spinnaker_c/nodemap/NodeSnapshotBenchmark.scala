@@ -0,0 +1,155 @@
+package spinnaker_c.nodemap
+
+import java.nio.file.Files
+
+/**
+ * Startup time with and without `NodeSnapshot`, using an in-memory camera nodemap in `StubNodeMapOps`,
+ * no camera is needed.
+ *
+ * The stub nodemap has factory default values, `configure` sets the nodes of the application configuration,
+ * including nodes that are writable only after another node is set, a selector that follows the feature it
+ * selects in nodemap order, and width and height whose maximum depends on the offsets that follow them.
+ * The configuration is captured to a snapshot file, then startup is measured for a camera with default values,
+ * as after power cycle, for a camera that is already configured, as after application restart, and for a camera
+ * configured with another region of interest, whose offsets make the snapshot width and height out of range until
+ * the offsets are restored. Without a snapshot all nodes are written, with it only nodes that changed.
+ * Each write takes a fixed time, to simulate writing camera registers.
+ *
+ * Usage:
+ * {{{
+ *   NodeSnapshotBenchmark [write time in ms] [number of other writable nodes]
+ * }}}
+ */
+object NodeSnapshotBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val writeMillis = if (args.length > 0) args(0).toDouble else 2
+    val nbOther     = if (args.length > 1) args(1).toInt else 100
+
+    val configured = camera(nbOther)
+    configure(configured)
+    val snapshot = NodeSnapshot.capture(configured, "StubCamera", "00000001")
+
+    val file = Files.createTempFile("NodeSnapshotBenchmark-", ".nodes")
+    try {
+      snapshot.write(file)
+      val read = NodeSnapshot.read(file)
+      println(s"Snapshot: ${snapshot.values.length} nodes, ${Files.size(file)} bytes")
+      println(s"Read back from file matches: ${read == snapshot}")
+    } finally {
+      Files.delete(file)
+    }
+
+    val order = snapshot.values.map(_._1)
+    println(s"LineSelector before LineMode: ${order.indexOf("LineSelector") < order.indexOf("LineMode")}")
+    println()
+
+    println(
+      f"${"camera"}%12s ${"snapshot"}%9s ${"writes"}%7s ${"passes"}%7s ${"skipped"}%8s ${"time ms"}%8s " +
+        f"${"diff"}%5s"
+    )
+    val states = Seq[(String, StubNodeMapOps => Unit)](
+      "default"    -> (_ => ()),
+      "configured" -> configure,
+      "other ROI"  -> configureOtherRoi
+    )
+    for ((state, configureCamera) <- states; onlyChanged <- Seq(false, true)) {
+      val ops = camera(nbOther)
+      configureCamera(ops)
+      ops.writes = 0
+      ops.writeNanos = (writeMillis * 1e6).toLong
+
+      val t0     = System.nanoTime()
+      val result = snapshot.restore(ops, onlyChanged)
+      val millis = (System.nanoTime() - t0) / 1e6
+
+      // Nodes that still differ from the snapshot after restore, should be none
+      val remaining = snapshot.diff(ops).length
+      println(
+        f"$state%12s ${if onlyChanged then "yes" else "no"}%9s ${ops.writes}%7d ${result.passes}%7d " +
+          f"${result.skipped.length}%8d $millis%8.1f $remaining%5d"
+      )
+    }
+  }
+
+  /** Stub camera nodemap with factory default values. */
+  private def camera(nbOther: Int): StubNodeMapOps = {
+    val ops = new StubNodeMapOps()
+
+    val acquisitionMode = ops.addEnumeration("AcquisitionMode", "Continuous" -> 0L, "SingleFrame" -> 1L)
+    val exposureAuto    = ops.addEnumeration("ExposureAuto", "Continuous" -> 2L, "Off" -> 0L, "Once" -> 1L)
+    val exposureTime    = ops.addFloat("ExposureTime", 10000)
+    val frameRate       = ops.addFloat("AcquisitionFrameRate", 30)
+    val frameRateEnable = ops.addBoolean("AcquisitionFrameRateEnable", false)
+    val gainAuto        = ops.addEnumeration("GainAuto", "Continuous" -> 2L, "Off" -> 0L, "Once" -> 1L)
+    val gain            = ops.addFloat("Gain", 0)
+    val width           = ops.addInteger("Width", 1440, 16, 1440, 1)
+    val height          = ops.addInteger("Height", 1080, 16, 1080, 1)
+    val offsetX         = ops.addInteger("OffsetX", 0, 0, 0, 1)
+    val offsetY         = ops.addInteger("OffsetY", 0, 0, 0, 1)
+    val pixelFormat     = ops.addEnumeration("PixelFormat", "Mono8" -> 0L, "Mono16" -> 1L, "BayerRG8" -> 2L)
+    val lineMode        = ops.addEnumeration("LineMode", "Input" -> 0L, "Output" -> 1L)
+    val lineSelector    = ops.addEnumeration("LineSelector", "Line0" -> 0L, "Line1" -> 1L, "Line2" -> 2L)
+    val others          = (0 until nbOther).map(i => ops.addInteger(s"Other$i", i))
+
+    lineSelector.selected += lineMode
+
+    exposureTime.writable = false
+    frameRate.writable = false
+    gain.writable = false
+    ops.onWrite = { node =>
+      node.name match {
+        case "ExposureAuto"               => exposureTime.writable = node.intValue == 0
+        case "AcquisitionFrameRateEnable" => frameRate.writable = node.intValue != 0
+        case "GainAuto"                   => gain.writable = node.intValue == 0
+        // Region of interest has to fit in the sensor
+        case "Width"                      => offsetX.intMax = 1440 - node.intValue
+        case "OffsetX"                    => width.intMax = 1440 - node.intValue
+        case "Height"                     => offsetY.intMax = 1080 - node.intValue
+        case "OffsetY"                    => height.intMax = 1080 - node.intValue
+        case _                            =>
+      }
+    }
+
+    // Frame rate precedes its enable node and line mode precedes its selector, as dependencies to be resolved
+    ops.addCategory(
+      "Root",
+      ops.addCategory("AcquisitionControl", acquisitionMode, exposureAuto, exposureTime, frameRate, frameRateEnable),
+      ops.addCategory("AnalogControl", gainAuto, gain),
+      ops.addCategory("ImageFormatControl", width, height, offsetX, offsetY, pixelFormat),
+      ops.addCategory("DigitalIOControl", lineMode, lineSelector),
+      ops.addCategory("OtherControl", others*)
+    )
+    ops
+  }
+
+  /** Application configuration, set node by node. */
+  private def configure(ops: StubNodeMapOps): Unit = {
+    // Not closed, closing the cache would close the nodemap
+    val cache = new NodeCache(ops)
+    cache.setEnumeration("ExposureAuto", "Off")
+    cache.setFloat("ExposureTime", 5000)
+    cache.setBoolean("AcquisitionFrameRateEnable", true)
+    cache.setFloat("AcquisitionFrameRate", 60)
+    cache.setEnumeration("GainAuto", "Off")
+    cache.setFloat("Gain", 6)
+    cache.setInteger("Width", 1024)
+    cache.setInteger("Height", 768)
+    cache.setInteger("OffsetX", 208)
+    cache.setInteger("OffsetY", 156)
+    cache.setEnumeration("PixelFormat", "BayerRG8")
+    cache.setEnumeration("LineSelector", "Line1")
+    cache.setEnumeration("LineMode", "Output")
+    for (i <- 0 until 10) cache.setInteger(s"Other$i", 1000 + i)
+  }
+
+  /** Configuration with another region of interest, its offsets are too large for the snapshot width and height. */
+  private def configureOtherRoi(ops: StubNodeMapOps): Unit = {
+    configure(ops)
+    val cache = new NodeCache(ops)
+    cache.setInteger("Width", 640)
+    cache.setInteger("OffsetX", 800)
+    cache.setInteger("Height", 480)
+    cache.setInteger("OffsetY", 600)
+  }
+}
@@ -0,0 +1,34 @@
+package spinnaker_c.nodemap
+
+import spinnaker_c.nodemap.NodeTreeOps.NodeKind
+
+object NodeTreeOps {
+
+  /** Node types used when walking a nodemap, value nodes of other types are `Other`. */
+  enum NodeKind {
+    case Category, Integer, Float, Boolean, Enumeration, Other
+  }
+}
+
+/**
+ * Node operations for walking a GenICam nodemap tree, used by `NodeSnapshot`.
+ *
+ * Nodes returned by `features` and `selectedFeatures` should be released with `releaseNode`.
+ *
+ * @tparam N node handle
+ */
+trait NodeTreeOps[N] extends NodeMapOps[N] {
+
+  def nodeName(node: N): String
+
+  def nodeKind(node: N): NodeKind
+
+  /** Features of a category node, in nodemap order. */
+  def features(category: N): IndexedSeq[N]
+
+  /** Features whose values depend on the value of a selector node, empty if the node is not a selector. */
+  def selectedFeatures(node: N): IndexedSeq[N]
+
+  /** Symbolic name of the current entry of an enumeration node. */
+  def getEnumerationEntry(node: N): String
+}
@@ -0,0 +1,181 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.{BytePointer, DoublePointer, LongPointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+import spinnaker_c.nodemap.NodeTreeOps.NodeKind
+
+import scala.util.Try
+
+/**
+ * Node operations on a Spinnaker GenICam nodemap.
+ *
+ * Value pointers are allocated once and reused, so reading and writing values does not allocate native memory.
+ * Not thread safe.
+ */
+class SpinNodeMapOps(hNodeMap: spinNodeMapHandle)
+    extends NodeTreeOps[spinNodeHandle]
+    with NodeLimitsOps[spinNodeHandle] {
+
+  private val pLong     = new LongPointer(1L)
+  private val pDouble   = new DoublePointer(1L)
+  private val pBool     = new BytePointer(1L)
+  private val pSize     = new SizeTPointer(1L)
+  private val pStr      = new BytePointer(MAX_BUFF_LEN.toLong)
+  private val pStrLen   = new SizeTPointer(1L)
+  private val pNodeType = Array(spinNodeType.UnknownNode.value)
+
+  override def getNode(name: BytePointer): spinNodeHandle = {
+    val hNode = new spinNodeHandle()
+    val err   = spinNodeMapGetNode(hNodeMap, name, hNode)
+    if (isError(err)) {
+      hNode.close()
+      check(err, s"Unable to retrieve node '${name.getString}'.")
+    }
+    hNode
+  }
+
+  override def releaseNode(node: spinNodeHandle): Unit = node.close()
+
+  override def enumEntryValue(node: spinNodeHandle, entryName: BytePointer): Long = {
+    val hEntry = new spinNodeHandle()
+    try {
+      checkNode(spinEnumerationGetEntryByName(node, entryName, hEntry), node, s"get entry '${entryName.getString}' of")
+      checkNode(spinEnumerationEntryGetIntValue(hEntry, pLong), node, s"get '${entryName.getString}' value of")
+      pLong.get()
+    } finally {
+      hEntry.close()
+    }
+  }
+
+  override def isReadable(node: spinNodeHandle): Boolean = {
+    checkNode(spinNodeIsReadable(node, pBool), node, "check readability of")
+    pBool.getBool
+  }
+
+  override def isWritable(node: spinNodeHandle): Boolean = {
+    checkNode(spinNodeIsWritable(node, pBool), node, "check writability of")
+    pBool.getBool
+  }
+
+  override def getInteger(node: spinNodeHandle): Long = {
+    checkNode(spinIntegerGetValue(node, pLong), node, "get value of")
+    pLong.get()
+  }
+
+  override def setInteger(node: spinNodeHandle, value: Long): Unit =
+    checkNode(spinIntegerSetValue(node, value), node, "set value of")
+
+  override def getFloat(node: spinNodeHandle): Double = {
+    checkNode(spinFloatGetValue(node, pDouble), node, "get value of")
+    pDouble.get()
+  }
+
+  override def setFloat(node: spinNodeHandle, value: Double): Unit =
+    checkNode(spinFloatSetValue(node, value), node, "set value of")
+
+  override def getBoolean(node: spinNodeHandle): Boolean = {
+    checkNode(spinBooleanGetValue(node, pBool), node, "get value of")
+    pBool.getBool
+  }
+
+  override def setBoolean(node: spinNodeHandle, value: Boolean): Unit =
+    checkNode(spinBooleanSetValue(node, (if value then 1 else 0).toByte), node, "set value of")
+
+  override def setEnumeration(node: spinNodeHandle, value: Long): Unit =
+    checkNode(spinEnumerationSetIntValue(node, value), node, "set value of")
+
+  override def nodeName(node: spinNodeHandle): String = spinnaker_c.helpers.nodeName(node)
+
+  override def nodeKind(node: spinNodeHandle): NodeKind = {
+    checkNode(spinNodeGetType(node, pNodeType), node, "get type of")
+    pNodeType(0) match {
+      case spinNodeType.CategoryNode.value    => NodeKind.Category
+      case spinNodeType.IntegerNode.value     => NodeKind.Integer
+      case spinNodeType.FloatNode.value       => NodeKind.Float
+      case spinNodeType.BooleanNode.value     => NodeKind.Boolean
+      case spinNodeType.EnumerationNode.value => NodeKind.Enumeration
+      case _                                  => NodeKind.Other
+    }
+  }
+
+  override def features(category: spinNodeHandle): IndexedSeq[spinNodeHandle] = {
+    checkNode(spinCategoryGetNumFeatures(category, pSize), category, "get number of features of")
+    (0L until pSize.get()).map { i =>
+      val hFeature = new spinNodeHandle()
+      checkNode(spinCategoryGetFeatureByIndex(category, i, hFeature), category, "get feature of")
+      hFeature
+    }
+  }
+
+  override def selectedFeatures(node: spinNodeHandle): IndexedSeq[spinNodeHandle] = {
+    checkNode(spinSelectorIsSelector(node, pBool), node, "check selector")
+    if (!pBool.getBool) IndexedSeq.empty
+    else {
+      checkNode(spinSelectorGetNumSelectedFeatures(node, pSize), node, "get number of selected features of")
+      (0L until pSize.get()).map { i =>
+        val hSelected = new spinNodeHandle()
+        checkNode(spinSelectorGetSelectedFeatureByIndex(node, i, hSelected), node, "get selected feature of")
+        hSelected
+      }
+    }
+  }
+
+  override def getEnumerationEntry(node: spinNodeHandle): String = {
+    val hEntry = new spinNodeHandle()
+    try {
+      checkNode(spinEnumerationGetCurrentEntry(node, hEntry), node, "get current entry of")
+      pStrLen.put(MAX_BUFF_LEN.toLong)
+      checkNode(spinEnumerationEntryGetSymbolic(hEntry, pStr, pStrLen), node, "get current entry symbolic of")
+      pStr.getString.take(pStrLen.get().toInt - 1)
+    } finally {
+      hEntry.close()
+    }
+  }
+
+  override def getIntegerMin(node: spinNodeHandle): Long = {
+    checkNode(spinIntegerGetMin(node, pLong), node, "get minimum of")
+    pLong.get()
+  }
+
+  override def getIntegerMax(node: spinNodeHandle): Long = {
+    checkNode(spinIntegerGetMax(node, pLong), node, "get maximum of")
+    pLong.get()
+  }
+
+  override def getIntegerInc(node: spinNodeHandle): Long = {
+    checkNode(spinIntegerGetInc(node, pLong), node, "get increment of")
+    pLong.get()
+  }
+
+  override def getFloatMin(node: spinNodeHandle): Double = {
+    checkNode(spinFloatGetMin(node, pDouble), node, "get minimum of")
+    pDouble.get()
+  }
+
+  override def getFloatMax(node: spinNodeHandle): Double = {
+    checkNode(spinFloatGetMax(node, pDouble), node, "get maximum of")
+    pDouble.get()
+  }
+
+  override def getEnumeration(node: spinNodeHandle): Long = {
+    val hEntry = new spinNodeHandle()
+    try {
+      checkNode(spinEnumerationGetCurrentEntry(node, hEntry), node, "get current entry of")
+      checkNode(spinEnumerationEntryGetIntValue(hEntry, pLong), node, "get current entry value of")
+      pLong.get()
+    } finally {
+      hEntry.close()
+    }
+  }
+
+  override def execute(node: spinNodeHandle): Unit =
+    checkNode(spinCommandExecute(node), node, "execute")
+
+  override def close(): Unit = Seq(pLong, pDouble, pBool, pSize, pStr, pStrLen).foreach(_.close())
+
+  // Node name is only retrieved to report an error, `action` is a constant to avoid allocation for each call
+  private def checkNode(err: spinError, node: spinNodeHandle, action: String): Unit =
+    if (isError(err)) check(err, s"Unable to $action node '${Try(nodeName(node)).getOrElse("?")}'.")
+}
@@ -0,0 +1,235 @@
+package spinnaker_c.nodemap
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinError
+import spinnaker_c.helpers.SpinnakerSDKException
+import spinnaker_c.nodemap.NodeTreeOps.NodeKind
+import spinnaker_c.nodemap.StubNodeMapOps.Node
+
+import java.util.concurrent.locks.LockSupport
+import scala.collection.mutable
+
+object StubNodeMapOps {
+
+  /**
+   * Node of the in-memory nodemap.
+   * Integer, boolean, and enumeration nodes use `intValue`, float nodes use `floatValue`.
+   * Integer nodes are limited by `intMin`, `intMax`, and `intInc`, float nodes by `floatMin` and `floatMax`,
+   * setting a value out of limits fails.
+   *
+   * @param entries enumeration entries, name -> integer value, empty for other nodes
+   */
+  final class Node(val name: String, val kind: NodeKind, val entries: Map[String, Long] = Map.empty) {
+    var intValue: Long     = 0
+    var floatValue: Double = 0
+    var readable: Boolean  = true
+    var writable: Boolean  = true
+    var intMin: Long       = Long.MinValue
+    var intMax: Long       = Long.MaxValue
+    var intInc: Long       = 1
+    var floatMin: Double   = Double.NegativeInfinity
+    var floatMax: Double   = Double.PositiveInfinity
+
+    /** Features of a category node. */
+    val features: mutable.ArrayBuffer[Node] = mutable.ArrayBuffer.empty
+
+    /** Features selected by a selector node. */
+    val selected: mutable.ArrayBuffer[Node] = mutable.ArrayBuffer.empty
+  }
+}
+
+/**
+ * In-memory nodemap, for testing and benchmarking code that uses `NodeMapOps`, `NodeTreeOps`, or `NodeLimitsOps`
+ * without a camera.
+ *
+ * Counts node lookups, value writes, and command executions, so tests can check how many of them were made.
+ * Dependencies between nodes, for instance, a node that is writable only for some value of another node,
+ * can be simulated in `onWrite`.
+ */
+class StubNodeMapOps extends NodeTreeOps[Node] with NodeLimitsOps[Node] {
+
+  private val nodes = mutable.HashMap.empty[String, Node]
+
+  /** Number of calls to `getNode`. */
+  var lookups: Long = 0
+
+  /** Number of values set. */
+  var writes: Long = 0
+
+  /** Number of commands executed. */
+  var commands: Long = 0
+
+  /** Time each write takes, to simulate writing camera registers. */
+  var writeNanos: Long = 0
+
+  /** Called after a value of a node is set or a command is executed. */
+  var onWrite: Node => Unit = _ => ()
+
+  def add(node: Node): Node = {
+    nodes(node.name) = node
+    node
+  }
+
+  def addInteger(name: String, value: Long): Node = {
+    val n = add(new Node(name, NodeKind.Integer))
+    n.intValue = value
+    n
+  }
+
+  def addInteger(name: String, value: Long, min: Long, max: Long, inc: Long): Node = {
+    val n = addInteger(name, value)
+    n.intMin = min
+    n.intMax = max
+    n.intInc = inc
+    n
+  }
+
+  def addFloat(name: String, value: Double): Node = {
+    val n = add(new Node(name, NodeKind.Float))
+    n.floatValue = value
+    n
+  }
+
+  def addFloat(name: String, value: Double, min: Double, max: Double): Node = {
+    val n = addFloat(name, value)
+    n.floatMin = min
+    n.floatMax = max
+    n
+  }
+
+  def addBoolean(name: String, value: Boolean): Node = {
+    val n = add(new Node(name, NodeKind.Boolean))
+    n.intValue = if value then 1 else 0
+    n
+  }
+
+  def addEnumeration(name: String, entries: (String, Long)*): Node = {
+    val n = add(new Node(name, NodeKind.Enumeration, entries.toMap))
+    n.intValue = entries.head._2
+    n
+  }
+
+  def addCommand(name: String): Node = add(new Node(name, NodeKind.Other))
+
+  def addCategory(name: String, features: Node*): Node = {
+    val n = add(new Node(name, NodeKind.Category))
+    n.features ++= features
+    n
+  }
+
+  /** Node by name, for inspecting the state after test. */
+  def apply(name: String): Node = nodes(name)
+
+  override def getNode(name: BytePointer): Node = {
+    lookups += 1
+    val s = name.getString
+    nodes.getOrElse(
+      s,
+      throw new SpinnakerSDKException(s"Unable to retrieve node '$s'.", spinError.SPINNAKER_ERR_NOT_AVAILABLE)
+    )
+  }
+
+  override def releaseNode(node: Node): Unit = {}
+
+  override def enumEntryValue(node: Node, entryName: BytePointer): Long = {
+    val s = entryName.getString
+    node.entries.getOrElse(
+      s,
+      throw new SpinnakerSDKException(
+        s"Unable to get entry '$s' of node '${node.name}'.",
+        spinError.SPINNAKER_ERR_NOT_AVAILABLE
+      )
+    )
+  }
+
+  override def isReadable(node: Node): Boolean = node.readable
+
+  override def isWritable(node: Node): Boolean = node.writable
+
+  override def getInteger(node: Node): Long = read(node).intValue
+
+  override def setInteger(node: Node, value: Long): Unit = {
+    if (value < node.intMin || value > node.intMax || (value - node.intMin) % node.intInc != 0)
+      outOfRange(node, value)
+    write(node).intValue = value
+    onWrite(node)
+  }
+
+  override def getFloat(node: Node): Double = read(node).floatValue
+
+  override def setFloat(node: Node, value: Double): Unit = {
+    if (value < node.floatMin || value > node.floatMax) outOfRange(node, value)
+    write(node).floatValue = value
+    onWrite(node)
+  }
+
+  override def getBoolean(node: Node): Boolean = read(node).intValue != 0
+
+  override def setBoolean(node: Node, value: Boolean): Unit = {
+    write(node).intValue = if value then 1 else 0
+    onWrite(node)
+  }
+
+  override def setEnumeration(node: Node, value: Long): Unit = {
+    write(node).intValue = value
+    onWrite(node)
+  }
+
+  override def nodeName(node: Node): String = node.name
+
+  override def nodeKind(node: Node): NodeKind = node.kind
+
+  override def features(category: Node): IndexedSeq[Node] = category.features.toIndexedSeq
+
+  override def selectedFeatures(node: Node): IndexedSeq[Node] = node.selected.toIndexedSeq
+
+  override def getEnumerationEntry(node: Node): String = {
+    val value = read(node).intValue
+    node.entries.collectFirst { case (entry, v) if v == value => entry }.getOrElse(
+      throw new SpinnakerSDKException(
+        s"Node '${node.name}' has no entry with value $value.",
+        spinError.SPINNAKER_ERR_NOT_AVAILABLE
+      )
+    )
+  }
+
+  override def getIntegerMin(node: Node): Long = read(node).intMin
+
+  override def getIntegerMax(node: Node): Long = read(node).intMax
+
+  override def getIntegerInc(node: Node): Long = read(node).intInc
+
+  override def getFloatMin(node: Node): Double = read(node).floatMin
+
+  override def getFloatMax(node: Node): Double = read(node).floatMax
+
+  override def getEnumeration(node: Node): Long = read(node).intValue
+
+  override def execute(node: Node): Unit = {
+    if (!node.writable)
+      throw new SpinnakerSDKException(s"Node '${node.name}' is not writable", spinError.SPINNAKER_ERR_ACCESS_DENIED)
+    commands += 1
+    if (writeNanos > 0) LockSupport.parkNanos(writeNanos)
+    onWrite(node)
+  }
+
+  private def outOfRange(node: Node, value: Any): Nothing =
+    throw new SpinnakerSDKException(
+      s"Value $value of node '${node.name}' is out of range",
+      spinError.SPINNAKER_ERR_OUT_OF_RANGE
+    )
+
+  private def read(node: Node): Node = {
+    if (!node.readable)
+      throw new SpinnakerSDKException(s"Node '${node.name}' is not readable", spinError.SPINNAKER_ERR_ACCESS_DENIED)
+    node
+  }
+
+  private def write(node: Node): Node = {
+    if (!node.writable)
+      throw new SpinnakerSDKException(s"Node '${node.name}' is not writable", spinError.SPINNAKER_ERR_ACCESS_DENIED)
+    writes += 1
+    if (writeNanos > 0) LockSupport.parkNanos(writeNanos)
+    node
+  }
+}
@@ -0,0 +1,37 @@
+package spinnaker_c.opencv
+
+import org.bytedeco.opencv.opencv_core.Mat
+import spinnaker_c.acquisition.FrameHeader
+
+/**
+ * OpenCV `Mat` that refers to image data owned by someone else, for instance, a camera buffer of a `spinImage`,
+ * see `SpinImageMats`.
+ *
+ * `close()` deallocates the `Mat` header and then calls `release`, which returns the data to its owner,
+ * for a camera image that is `spinImageRelease`. After that `mat` cannot be used, any `Mat` created from it without
+ * copying, like a region of interest, must not be used either. Use `MatPool.copy` for frames that must outlive
+ * the image.
+ *
+ * @param header  image properties
+ * @param release called once, when closed
+ */
+final class ImageMat(val header: FrameHeader, _mat: Mat, release: () => Unit) extends AutoCloseable {
+
+  private var released = false
+
+  /** Image as a `Mat`, valid until closed. */
+  def mat: Mat = {
+    if (released) throw new IllegalStateException(s"Image ${header.frameId} was already released")
+    _mat
+  }
+
+  def isReleased: Boolean = released
+
+  override def close(): Unit = {
+    if (!released) {
+      released = true
+      try _mat.close()
+      finally release()
+    }
+  }
+}
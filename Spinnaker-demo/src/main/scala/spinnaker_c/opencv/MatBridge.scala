@@ -0,0 +1,73 @@
+package spinnaker_c.opencv
+
+import org.bytedeco.javacpp.Pointer
+import org.bytedeco.opencv.global.opencv_core.{CV_16UC1, CV_8UC1, CV_8UC3, CV_8UC4}
+import org.bytedeco.opencv.opencv_core.Mat
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums
+import spinnaker_c.acquisition.FrameHeader
+
+/**
+ * Wraps image data as OpenCV `Mat` without copying.
+ *
+ * Channel order of the `Mat` is the order of the pixel format, OpenCV functions assume BGR, so `RGB8` images need
+ * `cvtColor` with `COLOR_RGB2BGR` for correct colors. Bayer images are wrapped as single channel raw data,
+ * they can be demosaiced with `cvtColor`. Packed formats, like `Mono12p`, are not supported.
+ */
+object MatBridge {
+
+  // Spinnaker pixel format -> (OpenCV type, bytes per pixel)
+  private val cvTypes = Map(
+    spinPixelFormatEnums.PixelFormat_Mono8.value     -> (CV_8UC1, 1),
+    spinPixelFormatEnums.PixelFormat_Mono10.value    -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_Mono12.value    -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_Mono14.value    -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_Mono16.value    -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_RGB8.value      -> (CV_8UC3, 3),
+    spinPixelFormatEnums.PixelFormat_BGR8.value      -> (CV_8UC3, 3),
+    spinPixelFormatEnums.PixelFormat_RGBa8.value     -> (CV_8UC4, 4),
+    spinPixelFormatEnums.PixelFormat_BGRa8.value     -> (CV_8UC4, 4),
+    spinPixelFormatEnums.PixelFormat_BayerRG8.value  -> (CV_8UC1, 1),
+    spinPixelFormatEnums.PixelFormat_BayerGB8.value  -> (CV_8UC1, 1),
+    spinPixelFormatEnums.PixelFormat_BayerGR8.value  -> (CV_8UC1, 1),
+    spinPixelFormatEnums.PixelFormat_BayerBG8.value  -> (CV_8UC1, 1),
+    spinPixelFormatEnums.PixelFormat_BayerRG16.value -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_BayerGB16.value -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_BayerGR16.value -> (CV_16UC1, 2),
+    spinPixelFormatEnums.PixelFormat_BayerBG16.value -> (CV_16UC1, 2)
+  )
+
+  def isSupported(pixelFormat: Int): Boolean = cvTypes.contains(pixelFormat)
+
+  /** OpenCV type of `Mat` for a Spinnaker pixel format, for instance, `CV_8UC1` for `Mono8`. */
+  def cvType(pixelFormat: Int): Int = cvTypeAndSize(pixelFormat)._1
+
+  /** Bytes per pixel of a supported Spinnaker pixel format. */
+  def bytesPerPixel(pixelFormat: Int): Int = cvTypeAndSize(pixelFormat)._2
+
+  /**
+   * `Mat` that refers to `data`, pixel data is not copied.
+   * The `Mat` does not own the data, it is valid only as long as `data` is, the same applies to any `Mat`
+   * created from it without copying, like a region of interest.
+   *
+   * @param data   first byte of pixel data, at least `header.stride * header.height` bytes
+   * @param header image size, stride in bytes, and pixel format
+   */
+  def wrap(data: Pointer, header: FrameHeader): Mat = {
+    val (t, pixelBytes) = cvTypeAndSize(header.pixelFormat)
+    require(!data.isNull, "Image data is null")
+    require(
+      header.width > 0 && header.height > 0,
+      s"Image size has to be positive, got ${header.width}x${header.height}"
+    )
+    val rowBytes = header.width.toLong * pixelBytes
+    require(header.stride >= rowBytes, s"Stride ${header.stride} is smaller than row size $rowBytes")
+    require(
+      header.size.toLong >= header.stride.toLong * header.height,
+      s"Image data size ${header.size} is smaller than stride * height ${header.stride.toLong * header.height}"
+    )
+    new Mat(header.height, header.width, t, data, header.stride.toLong)
+  }
+
+  private def cvTypeAndSize(pixelFormat: Int): (Int, Int) =
+    cvTypes.getOrElse(pixelFormat, throw new IllegalArgumentException(s"Unsupported pixel format: $pixelFormat"))
+}
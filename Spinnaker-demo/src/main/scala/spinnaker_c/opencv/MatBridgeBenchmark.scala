@@ -0,0 +1,117 @@
+package spinnaker_c.opencv
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.opencv.global.opencv_core.{CV_8UC1, CV_8UC3}
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums
+import spinnaker_c.acquisition.FrameHeader
+
+import scala.util.Try
+
+/**
+ * Checks and benchmark of `MatBridge`, `ImageMat`, and `MatPool` with a synthetic native image buffer,
+ * no camera is needed.
+ *
+ * The buffer has rows padded beyond the image width, as camera buffers can have. The checks verify that the wrapped
+ * `Mat` refers to the buffer without copying and respects the stride, that a pooled copy is independent of
+ * the buffer, and that a released image cannot be used. The benchmark compares time per frame of wrapping an image
+ * and of making a pooled copy.
+ *
+ * Usage:
+ * {{{
+ *   MatBridgeBenchmark [width] [height] [iterations]
+ * }}}
+ */
+object MatBridgeBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val width      = if (args.length > 0) args(0).toInt else 1440
+    val height     = if (args.length > 1) args(1).toInt else 1080
+    val iterations = if (args.length > 2) args(2).toInt else 1000
+
+    val stride = width + 64
+    val buffer = new BytePointer(stride.toLong * height)
+    for (y <- 0 until height; x <- 0 until stride) buffer.put(y.toLong * stride + x, pixel(x, y, width))
+    val header = FrameHeader(
+      width = width,
+      height = height,
+      stride = stride,
+      pixelFormat = spinPixelFormatEnums.PixelFormat_Mono8.value,
+      frameId = 1,
+      timestamp = 0,
+      size = stride * height
+    )
+
+    val pool = new MatPool(capacity = 2)
+    try {
+      runChecks(buffer, header, pool)
+      println()
+      runBenchmark(buffer, header, pool, iterations)
+    } finally {
+      pool.close()
+      buffer.close()
+    }
+  }
+
+  // Gradient in the image, 0xEE in the row padding
+  private def pixel(x: Int, y: Int, width: Int): Byte = if (x < width) ((x + 3 * y) & 0xff).toByte else 0xee.toByte
+
+  private def runChecks(buffer: BytePointer, header: FrameHeader, pool: MatPool): Unit = {
+    def report(name: String, ok: Boolean): Unit = println(f"${if ok then "OK" else "FAILED"}%-7s $name")
+
+    report("Mono8 is CV_8UC1", MatBridge.cvType(spinPixelFormatEnums.PixelFormat_Mono8.value) == CV_8UC1)
+    report("RGB8 is CV_8UC3", MatBridge.cvType(spinPixelFormatEnums.PixelFormat_RGB8.value) == CV_8UC3)
+    report(
+      "packed Mono12p is rejected",
+      Try(MatBridge.cvType(spinPixelFormatEnums.PixelFormat_Mono12p.value)).isFailure
+    )
+    report("stride smaller than row is rejected", Try(MatBridge.wrap(buffer, header.copy(stride = 1))).isFailure)
+
+    var released = false
+    val image    = new ImageMat(header, MatBridge.wrap(buffer, header), () => released = true)
+    val mat      = image.mat
+    report("Mat refers to the buffer", mat.data().address() == buffer.address())
+    report("Mat size", mat.cols() == header.width && mat.rows() == header.height)
+    report("Mat row step is the stride", mat.ptr(1).address() - mat.ptr(0).address() == header.stride)
+
+    val points = Seq((0, 0), (header.width - 1, 0), (0, header.height - 1), (header.width - 1, header.height - 1))
+    report("pixel values", points.forall((x, y) => mat.ptr(y, x).get() == pixel(x, y, header.width)))
+
+    val copy = pool.copy(image)
+    report("copy has continuous rows", copy.mat.isContinuous && copy.header.stride == header.width)
+    buffer.put(0L, 42.toByte)
+    report("change of the buffer is seen by the Mat", mat.ptr(0, 0).get() == 42)
+    report("copy is independent of the buffer", copy.mat.ptr(0, 0).get() == pixel(0, 0, header.width))
+    buffer.put(0L, pixel(0, 0, header.width))
+    copy.close()
+
+    image.close()
+    report("close releases the image", released)
+    report("released image cannot be used", Try(image.mat).isFailure)
+  }
+
+  private def runBenchmark(buffer: BytePointer, header: FrameHeader, pool: MatPool, iterations: Int): Unit = {
+    val mb = header.width.toLong * header.height / 1e6
+    println(f"${header.width}x${header.height} Mono8, stride ${header.stride}, $iterations iterations")
+    println(f"${"operation"}%12s ${"us/frame"}%10s ${"MB/s"}%10s")
+    for (round <- 1 to 2) {
+      val t0 = System.nanoTime()
+      for (_ <- 0 until iterations) new ImageMat(header, MatBridge.wrap(buffer, header), () => ()).close()
+      val wrapMicros = (System.nanoTime() - t0) / 1e3 / iterations
+
+      val t1 = System.nanoTime()
+      for (_ <- 0 until iterations) {
+        val image = new ImageMat(header, MatBridge.wrap(buffer, header), () => ())
+        try pool.copy(image).close()
+        finally image.close()
+      }
+      val copyMicros = (System.nanoTime() - t1) / 1e3 / iterations
+
+      // First round is a warm-up
+      if (round > 1) {
+        println(f"${"wrap"}%12s $wrapMicros%10.2f ${"-"}%10s")
+        println(f"${"pooled copy"}%12s $copyMicros%10.2f ${mb / copyMicros * 1e6}%10.0f")
+        println(s"Mats allocated by the pool: ${pool.allocated}")
+      }
+    }
+  }
+}
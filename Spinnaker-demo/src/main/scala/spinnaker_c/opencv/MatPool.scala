@@ -0,0 +1,77 @@
+package spinnaker_c.opencv
+
+import org.bytedeco.opencv.opencv_core.Mat
+import spinnaker_c.acquisition.FrameHeader
+
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * `Mat` copied from a `MatPool`, for frames that must outlive the camera buffer.
+ * `close()` returns the `Mat` to the pool, `mat` cannot be used after that.
+ */
+final class PooledMat private[opencv] (val header: FrameHeader, _mat: Mat, pool: MatPool) extends AutoCloseable {
+
+  private var returned = false
+
+  def mat: Mat = {
+    if (returned) throw new IllegalStateException(s"Image ${header.frameId} was already returned to the pool")
+    _mat
+  }
+
+  override def close(): Unit = {
+    if (!returned) {
+      returned = true
+      pool.release(_mat)
+    }
+  }
+}
+
+/**
+ * Pool of `Mat`s for copies of images, so copying a frame does not allocate memory once the pool is warm.
+ *
+ * A `Mat` returned to the pool is reused for a copy of the same size and type, a `Mat` of a different size or type is
+ * reallocated. When more than `capacity` copies are returned, the extra `Mat`s are deallocated.
+ * Thread safe, copies can be made on one thread and closed on another.
+ *
+ * @param capacity maximum number of `Mat`s kept for reuse
+ */
+class MatPool(capacity: Int = 8) extends AutoCloseable {
+  require(capacity > 0, s"Capacity has to be positive, got $capacity")
+
+  private val free = new ArrayBlockingQueue[Mat](capacity)
+
+  private val _allocated = new AtomicLong()
+
+  /** Number of `Mat`s allocated by the pool, stays constant when copies are returned and reused. */
+  def allocated: Long = _allocated.get()
+
+  /** Copy of an image, the copy has continuous rows, without stride padding. */
+  def copy(image: ImageMat): PooledMat = copy(image.mat, image.header)
+
+  /** Copy of `src`, `header` describes the image, its stride is updated to the copy row size. */
+  def copy(src: Mat, header: FrameHeader): PooledMat = {
+    var dst = free.poll()
+    if (dst != null && (dst.rows() != src.rows() || dst.cols() != src.cols() || dst.`type`() != src.`type`())) {
+      dst.close()
+      dst = null
+    }
+    if (dst == null) {
+      dst = new Mat(src.rows(), src.cols(), src.`type`())
+      _allocated.incrementAndGet()
+    }
+    src.copyTo(dst)
+    val stride = dst.cols() * dst.elemSize()
+    new PooledMat(header.copy(stride = stride.toInt, size = (stride * dst.rows()).toInt), dst, this)
+  }
+
+  private[opencv] def release(mat: Mat): Unit = if (!free.offer(mat)) mat.close()
+
+  override def close(): Unit = {
+    var m = free.poll()
+    while (m != null) {
+      m.close()
+      m = free.poll()
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package spinnaker_c.opencv
+
+import org.bytedeco.javacpp.{IntPointer, LongPointer, Pointer, SizeTPointer}
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.helpers.*
+
+/**
+ * Wraps Spinnaker images as OpenCV `Mat` without copying pixel data.
+ *
+ * Pointers used to read image properties are allocated once and reused for each image.
+ * Not thread safe, images can be wrapped on one thread and their `ImageMat` closed on another.
+ */
+class SpinImageMats extends AutoCloseable {
+
+  private val pData        = new Pointer()
+  private val pSize        = new SizeTPointer(1L)
+  private val pWidth       = new SizeTPointer(1L)
+  private val pHeight      = new SizeTPointer(1L)
+  private val pStride      = new SizeTPointer(1L)
+  private val pPixelFormat = new IntPointer(1L)
+  private val pFrameId     = new LongPointer(1L)
+  private val pTimestamp   = new LongPointer(1L)
+
+  /**
+   * Wrap image data as a `Mat`.
+   *
+   * The image is released by `ImageMat.close()` with `release`, the `spinImage` handle can be reused after that.
+   * If wrapping fails, the image is released right away.
+   *
+   * @param hImage  image retrieved from a camera, or created or converted
+   * @param release `spinImageRelease` for images retrieved from a camera, `spinImageDestroy` for images created with
+   *                `spinImageCreate*` or converted with an image processor
+   */
+  def wrap(hImage: spinImage, release: spinImage => spinError = spinImageRelease): ImageMat = {
+    var mat: ImageMat = null
+    try {
+      check(spinImageGetWidth(hImage, pWidth), "spinImageGetWidth()")
+      check(spinImageGetHeight(hImage, pHeight), "spinImageGetHeight()")
+      check(spinImageGetStride(hImage, pStride), "spinImageGetStride()")
+      check(spinImageGetPixelFormat(hImage, pPixelFormat), "spinImageGetPixelFormat()")
+      check(spinImageGetFrameID(hImage, pFrameId), "spinImageGetFrameID()")
+      check(spinImageGetTimeStamp(hImage, pTimestamp), "spinImageGetTimeStamp()")
+      check(spinImageGetBufferSize(hImage, pSize), "spinImageGetBufferSize()")
+      check(spinImageGetData(hImage, pData), "spinImageGetData()")
+
+      val header = FrameHeader(
+        width = pWidth.get().toInt,
+        height = pHeight.get().toInt,
+        stride = pStride.get().toInt,
+        pixelFormat = pPixelFormat.get(),
+        frameId = pFrameId.get(),
+        timestamp = pTimestamp.get(),
+        size = pSize.get().toInt
+      )
+      // `pData` is reused for the next image, the `Mat` gets its own pointer to the data
+      mat = new ImageMat(
+        header,
+        MatBridge.wrap(new Pointer(pData), header),
+        () => printOnError(release(hImage), "Unable to release image.")
+      )
+      mat
+    } finally {
+      if (mat == null) printOnError(release(hImage), "Unable to release image.")
+    }
+  }
+
+  override def close(): Unit =
+    Seq(pData, pSize, pWidth, pHeight, pStride, pPixelFormat, pFrameId, pTimestamp).foreach(_.close())
+}
@@ -0,0 +1,133 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.chunks.{ChunkField, ChunkValues}
+import spinnaker_c.recording.AsyncRawFrameWriter.Slot
+
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.{ArrayBlockingQueue, TimeUnit}
+import scala.util.control.NonFatal
+
+object AsyncRawFrameWriter {
+
+  private final class Slot(val data: ByteBuffer, val chunkBits: Array[Long]) {
+    var header: FrameHeader = null
+  }
+}
+
+/**
+ * Writes raw frames with `RawFrameWriter` on a dedicated writer thread, so acquisition is not blocked by writing.
+ *
+ * `offer` copies the frame data and chunk values to a buffer from a preallocated pool and returns right away,
+ * for a camera image it can be released as soon as `offer` returns. The writer thread takes frames from the queue
+ * in batches of up to `maxBatch` and appends them to the segment files. If writing cannot keep up and all buffers
+ * are in use, new frames are dropped and counted in `dropped`.
+ *
+ * The writer thread is started when created, `close()` writes frames remaining in the queue and closes the `writer`.
+ *
+ * @param writer        segment file writer, used only by the writer thread
+ * @param maxFrameSize  maximum frame data size in bytes
+ * @param queueCapacity maximum number of frames waiting to be written
+ * @param maxBatch      maximum number of frames taken from the queue at once
+ */
+class AsyncRawFrameWriter(writer: RawFrameWriter, maxFrameSize: Int, queueCapacity: Int = 32, maxBatch: Int = 8)
+    extends AutoCloseable {
+  require(queueCapacity > 0, s"Queue capacity has to be positive, got $queueCapacity")
+  require(maxBatch > 0, s"Maximum batch size has to be positive, got $maxBatch")
+
+  private val kinds = writer.fields.map(_.kind).toArray
+  private val pool  = new ArrayBlockingQueue[Slot](queueCapacity)
+  private val queue = new ArrayBlockingQueue[Slot](queueCapacity)
+  for (_ <- 0 until queueCapacity) pool.put(new Slot(ByteBuffer.allocateDirect(maxFrameSize), new Array(kinds.length)))
+
+  private val offered = new AtomicLong()
+  private val dropped = new AtomicLong()
+  private val failed  = new AtomicLong()
+  private val batches = new AtomicLong()
+
+  @volatile private var running = true
+
+  private val thread = new Thread(() => writeLoop(), "raw-frame-writer")
+  thread.start()
+
+  /** Frames passed to `offer`. */
+  def framesOffered: Long = offered.get()
+
+  /** Frames dropped because all buffers were in use. */
+  def framesDropped: Long = dropped.get()
+
+  /** Frames that could not be written because of an error. */
+  def framesFailed: Long = failed.get()
+
+  /** Number of batches taken from the queue by the writer thread. */
+  def batchCount: Long = batches.get()
+
+  /** Frames waiting to be written. */
+  def queued: Int = queue.size()
+
+  /**
+   * Queue a copy of a frame for writing.
+   *
+   * @param data   pixel data, `header.size` bytes from the buffer position, the position is not changed
+   * @param chunks chunk values of the writer fields, `null` to store zeros
+   * @return `false` if the frame was dropped
+   */
+  def offer(header: FrameHeader, data: ByteBuffer, chunks: ChunkValues = null): Boolean = {
+    require(running, "Writer closed")
+    require(header.size <= maxFrameSize, s"Frame size ${header.size} > maximum $maxFrameSize")
+    offered.incrementAndGet()
+    val slot = pool.poll()
+    if (slot == null) {
+      dropped.incrementAndGet()
+      false
+    } else {
+      slot.header = header
+      slot.data.clear()
+      slot.data.put(0, data, data.position(), header.size)
+      for (i <- kinds.indices)
+        slot.chunkBits(i) =
+          if (chunks == null) 0L
+          else if (kinds(i) == ChunkField.Kind.Integer) chunks.intValue(i)
+          else java.lang.Double.doubleToRawLongBits(chunks.floatValue(i))
+      queue.put(slot)
+      true
+    }
+  }
+
+  /** Write frames remaining in the queue, stop the writer thread, and close the writer. */
+  override def close(): Unit = {
+    if (running) {
+      running = false
+      try {
+        thread.join()
+      } finally {
+        writer.close()
+      }
+    }
+  }
+
+  private def writeLoop(): Unit = {
+    val batch = new java.util.ArrayList[Slot](maxBatch)
+    while (running || !queue.isEmpty) {
+      val first = queue.poll(100, TimeUnit.MILLISECONDS)
+      if (first != null) {
+        batch.add(first)
+        queue.drainTo(batch, maxBatch - 1)
+        batches.incrementAndGet()
+        batch.forEach { slot =>
+          try {
+            writer.writeRecord(slot.header, slot.data, slot.chunkBits)
+          } catch {
+            case NonFatal(ex) =>
+              failed.incrementAndGet()
+              println(s"Failed to write frame ${slot.header.frameId}: ${ex.getMessage}")
+          } finally {
+            pool.offer(slot)
+          }
+        }
+        batch.clear()
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package spinnaker_c.recording
+
+import org.bytedeco.ffmpeg.global.avcodec.AV_CODEC_ID_MJPEG
+import org.bytedeco.ffmpeg.global.avutil.{AV_PIX_FMT_BGR24, AV_PIX_FMT_GRAY8, AV_PIX_FMT_RGB24}
+import org.bytedeco.javacv.{FFmpegFrameRecorder, Frame}
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums
+import spinnaker_c.acquisition.FrameHeader
+
+import java.nio.ByteBuffer
+import java.nio.file.{Path, Paths}
+
+/**
+ * Writes video using JavaCV `FFmpegFrameRecorder`, does not need Spinnaker SDK or a camera,
+ * so recording can be tested offline, for instance, with frames from `SyntheticFrameSource`.
+ *
+ * Frames are encoded directly from the frame buffer, without copying.
+ * Supported pixel formats are `Mono8`, `RGB8`, and `BGR8`.
+ *
+ * @param format       container format, also used as file extension, for instance, "avi", "mkv", or "mp4"
+ * @param videoCodec   FFmpeg codec ID, for instance, `AV_CODEC_ID_MJPEG` or `AV_CODEC_ID_H264`
+ * @param videoQuality codec quality, lower is better, negative to use codec default
+ */
+class FFmpegVideoBackend(
+  format: String = "avi",
+  videoCodec: Int = AV_CODEC_ID_MJPEG,
+  videoQuality: Double = -1
+) extends VideoBackend {
+
+  // Spinnaker pixel format -> (number of channels, FFmpeg pixel format)
+  private val pixelFormats = Map(
+    spinPixelFormatEnums.PixelFormat_Mono8.value -> (1, AV_PIX_FMT_GRAY8),
+    spinPixelFormatEnums.PixelFormat_RGB8.value  -> (3, AV_PIX_FMT_RGB24),
+    spinPixelFormatEnums.PixelFormat_BGR8.value  -> (3, AV_PIX_FMT_BGR24)
+  )
+
+  private var recorder: FFmpegFrameRecorder = null
+
+  override def open(name: String, header: FrameHeader, frameRate: Double): Path = {
+    require(recorder == null, "Previous segment was not closed")
+    val path = Paths.get(s"$name.$format")
+    val r    = new FFmpegFrameRecorder(path.toFile, header.width, header.height, 0)
+    r.setFormat(format)
+    r.setVideoCodec(videoCodec)
+    r.setFrameRate(frameRate)
+    if (videoQuality >= 0) r.setVideoQuality(videoQuality)
+    r.start()
+    recorder = r
+    path
+  }
+
+  override def append(header: FrameHeader, data: ByteBuffer): Unit = {
+    val (channels, pixelFormat) = pixelFormats.getOrElse(
+      header.pixelFormat,
+      throw new IllegalArgumentException(s"Unsupported pixel format: ${header.pixelFormat}")
+    )
+    recorder.recordImage(header.width, header.height, Frame.DEPTH_UBYTE, channels, header.stride, pixelFormat, data)
+  }
+
+  override def closeSegment(): Unit = {
+    if (recorder != null) {
+      try {
+        recorder.close()
+      } finally {
+        recorder = null
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package spinnaker_c.recording
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.opencv.global.opencv_imgcodecs.imwrite
+import org.bytedeco.opencv.global.opencv_imgproc.{COLOR_RGB2BGR, COLOR_RGBA2BGRA, cvtColor}
+import org.bytedeco.opencv.opencv_core.Mat
+import org.bytedeco.spinnaker.global.Spinnaker_C.spinPixelFormatEnums
+import spinnaker_c.chunks.ChunkField
+import spinnaker_c.opencv.MatBridge
+import spinnaker_c.recording.RawFrameFile.RawFrame
+
+import java.io.IOException
+import java.nio.file.{Files, Path, Paths}
+import scala.util.Using
+
+/**
+ * Exports frames from raw frame segment files written by `RawFrameWriter` to image files, offline, after capture.
+ *
+ * Each frame is saved as `<output dir>/<frame ID>.<format>` with OpenCV `imwrite`, the format is selected by the
+ * extension, for instance, "png" or "jpg". `RGB8` and `RGBa8` frames are converted to OpenCV channel order,
+ * Bayer frames are saved as raw single channel images. Chunk values of the frames are printed.
+ *
+ * Usage:
+ * {{{
+ *   RawFrameExport <output dir> <png|jpg> <segment file>...
+ * }}}
+ */
+object RawFrameExport {
+
+  def main(args: Array[String]): Unit = {
+    if (args.length < 3) {
+      println("Usage: RawFrameExport <output dir> <png|jpg> <segment file>...")
+      sys.exit(1)
+    }
+    val outputDir = Paths.get(args(0))
+    val format    = args(1)
+    Files.createDirectories(outputDir)
+
+    for (file <- args.drop(2).map(Paths.get(_))) {
+      val n = RawFrameFile.read(file)(frame => exportFrame(frame, outputDir, format))
+      println(s"Exported $n frames from $file")
+    }
+  }
+
+  /** Save a frame as an image file, returns the file path. */
+  def exportFrame(frame: RawFrame, outputDir: Path, format: String): Path = {
+    val h    = frame.header
+    val path = outputDir.resolve(s"${h.frameId}.$format")
+    val conversion =
+      if (h.pixelFormat == spinPixelFormatEnums.PixelFormat_RGB8.value) Some(COLOR_RGB2BGR)
+      else if (h.pixelFormat == spinPixelFormatEnums.PixelFormat_RGBa8.value) Some(COLOR_RGBA2BGRA)
+      else None
+
+    // `data` is a slice of the mapped file, the pointer starts at its first byte
+    Using.Manager { use =>
+      val mat = use(MatBridge.wrap(use(new BytePointer(frame.data)), h))
+      conversion match {
+        case Some(code) =>
+          val bgr = use(new Mat())
+          cvtColor(mat, bgr, code)
+          save(path, bgr)
+        case None =>
+          save(path, mat)
+      }
+    }.get
+
+    val chunks = frame.fields.indices.map { i =>
+      val f = frame.fields(i)
+      f.kind match {
+        case ChunkField.Kind.Integer => s"${f.name}=${frame.intValue(i)}"
+        case ChunkField.Kind.Float   => s"${f.name}=${frame.floatValue(i)}"
+      }
+    }
+    println(s"${h.frameId} ${h.timestamp} ${chunks.mkString(" ")}")
+    path
+  }
+
+  private def save(path: Path, mat: Mat): Unit =
+    if (!imwrite(path.toString, mat)) throw new IOException(s"Unable to save $path")
+}
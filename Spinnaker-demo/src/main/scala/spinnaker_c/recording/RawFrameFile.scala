@@ -0,0 +1,123 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.chunks.{ChunkField, ChunkValues}
+
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Path, StandardOpenOption}
+import scala.util.Using
+
+/**
+ * Format of raw frame segment files written by `RawFrameWriter`.
+ *
+ * A segment starts with a file header: magic "RAWF", version, number of chunk fields, and for each field its name
+ * (length and UTF-8 bytes) and kind. It is followed by frame records, each starting on an 8 byte boundary:
+ * {{{
+ *   magic "FRME", record size, frame ID, timestamp, pixel format, width, height, stride, data size,
+ *   chunk values (8 bytes each, integers or double bits, in the order of fields), pixel data, padding
+ * }}}
+ * Segments are preallocated to a fixed size, the end of records is marked with a zero instead of the record magic.
+ * Values are big-endian.
+ */
+object RawFrameFile {
+
+  private[recording] val Magic       = 0x52415746 // "RAWF"
+  private[recording] val Version     = 1
+  private[recording] val FrameMagic  = 0x46524d45 // "FRME"
+  private[recording] val HeaderBytes = 44
+
+  /**
+   * Frame read from a segment file.
+   *
+   * @param data pixel data, `header.size` bytes, valid only during the call to the function passed to `read`
+   */
+  final class RawFrame(
+    val header: FrameHeader,
+    val fields: IndexedSeq[ChunkField],
+    chunkBits: Array[Long],
+    val data: ByteBuffer
+  ) extends ChunkValues {
+
+    override def frameId: Long = header.frameId
+
+    override def timestamp: Long = header.timestamp
+
+    override def intValue(field: Int): Long = chunkBits(field)
+
+    override def floatValue(field: Int): Double = java.lang.Double.longBitsToDouble(chunkBits(field))
+  }
+
+  /** Size of a frame record, aligned to 8 bytes. */
+  def recordSize(dataSize: Int, nbFields: Int): Int = (HeaderBytes + 8 * nbFields + dataSize + 7) & ~7
+
+  /** Size of a segment file header. */
+  def fileHeaderSize(fields: Seq[ChunkField]): Int =
+    (12 + fields.map(f => 3 + f.name.getBytes(StandardCharsets.UTF_8).length).sum + 7) & ~7
+
+  private[recording] def writeFileHeader(b: ByteBuffer, fields: Seq[ChunkField]): Unit = {
+    b.putInt(Magic)
+    b.putInt(Version)
+    b.putInt(fields.length)
+    for (f <- fields) {
+      val name = f.name.getBytes(StandardCharsets.UTF_8)
+      b.putShort(name.length.toShort)
+      b.put(name)
+      b.put(f.kind.ordinal.toByte)
+    }
+    b.position(fileHeaderSize(fields))
+  }
+
+  /**
+   * Read frames of a segment file in order.
+   *
+   * @param f called for each frame, frame data is only valid during the call
+   * @return number of frames read
+   */
+  def read(file: Path)(f: RawFrame => Unit): Long =
+    Using.resource(FileChannel.open(file, StandardOpenOption.READ)) { channel =>
+      val b = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+      if (b.remaining() < 12 || b.getInt() != Magic) throw new IOException(s"Not a raw frame file: $file")
+      val version = b.getInt()
+      if (version != Version) throw new IOException(s"Unsupported raw frame file version $version: $file")
+      val fields = IndexedSeq.fill(b.getInt()) {
+        val name = new Array[Byte](b.getShort().toInt)
+        b.get(name)
+        ChunkField(new String(name, StandardCharsets.UTF_8), ChunkField.Kind.fromOrdinal(b.get().toInt))
+      }
+      b.position(fileHeaderSize(fields))
+
+      val chunkBits = new Array[Long](fields.length)
+      var frames    = 0L
+      while (b.remaining() >= HeaderBytes && b.getInt(b.position()) == FrameMagic) {
+        val start = b.position()
+        b.getInt()
+        val size = b.getInt()
+        if (size > b.remaining() + 8) throw new IOException(s"Truncated frame record at $start: $file")
+        val frameId     = b.getLong()
+        val timestamp   = b.getLong()
+        val pixelFormat = b.getInt()
+        val width       = b.getInt()
+        val height      = b.getInt()
+        val stride      = b.getInt()
+        val dataSize    = b.getInt()
+        for (i <- chunkBits.indices) chunkBits(i) = b.getLong()
+        val data = b.slice(b.position(), dataSize)
+        val header = FrameHeader(
+          width = width,
+          height = height,
+          stride = stride,
+          pixelFormat = pixelFormat,
+          frameId = frameId,
+          timestamp = timestamp,
+          size = dataSize
+        )
+        f(new RawFrame(header, fields, chunkBits, data))
+        frames += 1
+        b.position(start + size)
+      }
+      frames
+    }
+}
@@ -0,0 +1,140 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.AcquisitionEngine.Frame
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.chunks.{ChunkField, ChunkValues}
+import spinnaker_c.recording.RawFrameFile.FrameMagic
+
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, Path, Paths, StandardOpenOption}
+import java.nio.{ByteBuffer, MappedByteBuffer}
+import scala.collection.mutable
+
+/**
+ * Appends raw frames with their header and chunk values to memory-mapped segment files, see `RawFrameFile`
+ * for the format.
+ *
+ * Each segment is preallocated to `segmentBytes` and mapped to memory, writing a frame is a copy to the mapping,
+ * the operating system writes the pages to disk in the background, no system call is made per frame.
+ * A new segment is started when a frame does not fit in the current one. With `maxSegments` set, the oldest
+ * segment is deleted when a new one would exceed it, so the segments form a ring holding the latest frames.
+ * Segment files are named `baseName-0000.raw`, `baseName-0001.raw`, ...
+ *
+ * Not thread safe, frames should be written from a single thread, see `AsyncRawFrameWriter`.
+ *
+ * @param baseName     segment file name prefix, may include a directory
+ * @param fields       chunk values stored with each frame
+ * @param segmentBytes size of a segment file, it has to fit at least one frame
+ * @param maxSegments  maximum number of segment files kept, 0 for no limit
+ */
+class RawFrameWriter(
+  baseName: String,
+  val fields: Seq[ChunkField] = Seq.empty,
+  segmentBytes: Int = 256 << 20,
+  maxSegments: Int = 0
+) extends AutoCloseable {
+  require(maxSegments >= 0, s"Maximum number of segments cannot be negative, got $maxSegments")
+  require(segmentBytes > RawFrameFile.fileHeaderSize(fields) + 4, s"Segment size $segmentBytes is too small")
+
+  private val _segments = mutable.Queue.empty[Path]
+  private val kinds     = fields.map(_.kind).toArray
+  private val chunkBits = new Array[Long](kinds.length)
+
+  private var channel: FileChannel     = null
+  private var mapped: MappedByteBuffer = null
+  private var segmentIndex             = 0
+  private var _framesWritten           = 0L
+  private var _bytesWritten            = 0L
+
+  /** Segment files kept, the last one may still be open. */
+  def segments: Seq[Path] = _segments.toSeq
+
+  def framesWritten: Long = _framesWritten
+
+  /** Bytes of frame records written, including headers. */
+  def bytesWritten: Long = _bytesWritten
+
+  /** Append a frame, can be used directly as `AcquisitionEngine` processing function, chunk values are zero. */
+  def write(frame: Frame): Unit = write(frame.header, frame.data, null)
+
+  /**
+   * Append a frame.
+   *
+   * @param data   pixel data, `header.size` bytes from the buffer position, the position is not changed
+   * @param chunks chunk values of `fields`, `null` to store zeros
+   */
+  def write(header: FrameHeader, data: ByteBuffer, chunks: ChunkValues): Unit = {
+    if (chunks == null) java.util.Arrays.fill(chunkBits, 0L)
+    else
+      for (i <- kinds.indices)
+        chunkBits(i) = kinds(i) match {
+          case ChunkField.Kind.Integer => chunks.intValue(i)
+          case ChunkField.Kind.Float   => java.lang.Double.doubleToRawLongBits(chunks.floatValue(i))
+        }
+    writeRecord(header, data, chunkBits)
+  }
+
+  /** Append a frame with chunk values already encoded as 8 byte values. */
+  private[recording] def writeRecord(header: FrameHeader, data: ByteBuffer, chunkBits: Array[Long]): Unit = {
+    val size = RawFrameFile.recordSize(header.size, kinds.length)
+    // Room for the end marker after the record
+    if (mapped != null && mapped.remaining() < size + 4) closeSegment()
+    if (mapped == null) openSegment(size)
+
+    val start = mapped.position()
+    mapped
+      .putInt(FrameMagic)
+      .putInt(size)
+      .putLong(header.frameId)
+      .putLong(header.timestamp)
+      .putInt(header.pixelFormat)
+      .putInt(header.width)
+      .putInt(header.height)
+      .putInt(header.stride)
+      .putInt(header.size)
+    for (i <- kinds.indices) mapped.putLong(chunkBits(i))
+    mapped.put(mapped.position(), data, data.position(), header.size)
+    mapped.position(start + size)
+
+    _framesWritten += 1
+    _bytesWritten += size
+  }
+
+  override def close(): Unit = closeSegment()
+
+  private def openSegment(recordSize: Int): Unit = {
+    val headerSize = RawFrameFile.fileHeaderSize(fields)
+    require(
+      headerSize + recordSize + 4 <= segmentBytes,
+      s"Frame record of $recordSize bytes does not fit in a segment of $segmentBytes bytes"
+    )
+    if (maxSegments > 0 && _segments.length >= maxSegments) Files.deleteIfExists(_segments.dequeue())
+
+    val path = Paths.get(f"$baseName-$segmentIndex%04d.raw")
+    segmentIndex += 1
+    channel = FileChannel.open(
+      path,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.READ,
+      StandardOpenOption.WRITE
+    )
+    mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes)
+    RawFrameFile.writeFileHeader(mapped, fields)
+    _segments += path
+  }
+
+  private def closeSegment(): Unit = {
+    if (mapped != null) {
+      try {
+        mapped.putInt(0)
+        mapped.force()
+      } finally {
+        // The mapping is released when garbage collected
+        mapped = null
+        channel.close()
+        channel = null
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package spinnaker_c.recording
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.spinnaker.Spinnaker_C.spinImage
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.{FrameHeader, SyntheticFrameSource}
+import spinnaker_c.chunks.{ChunkField, SyntheticChunkSource}
+import spinnaker_c.helpers.*
+
+import java.nio.ByteBuffer
+import java.nio.file.{Files, Path}
+import java.util.Comparator
+import scala.util.Using
+
+/**
+ * Throughput of `AsyncRawFrameWriter` compared with saving each frame as JPEG with `spinImageSave`,
+ * as `Acquisition_C` does, using `SyntheticFrameSource`, no camera is needed.
+ * The JPEG part uses the Spinnaker library, the raw part does not.
+ *
+ * Frames are produced as fast as they can be consumed, or at the given frame rate. Raw frames, with chunk values from
+ * `SyntheticChunkSource`, are written to a ring of memory-mapped segments. The benchmark reports sustained frames
+ * per second and MB/s of frame data for both, and frames dropped by the raw writer. Afterwards frames are read back
+ * from the segments and a few are exported to PNG with `RawFrameExport`.
+ * Files are written to a temporary directory that is deleted at the end.
+ *
+ * Usage:
+ * {{{
+ *   RawFrameWriterBenchmark [width] [height] [duration in seconds] [fps, 0 for as fast as possible]
+ * }}}
+ */
+object RawFrameWriterBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val width           = if (args.length > 0) args(0).toInt else 1440
+    val height          = if (args.length > 1) args(1).toInt else 1080
+    val durationSeconds = if (args.length > 2) args(2).toDouble else 5
+    val fps             = if (args.length > 3) args(3).toDouble else 0
+
+    val dir = Files.createTempDirectory("RawFrameWriterBenchmark-")
+    try {
+      println(f"Source: ${width}x$height Mono8 at ${if fps > 0 then f"$fps%.1f fps" else "maximum rate"}")
+      println(f"${"writer"}%8s ${"frames"}%8s ${"dropped"}%8s ${"fps"}%8s ${"MB/s"}%8s")
+      val segments = runRaw(dir, width, height, fps, durationSeconds)
+      runJpeg(dir, width, height, fps, durationSeconds)
+      println()
+      verify(dir, segments)
+    } finally {
+      Using.resource(Files.walk(dir))(_.sorted(Comparator.reverseOrder[Path]()).forEach(p => Files.delete(p)))
+    }
+  }
+
+  private def runRaw(dir: Path, width: Int, height: Int, fps: Double, durationSeconds: Double): Seq[Path] = {
+    val source = new SyntheticFrameSource(width, height, fps)
+    val chunks = new SyntheticChunkSource(ChunkField.Default)
+    val buffer = ByteBuffer.allocateDirect(source.maxFrameSize)
+    val writer = new RawFrameWriter(dir.resolve("raw").toString, ChunkField.Default, maxSegments = 4)
+    val async  = new AsyncRawFrameWriter(writer, source.maxFrameSize)
+
+    val (frames, seconds) = run(source, buffer, durationSeconds) { header =>
+      async.offer(header, buffer, chunks.next())
+    }
+    async.close()
+
+    val mbWritten = writer.bytesWritten / 1e6
+    println(
+      f"${"raw"}%8s ${writer.framesWritten}%8d ${async.framesDropped}%8d ${writer.framesWritten / seconds}%8.1f " +
+        f"${mbWritten / seconds}%8.1f"
+    )
+    println(f"  offered $frames frames in ${async.batchCount} batches, ${writer.segments.length} segments kept")
+    writer.segments
+  }
+
+  private def runJpeg(dir: Path, width: Int, height: Int, fps: Double, durationSeconds: Double): Unit =
+    Using.Manager { use =>
+      val source  = new SyntheticFrameSource(width, height, fps)
+      val buffer  = ByteBuffer.allocateDirect(source.maxFrameSize)
+      val pBuffer = use(new BytePointer(buffer))
+      val format  = spinImageFileFormat.SPINNAKER_IMAGE_FILE_FORMAT_JPEG
+
+      val (frames, seconds) = run(source, buffer, durationSeconds) { header =>
+        Using.resources(new spinImage(), new BytePointer(dir.resolve(s"jpeg-${header.frameId}.jpg").toString)) {
+          (hImage, filename) =>
+            try
+              check(
+                spinImageCreateEx(hImage, width, height, 0, 0, spinPixelFormatEnums.PixelFormat_Mono8, pBuffer),
+                "Unable to create image."
+              )
+              check(spinImageSave(hImage, filename, format), "Unable to save image.")
+            finally
+              printOnError(spinImageDestroy(hImage), "Unable to destroy image.")
+        }
+      }
+
+      val mb = frames.toDouble * source.maxFrameSize / 1e6
+      println(f"${"jpeg"}%8s $frames%8d ${"-"}%8s ${frames / seconds}%8.1f ${mb / seconds}%8.1f")
+    }.get
+
+  // Grab frames for `durationSeconds` and pass each to `f`, returns number of frames and elapsed seconds
+  private def run(source: SyntheticFrameSource, buffer: ByteBuffer, durationSeconds: Double)(
+    f: FrameHeader => Unit
+  ): (Long, Double) = {
+    source.start()
+    val t0       = System.nanoTime()
+    val deadline = t0 + (durationSeconds * 1e9).toLong
+    var frames   = 0L
+    while (System.nanoTime() < deadline) {
+      source.grab(1000, Some(buffer)).foreach { header =>
+        f(header)
+        frames += 1
+      }
+    }
+    source.stop()
+    (frames, (System.nanoTime() - t0) / 1e9)
+  }
+
+  // Read raw frames back, check frame IDs increase, and export the first frames of the last segment
+  private def verify(dir: Path, segments: Seq[Path]): Unit = {
+    var frames      = 0L
+    var lastFrameId = -1L
+    var ordered     = true
+    for (segment <- segments)
+      frames += RawFrameFile.read(segment) { frame =>
+        ordered &&= frame.frameId > lastFrameId
+        lastFrameId = frame.frameId
+      }
+    println(s"Read $frames frames back from ${segments.length} segments, frame IDs increasing: $ordered")
+
+    var exported = 0
+    segments.lastOption.foreach { segment =>
+      RawFrameFile.read(segment) { frame =>
+        if (exported < 3) {
+          RawFrameExport.exportFrame(frame, dir, "png")
+          exported += 1
+        }
+      }
+    }
+    println(s"Exported $exported frames to PNG")
+  }
+}
@@ -0,0 +1,108 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.AcquisitionEngine.Frame
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.recording.SegmentedVideoWriter.SizeCheckFrames
+
+import java.nio.file.Path
+import scala.collection.mutable.ArrayBuffer
+
+object SegmentedVideoWriter {
+
+  /** Segment file size is read every this many frames. */
+  val SizeCheckFrames = 16
+}
+
+/**
+ * Appends frames to a video as they arrive, starting a new segment file when the current one reaches
+ * `maxSegmentBytes` or `maxSegmentMillis`.
+ *
+ * Segment files are named `baseName-0000`, `baseName-0001`, ..., with extension added by the `backend`.
+ * The first segment is opened with the first frame, so its frame size and pixel format are known.
+ * Segment duration is measured using frame timestamps, so it corresponds to camera time, not to the time of writing.
+ * Segment size is estimated after each frame from the bytes per frame written so far. The file size is read only
+ * every `SizeCheckFrames` frames, it lags behind while the backend buffers encoded data, so the segment may exceed
+ * `maxSegmentBytes` by the data written since the last check and the data buffered by the backend.
+ *
+ * Not thread safe, frames should be written from a single thread, see `StreamingVideoRecorder`.
+ *
+ * @param backend          video file writer
+ * @param baseName         segment file name prefix, may include a directory
+ * @param frameRate        video playback frame rate
+ * @param maxSegmentBytes  maximum segment file size, 0 for no limit
+ * @param maxSegmentMillis maximum segment duration, 0 for no limit
+ */
+class SegmentedVideoWriter(
+  backend: VideoBackend,
+  baseName: String,
+  frameRate: Double,
+  maxSegmentBytes: Long = 0,
+  maxSegmentMillis: Long = 0
+) extends AutoCloseable {
+  require(frameRate > 0, s"Frame rate has to be positive, got $frameRate")
+  require(maxSegmentBytes >= 0, s"Maximum segment size cannot be negative, got $maxSegmentBytes")
+  require(maxSegmentMillis >= 0, s"Maximum segment duration cannot be negative, got $maxSegmentMillis")
+
+  private val _segments = ArrayBuffer.empty[Path]
+
+  private var segmentOpen      = false
+  private var segmentStartTime = 0L
+  private var _framesWritten   = 0L
+
+  // Frames appended to the current segment, and its size and frame count when its size was last read
+  private var segmentFrames  = 0L
+  private var measuredBytes  = 0L
+  private var measuredFrames = 0L
+
+  /** Files created so far, the last one may still be open. */
+  def segments: Seq[Path] = _segments.toSeq
+
+  def framesWritten: Long = _framesWritten
+
+  /** Append a frame, can be used directly as `AcquisitionEngine` processing function. */
+  def write(frame: Frame): Unit = {
+    if (segmentOpen && isSegmentFull(frame.header)) closeSegment()
+    if (!segmentOpen) openSegment(frame.header)
+    backend.append(frame.header, frame.data)
+    _framesWritten += 1
+    segmentFrames += 1
+    if (maxSegmentBytes > 0 && segmentFrames % SizeCheckFrames == 0) {
+      measuredBytes = _segments.last.toFile.length()
+      measuredFrames = segmentFrames
+    }
+  }
+
+  override def close(): Unit = {
+    try {
+      closeSegment()
+    } finally {
+      backend.close()
+    }
+  }
+
+  private def isSegmentFull(header: FrameHeader): Boolean =
+    (maxSegmentMillis > 0 && header.timestamp - segmentStartTime >= maxSegmentMillis * 1000000L) ||
+      (maxSegmentBytes > 0 && estimatedSegmentBytes >= maxSegmentBytes)
+
+  /** Size of the current segment read last time, plus average bytes per frame for each frame written since. */
+  private def estimatedSegmentBytes: Long =
+    if (measuredFrames == 0) measuredBytes
+    else measuredBytes + (segmentFrames - measuredFrames) * measuredBytes / measuredFrames
+
+  private def openSegment(header: FrameHeader): Unit = {
+    val name = f"$baseName-${_segments.length}%04d"
+    _segments += backend.open(name, header, frameRate)
+    segmentOpen = true
+    segmentStartTime = header.timestamp
+    segmentFrames = 0
+    measuredBytes = 0
+    measuredFrames = 0
+  }
+
+  private def closeSegment(): Unit = {
+    if (segmentOpen) {
+      segmentOpen = false
+      backend.closeSegment()
+    }
+  }
+}
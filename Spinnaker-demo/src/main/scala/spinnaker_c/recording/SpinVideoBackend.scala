@@ -0,0 +1,144 @@
+package spinnaker_c.recording
+
+import org.bytedeco.javacpp.BytePointer
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.acquisition.FrameHeader
+import spinnaker_c.helpers.*
+import spinnaker_c.recording.SpinVideoBackend.Codec
+
+import java.nio.ByteBuffer
+import java.nio.file.{Path, Paths}
+import scala.util.Using
+
+object SpinVideoBackend {
+
+  /** Video compression, see `SaveToAvi_C` */
+  enum Codec {
+    case Uncompressed
+    case MJPG
+    case H264
+  }
+}
+
+/**
+ * Writes AVI video using Spinnaker `spinVideo`, as in `SaveToAvi_C`.
+ *
+ * Frames that are not in `pixelFormat` are converted with a `spinImageProcessor` before they are appended.
+ * The maximum file size of `spinVideo` is disabled, segments are managed by `SegmentedVideoWriter`.
+ *
+ * @param codec       video compression
+ * @param pixelFormat pixel format of images appended to the video
+ * @param quality     MJPG quality, 0 to 100
+ * @param bitrate     H264 bitrate in bits per second
+ */
+class SpinVideoBackend(
+  codec: Codec = Codec.MJPG,
+  pixelFormat: spinPixelFormatEnums = spinPixelFormatEnums.PixelFormat_Mono8,
+  quality: Int = 75,
+  bitrate: Int = 1_000_000
+) extends VideoBackend {
+
+  private var video: spinVideo                    = null
+  private var hImageProcessor: spinImageProcessor = null
+
+  override def open(name: String, header: FrameHeader, frameRate: Double): Path = Using.Manager { use =>
+    require(video == null, "Previous segment was not closed")
+
+    val filename = use(new BytePointer(name))
+    val hVideo   = new spinVideo()
+    val err = codec match {
+      case Codec.Uncompressed =>
+        val option = use(new spinAVIOption())
+        option.frameRate(frameRate.toFloat)
+        option.width(header.width)
+        option.height(header.height)
+        spinVideoOpenUncompressed(hVideo, filename, option)
+      case Codec.MJPG =>
+        val option = use(new spinMJPGOption())
+        option.frameRate(frameRate.toFloat)
+        option.quality(quality)
+        option.width(header.width)
+        option.height(header.height)
+        spinVideoOpenMJPG(hVideo, filename, option)
+      case Codec.H264 =>
+        val option = use(new spinH264Option())
+        option.frameRate(frameRate.toFloat)
+        option.bitrate(bitrate)
+        option.width(header.width)
+        option.height(header.height)
+        spinVideoOpenH264(hVideo, filename, option)
+    }
+    if (isError(err)) hVideo.close()
+    check(err, s"Unable to open $codec video file.")
+    video = hVideo
+
+    // 0 means no limit
+    check(spinVideoSetMaximumFileSize(video, 0), "Unable to set maximum file size.")
+
+    // spinVideo adds the extension
+    Paths.get(name + ".avi")
+  }.get
+
+  override def append(header: FrameHeader, data: ByteBuffer): Unit = Using.Manager { use =>
+    val format = spinPixelFormatEnums.values.find(_.value == header.pixelFormat).get
+    val hImage = use(new spinImage())
+    check(
+      spinImageCreateEx(hImage, header.width, header.height, 0, 0, format, use(new BytePointer(data))),
+      "Unable to create image."
+    )
+    try
+      if format == pixelFormat then
+        check(spinVideoAppend(video, hImage), "Unable to append image.")
+      else
+        val hConverted = use(new spinImage())
+        check(spinImageCreateEmpty(hConverted), "Unable to create image.")
+        try
+          check(spinImageProcessorConvert(processor, hImage, hConverted, pixelFormat), "Unable to convert image.")
+          check(spinVideoAppend(video, hConverted), "Unable to append image.")
+        finally
+          printOnError(spinImageDestroy(hConverted), "Unable to destroy image.")
+    finally
+      printOnError(spinImageDestroy(hImage), "Unable to destroy image.")
+  }.get
+
+  override def closeSegment(): Unit = {
+    if (video != null) {
+      try {
+        check(spinVideoClose(video), "Unable to close video file.")
+      } finally {
+        video.close()
+        video = null
+      }
+    }
+  }
+
+  override def close(): Unit = {
+    try {
+      closeSegment()
+    } finally {
+      if (hImageProcessor != null) {
+        printOnError(spinImageProcessorDestroy(hImageProcessor), "Unable to destroy image processor.")
+        hImageProcessor.close()
+        hImageProcessor = null
+      }
+    }
+  }
+
+  // Created on first use, frames already in the video pixel format do not need it
+  private def processor: spinImageProcessor = {
+    if (hImageProcessor == null) {
+      val p = new spinImageProcessor()
+      check(spinImageProcessorCreate(p), "Unable to create image processor.")
+      check(
+        spinImageProcessorSetColorProcessing(
+          p,
+          spinColorProcessingAlgorithm.SPINNAKER_COLOR_PROCESSING_ALGORITHM_HQ_LINEAR
+        ),
+        "Unable to set image processor color processing method."
+      )
+      hImageProcessor = p
+    }
+    hImageProcessor
+  }
+}
@@ -0,0 +1,43 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.AcquisitionEngine.{DropPolicy, Stats}
+import spinnaker_c.acquisition.{AcquisitionEngine, FrameSource}
+
+/**
+ * Records frames from a `source` to video while they are acquired.
+ *
+ * Unlike `SaveToAvi_C`, which keeps all images in memory and creates the video after acquisition,
+ * frames are copied to a bounded queue and appended to the video by a single writer thread,
+ * so memory use does not depend on the recording length.
+ * If writing cannot keep up, new frames are dropped while the queue is full, the number of dropped frames
+ * is reported in `stats`.
+ *
+ * @param source        source of frames
+ * @param writer        writes frames to video segments, closed by `stop()`
+ * @param queueCapacity maximum number of frames waiting to be written
+ */
+class StreamingVideoRecorder(source: FrameSource, writer: SegmentedVideoWriter, queueCapacity: Int = 32)
+    extends AutoCloseable {
+
+  // Single worker to keep frames in order
+  private val engine =
+    new AcquisitionEngine(source, queueCapacity, nbWorkers = 1, dropPolicy = DropPolicy.DropNewest)(writer.write)
+
+  /** Start acquisition, the first segment is opened when the first frame arrives. */
+  def start(): Unit = engine.start()
+
+  /** Stop acquisition, write frames remaining in the queue, and close the video. */
+  def stop(): Unit = {
+    try {
+      engine.stop()
+    } finally {
+      writer.close()
+    }
+  }
+
+  override def close(): Unit = stop()
+
+  def stats: Stats = engine.stats
+
+  def framesWritten: Long = writer.framesWritten
+}
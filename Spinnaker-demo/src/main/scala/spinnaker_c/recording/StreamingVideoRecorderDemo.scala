@@ -0,0 +1,56 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.SyntheticFrameSource
+
+/**
+ * Records video from `SyntheticFrameSource` using `FFmpegVideoBackend`, no camera or Spinnaker SDK is needed.
+ *
+ * Frames are written to MJPG AVI segments in the current directory. While recording, used heap is printed
+ * each second; it stays flat regardless of the recording length, unlike when all frames are buffered before saving.
+ *
+ * Usage:
+ * {{{
+ *   StreamingVideoRecorderDemo [fps] [duration in seconds] [segment duration in seconds] [segment size in MB]
+ * }}}
+ */
+object StreamingVideoRecorderDemo {
+
+  def main(args: Array[String]): Unit = {
+    val fps             = if (args.length > 0) args(0).toDouble else 30
+    val durationSeconds = if (args.length > 1) args(1).toInt else 10
+    val segmentSeconds  = if (args.length > 2) args(2).toDouble else 4
+    val segmentMB       = if (args.length > 3) args(3).toDouble else 0
+
+    val source = new SyntheticFrameSource(1280, 720, fps)
+    val writer = new SegmentedVideoWriter(
+      new FFmpegVideoBackend(),
+      "StreamingVideoRecorderDemo",
+      frameRate = fps,
+      maxSegmentBytes = (segmentMB * 1024 * 1024).toLong,
+      maxSegmentMillis = (segmentSeconds * 1000).toLong
+    )
+
+    val recorder = new StreamingVideoRecorder(source, writer)
+    val runtime  = Runtime.getRuntime
+    val t0       = System.nanoTime()
+    try {
+      recorder.start()
+      for (second <- 1 to durationSeconds) {
+        Thread.sleep(1000)
+        val usedMB = (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024
+        println(f"$second%4d s: written ${recorder.framesWritten}%6d frames, used heap $usedMB%5d MB")
+      }
+    } finally {
+      recorder.close()
+      source.close()
+    }
+    val seconds = (System.nanoTime() - t0) / 1e9
+
+    val s = recorder.stats
+    println()
+    println(f"Grabbed ${s.grabbed} frames in $seconds%.2f s, written: ${recorder.framesWritten}, dropped: ${s.dropped}")
+    println(f"Average latency from grab to written frame: ${s.meanLatencyMillis}%.1f ms")
+    println("Segments:")
+    writer.segments.foreach(p => println(f"  $p  ${p.toFile.length() / 1024}%8d kB"))
+  }
+}
@@ -0,0 +1,32 @@
+package spinnaker_c.recording
+
+import spinnaker_c.acquisition.FrameHeader
+
+import java.nio.ByteBuffer
+import java.nio.file.Path
+
+/**
+ * Video file writer used by `SegmentedVideoWriter`, one segment file is open at a time.
+ *
+ * Implementations are used from a single thread.
+ */
+trait VideoBackend extends AutoCloseable {
+
+  /**
+   * Open a new video file.
+   *
+   * @param name      file name without extension
+   * @param header    header of the first frame, frame size and pixel format of the video
+   * @param frameRate playback frame rate
+   * @return path of the created file
+   */
+  def open(name: String, header: FrameHeader, frameRate: Double): Path
+
+  /** Append a frame to the open file, `data` is only read during the call. */
+  def append(header: FrameHeader, data: ByteBuffer): Unit
+
+  /** Close the open file, if any. */
+  def closeSegment(): Unit
+
+  override def close(): Unit = closeSegment()
+}
@@ -0,0 +1,228 @@
+package spinnaker_c.sequencer
+
+import org.bytedeco.spinnaker.Spinnaker_C.{spinNodeHandle, spinNodeMapHandle}
+import spinnaker_c.nodemap.{NodeCache, NodeLimitsOps, SpinNodeMapOps}
+import spinnaker_c.sequencer.SequencerBuilder.*
+
+import scala.collection.mutable
+import scala.util.Try
+
+object SequencerBuilder {
+
+  /** Builder for a Spinnaker nodemap, the nodemap has to be valid as long as the builder is used. */
+  def apply(hNodeMap: spinNodeMapHandle): SequencerBuilder[spinNodeHandle] =
+    new SequencerBuilder(new SpinNodeMapOps(hNodeMap))
+
+  /** Limits of an integer node, valid values are `min + k * inc`. */
+  case class IntegerLimits(min: Long, max: Long, inc: Long) {
+
+    def contains(value: Long): Boolean = value >= min && value <= max
+
+    /** Largest valid value not greater than `value`, `min` if `value` is less than `min`. */
+    def align(value: Long): Long = if (value <= min) min else min + (value - min) / inc * inc
+  }
+
+  case class FloatLimits(min: Double, max: Double) {
+
+    def contains(value: Double): Boolean = value >= min && value <= max
+  }
+
+  /**
+   * Limits of state settings, read once from the nodemap.
+   *
+   * @param width     `None` if width cannot be set, changing it for the sequencer is not available on all camera models
+   * @param height    `None` if height cannot be set
+   * @param maxStates number of sequencer states of the camera
+   */
+  case class Limits(
+    width: Option[IntegerLimits],
+    height: Option[IntegerLimits],
+    exposureTime: FloatLimits,
+    gain: FloatLimits,
+    maxStates: Int
+  )
+
+  /** Settings of a sequencer state, width and height in pixels, exposure time in microseconds, gain in decibels. */
+  case class State(width: Long, height: Long, exposureTime: Double, gain: Double)
+
+  /**
+   * Sequence validated by `SequencerBuilder.plan`, width and height are aligned to their increments.
+   * Each state is followed by the next one, the last state by the first.
+   */
+  case class Plan private[sequencer] (states: IndexedSeq[State], triggerSource: String, limits: Limits)
+
+  /**
+   * Result of `program`.
+   *
+   * @param written   values written
+   * @param unchanged values not written because the node already had the value
+   * @param saved     states saved
+   */
+  case class ProgramResult(written: Int, unchanged: Int, saved: Int)
+
+  private val SetSelector   = "SequencerSetSelector"
+  private val SetNext       = "SequencerSetNext"
+  private val SetSave       = "SequencerSetSave"
+  private val TriggerSource = "SequencerTriggerSource"
+}
+
+/**
+ * Programs a whole sequence of sequencer states, see `Sequencer_C`.
+ *
+ * Setting states one by one with functions in `spinnaker_c.helpers`, as `Sequencer_C` originally did, looks up every
+ * node by name for each state and writes every setting even if it has the same value as in the previous state.
+ * Here states are added to the builder, `plan()` reads the node limits once and validates all states before anything
+ * is written, so an invalid state does not leave the sequencer partly programmed. `program` then writes the plan
+ * using cached nodes, writing only values that change:
+ * {{{
+ *   Using.resource(SequencerBuilder(hNodeMap)) { sequencer =>
+ *     val plan = sequencer.state(720, 540, 1000, 0).state(720, 540, 4000, 6).plan()
+ *     sequencer.program(plan)
+ *   }
+ * }}}
+ * Limits are read once, the nodes they depend on, for instance, `OffsetX` for `Width`, should not change while the
+ * builder is used. Not thread safe.
+ *
+ * @param ops operations on the nodemap, closed with the builder
+ */
+class SequencerBuilder[N <: AnyRef](ops: NodeLimitsOps[N]) extends AutoCloseable {
+
+  private val cache   = new NodeCache(ops)
+  private val states  = mutable.ArrayBuffer.empty[State]
+  private var trigger = "FrameStart"
+
+  private var _limits: Limits = null
+
+  /** Limits of state settings, read from the nodemap on first use. */
+  def limits: Limits = {
+    if (_limits == null) _limits = readLimits()
+    _limits
+  }
+
+  /** Append a state. */
+  def state(width: Long, height: Long, exposureTime: Double, gain: Double): this.type = {
+    states += State(width, height, exposureTime, gain)
+    this
+  }
+
+  /** Entry of `SequencerTriggerSource` for all states, the event changing to the next state, `FrameStart` default. */
+  def triggerSource(entry: String): this.type = {
+    trigger = entry
+    this
+  }
+
+  /**
+   * Validate the states added to the builder against `limits`.
+   *
+   * @throws IllegalArgumentException listing all invalid settings, nothing is written to the camera
+   */
+  def plan(): Plan = {
+    val l      = limits
+    val errors = mutable.ArrayBuffer.empty[String]
+
+    if (states.isEmpty) errors += "No states"
+    if (states.length > l.maxStates) errors += s"${states.length} states, the camera has ${l.maxStates}"
+    if (Try(cache.enumEntryValue(TriggerSource, trigger)).isFailure) errors += s"Unknown $TriggerSource '$trigger'"
+    // Not writable while automatic exposure or gain is on
+    for (name <- Seq("ExposureTime", "Gain") if !cache.isWritable(name)) errors += s"$name is not writable"
+
+    val aligned = states.indices.map { i =>
+      val s = states(i)
+
+      def integer(name: String, value: Long, limits: Option[IntegerLimits]): Long =
+        limits.fold(value) { lim =>
+          if (!lim.contains(value)) errors += s"State $i: $name $value is out of range [${lim.min}, ${lim.max}]"
+          lim.align(value)
+        }
+
+      def float(name: String, value: Double, lim: FloatLimits): Double = {
+        if (!lim.contains(value)) errors += s"State $i: $name $value is out of range [${lim.min}, ${lim.max}]"
+        value
+      }
+
+      State(
+        integer("Width", s.width, l.width),
+        integer("Height", s.height, l.height),
+        float("ExposureTime", s.exposureTime, l.exposureTime),
+        float("Gain", s.gain, l.gain)
+      )
+    }
+
+    require(errors.isEmpty, errors.mkString("Invalid sequence:\n  ", "\n  ", ""))
+    Plan(aligned, trigger, l)
+  }
+
+  /**
+   * Program and save each state of the plan. Sequencer configuration mode has to be on.
+   *
+   * Width, height, exposure time, and gain are camera settings that a state saves, selecting another state does not
+   * change them, so they are read once and written only when they differ from the previous state.
+   * Trigger source and next state are stored per state, their current values are read after the state is selected
+   * and written only if different.
+   */
+  def program(plan: Plan): ProgramResult = {
+    var written   = 0
+    var unchanged = 0
+
+    def update[A](current: A, value: A)(set: A => Unit): A = {
+      if (current == value) unchanged += 1
+      else {
+        set(value)
+        written += 1
+      }
+      value
+    }
+
+    val setWidth     = plan.limits.width.isDefined
+    val setHeight    = plan.limits.height.isDefined
+    var width        = if (setWidth) cache.getInteger("Width") else 0L
+    var height       = if (setHeight) cache.getInteger("Height") else 0L
+    var exposureTime = cache.getFloat("ExposureTime")
+    var gain         = cache.getFloat("Gain")
+    val triggerValue = cache.enumEntryValue(TriggerSource, plan.triggerSource)
+    val triggerNode  = cache.node(TriggerSource)
+    val saveNode     = cache.node(SetSave)
+
+    for ((s, i) <- plan.states.zipWithIndex) {
+      update(cache.getInteger(SetSelector), i.toLong)(cache.setInteger(SetSelector, _))
+
+      if (setWidth) width = update(width, s.width)(cache.setInteger("Width", _))
+      if (setHeight) height = update(height, s.height)(cache.setInteger("Height", _))
+      exposureTime = update(exposureTime, s.exposureTime)(cache.setFloat("ExposureTime", _))
+      gain = update(gain, s.gain)(cache.setFloat("Gain", _))
+
+      update(ops.getEnumeration(triggerNode), triggerValue)(ops.setEnumeration(triggerNode, _))
+      val next = (i + 1) % plan.states.length
+      update(cache.getInteger(SetNext), next.toLong)(cache.setInteger(SetNext, _))
+
+      ops.execute(saveNode)
+    }
+
+    ProgramResult(written, unchanged, plan.states.length)
+  }
+
+  override def close(): Unit = cache.close()
+
+  private def readLimits(): Limits = {
+    def integerLimits(name: String): Option[IntegerLimits] =
+      if (cache.isReadable(name) && cache.isWritable(name)) {
+        val node = cache.node(name)
+        Some(IntegerLimits(ops.getIntegerMin(node), ops.getIntegerMax(node), ops.getIntegerInc(node)))
+      } else None
+
+    def floatLimits(name: String): FloatLimits = {
+      val node = cache.node(name)
+      FloatLimits(ops.getFloatMin(node), ops.getFloatMax(node))
+    }
+
+    // States are numbered from 0
+    val selector = cache.node(SetSelector)
+    Limits(
+      integerLimits("Width"),
+      integerLimits("Height"),
+      floatLimits("ExposureTime"),
+      floatLimits("Gain"),
+      (ops.getIntegerMax(selector) + 1).toInt
+    )
+  }
+}
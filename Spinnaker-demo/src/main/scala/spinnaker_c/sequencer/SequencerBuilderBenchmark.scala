@@ -0,0 +1,144 @@
+package spinnaker_c.sequencer
+
+import org.bytedeco.javacpp.BytePointer
+import spinnaker_c.nodemap.StubNodeMapOps
+import spinnaker_c.sequencer.SequencerBuilder.State
+
+import scala.util.Using
+
+/**
+ * Programming sequencer states one by one, as `Sequencer_C.setSingleState` did, compared with `SequencerBuilder`,
+ * using an in-memory camera nodemap in `StubNodeMapOps`, no camera is needed.
+ *
+ * The stub camera stores trigger source and next state per state and saves width, height, exposure time, and gain
+ * to the selected state on `SequencerSetSave`. Two sequences are programmed: the `Sequencer_C` one, where every
+ * setting changes from state to state, and an HDR one, where only exposure time changes. Each is programmed on a
+ * camera with default values, then again on the same camera, as when an application restarts.
+ * The benchmark reports node lookups, value writes, commands, and time, with each write and command taking a fixed
+ * time to simulate writing camera registers, and checks that the saved states match the sequence.
+ * Finally an invalid sequence is validated, to show that all errors are reported and nothing is written.
+ *
+ * Usage:
+ * {{{
+ *   SequencerBuilderBenchmark [write time in ms]
+ * }}}
+ */
+object SequencerBuilderBenchmark {
+
+  private val MaxStates = 8
+
+  def main(args: Array[String]): Unit = {
+    val writeMillis = if (args.length > 0) args(0).toDouble else 2
+
+    val sequences = Seq(
+      "Sequencer_C" -> (0 until 5).map { i =>
+        State(1440 / 4 + i * 1440 / 10, 1080 / 4 + i * 1080 / 10, 13 + i * 200_000d, i * 48 / 50d)
+      },
+      "HDR" -> (0 until MaxStates).map(i => State(1440, 1080, 100d * (1 << i), 0))
+    )
+
+    println(
+      f"${"sequence"}%12s ${"method"}%10s ${"camera"}%11s ${"lookups"}%8s ${"writes"}%7s ${"commands"}%9s " +
+        f"${"time ms"}%8s ${"saved ok"}%9s"
+    )
+    for ((name, states) <- sequences; builder <- Seq(false, true)) {
+      val camera = new StubCamera()
+      camera.ops.writeNanos = (writeMillis * 1e6).toLong
+      for (run <- Seq("default", "configured")) {
+        camera.ops.lookups = 0
+        camera.ops.writes = 0
+        camera.ops.commands = 0
+
+        val t0 = System.nanoTime()
+        if (builder) {
+          // Not closed, closing the builder would close the nodemap
+          val sequencer = new SequencerBuilder(camera.ops)
+          states.foreach(s => sequencer.state(s.width, s.height, s.exposureTime, s.gain))
+          sequencer.program(sequencer.plan())
+        } else {
+          for (i <- states.indices) setSingleState(camera.ops, i, states(i), states.length)
+        }
+        val millis = (System.nanoTime() - t0) / 1e6
+
+        println(
+          f"$name%12s ${if builder then "builder" else "per state"}%10s $run%11s ${camera.ops.lookups}%8d " +
+            f"${camera.ops.writes}%7d ${camera.ops.commands}%9d $millis%8.1f ${camera.matches(states)}%9s"
+        )
+      }
+    }
+    println()
+
+    val camera    = new StubCamera()
+    val sequencer = new SequencerBuilder(camera.ops)
+    sequencer.triggerSource("FrameEnd")
+    for (i <- 0 to MaxStates) sequencer.state(1440, 1080 + i, 100d * (1 << i), 0)
+    try {
+      sequencer.plan()
+      println("Invalid sequence was not detected")
+    } catch {
+      case ex: IllegalArgumentException => println(ex.getMessage)
+    }
+    println(s"Writes after validation: ${camera.ops.writes}")
+  }
+
+  /** `Sequencer_C.setSingleState` on the stub, each node is looked up by name when used, as helpers do. */
+  private def setSingleState(ops: StubNodeMapOps, sequenceNumber: Int, state: State, nbStates: Int): Unit = {
+    def node(name: String) = Using.resource(new BytePointer(name))(ops.getNode)
+
+    ops.setInteger(node("SequencerSetSelector"), sequenceNumber)
+
+    val hWidth = node("Width")
+    if (ops.isReadable(hWidth) && ops.isWritable(hWidth)) {
+      val inc = ops.getIntegerInc(hWidth)
+      ops.setInteger(node("Width"), state.width / inc * inc)
+    }
+    val hHeight = node("Height")
+    if (ops.isReadable(hHeight) && ops.isWritable(hHeight)) {
+      val inc = ops.getIntegerInc(hHeight)
+      ops.setInteger(node("Height"), state.height / inc * inc)
+    }
+    ops.setFloat(node("ExposureTime"), state.exposureTime)
+    ops.setFloat(node("Gain"), state.gain)
+
+    val hTriggerSource = node("SequencerTriggerSource")
+    val frameStart     = Using.resource(new BytePointer("FrameStart"))(ops.enumEntryValue(hTriggerSource, _))
+    ops.setEnumeration(hTriggerSource, frameStart)
+
+    ops.setInteger(node("SequencerSetNext"), if (sequenceNumber != nbStates - 1) sequenceNumber + 1 else 0)
+    ops.execute(node("SequencerSetSave"))
+  }
+
+  /** Stub camera with a sequencer of `MaxStates` states. */
+  private final class StubCamera {
+    val ops = new StubNodeMapOps()
+
+    private val width          = ops.addInteger("Width", 1440, 8, 1440, 4)
+    private val height         = ops.addInteger("Height", 1080, 6, 1080, 2)
+    private val exposureTime   = ops.addFloat("ExposureTime", 10000, 13, 30_000_000)
+    private val gain           = ops.addFloat("Gain", 0, 0, 47.99)
+    private val selector       = ops.addInteger("SequencerSetSelector", 0, 0, MaxStates - 1, 1)
+    private val next           = ops.addInteger("SequencerSetNext", 0, 0, MaxStates - 1, 1)
+    private val triggerSource  = ops.addEnumeration("SequencerTriggerSource", "Off" -> 0L, "FrameStart" -> 1L)
+    private val save           = ops.addCommand("SequencerSetSave")
+    private val nextOfState    = new Array[Long](MaxStates)
+    private val triggerOfState = new Array[Long](MaxStates)
+    private val savedStates    = new Array[State](MaxStates)
+
+    ops.onWrite = { node =>
+      val i = selector.intValue.toInt
+      if (node eq selector) {
+        next.intValue = nextOfState(i)
+        triggerSource.intValue = triggerOfState(i)
+      } else if (node eq next) nextOfState(i) = node.intValue
+      else if (node eq triggerSource) triggerOfState(i) = node.intValue
+      else if (node eq save)
+        savedStates(i) = State(width.intValue, height.intValue, exposureTime.floatValue, gain.floatValue)
+    }
+
+    /** Saved states are `states`, with trigger source `FrameStart`, each followed by the next one. */
+    def matches(states: IndexedSeq[State]): Boolean =
+      states.indices.forall { i =>
+        savedStates(i) == states(i) && triggerOfState(i) == 1 && nextOfState(i) == (i + 1) % states.length
+      }
+  }
+}
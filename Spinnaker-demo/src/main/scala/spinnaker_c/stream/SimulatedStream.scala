@@ -0,0 +1,98 @@
+package spinnaker_c.stream
+
+import java.util.SplittableRandom
+
+/**
+ * Simulation of a camera stream with a consumer, for testing `StreamTuner` without a camera.
+ *
+ * Time is simulated, `run` simulates the given interval of acquisition and returns immediately.
+ * The camera produces frames at `fps`, the consumer processes one frame at a time in `processingMillis`
+ * plus uniformly distributed jitter up to `processingJitterMillis`. Processing time can be changed between runs
+ * to simulate a consumer that slows down or speeds up.
+ *
+ * A frame holds a buffer while it waits and while it is processed, as a camera image holds a buffer until released.
+ * With `OldestFirst` a frame arriving when all buffers are in use is dropped, with `NewestOnly` a frame waiting
+ * for the consumer is dropped when a new one arrives.
+ * Changing the buffer count restarts acquisition, as with a camera, frames waiting for the consumer are dropped.
+ *
+ * @param fps             camera frame rate
+ * @param initialSettings stream settings at start
+ * @param seed            random seed for processing time jitter
+ */
+class SimulatedStream(
+  fps: Double,
+  var processingMillis: Double,
+  var processingJitterMillis: Double = 0,
+  initialSettings: StreamSettings = StreamSettings(10, BufferHandlingMode.OldestFirst),
+  seed: Long = 0
+) extends StreamControl {
+  require(fps > 0, s"Frame rate has to be positive, got $fps")
+
+  private val periodMillis = 1000 / fps
+  private val random       = new SplittableRandom(seed)
+
+  // Arrival times of frames waiting for the consumer
+  private val waiting = new java.util.ArrayDeque[Double]()
+
+  private var _settings    = initialSettings
+  private var nowMillis    = 0.0
+  private var nextArrival  = 0.0
+  private var consumerFree = 0.0
+  private var pendingDrops = 0L
+  private var _restarts    = 0
+
+  override def settings: StreamSettings = _settings
+
+  override def apply(settings: StreamSettings): Unit = {
+    if (settings.bufferCount != _settings.bufferCount) {
+      pendingDrops += waiting.size()
+      waiting.clear()
+      _restarts += 1
+    }
+    _settings = settings
+  }
+
+  /** Number of acquisition restarts caused by buffer count changes. */
+  def restarts: Int = _restarts
+
+  /** Simulate `millis` of acquisition. */
+  def run(millis: Double): StreamMeasurement = {
+    val end        = nowMillis + millis
+    var frames     = 0L
+    var dropped    = pendingDrops
+    var processed  = 0L
+    var latencySum = 0.0
+    pendingDrops = 0
+
+    // Process waiting frames that the consumer starts before time `t`
+    def serveUntil(t: Double): Unit = {
+      while (!waiting.isEmpty && consumerFree <= t) {
+        val arrival = waiting.poll()
+        val start   = math.max(consumerFree, arrival)
+        consumerFree = start + processingMillis + random.nextDouble() * processingJitterMillis
+        processed += 1
+        latencySum += consumerFree - arrival
+      }
+    }
+
+    while (nextArrival < end) {
+      serveUntil(nextArrival)
+      frames += 1
+      val inProcessing = if (consumerFree > nextArrival) 1 else 0
+      _settings.handlingMode match {
+        case BufferHandlingMode.OldestFirst =>
+          if (waiting.size() + inProcessing >= _settings.bufferCount) dropped += 1
+          else waiting.add(nextArrival)
+        case BufferHandlingMode.NewestOnly =>
+          dropped += waiting.size()
+          waiting.clear()
+          waiting.add(nextArrival)
+      }
+      nextArrival += periodMillis
+    }
+    serveUntil(end)
+    nowMillis = end
+
+    StreamMeasurement(frames, dropped, if (processed == 0) 0 else latencySum / processed)
+  }
+}
@@ -0,0 +1,61 @@
+package spinnaker_c.stream
+
+import org.bytedeco.spinnaker.Spinnaker_C.*
+import org.bytedeco.spinnaker.global.Spinnaker_C.*
+import spinnaker_c.helpers.*
+import spinnaker_c.nodemap.NodeCache
+
+/**
+ * Stream buffer settings of a Spinnaker camera, set through the TL stream nodemap.
+ *
+ * Buffer count mode is set to `Manual` and `initial` settings are applied when created.
+ * Handling mode is changed during acquisition, the buffer count can only be changed when the camera is not
+ * acquiring, so if the camera is acquiring, acquisition is stopped, buffer count is changed,
+ * and acquisition is started again. Frames waiting in buffers are lost when that happens.
+ * `apply` should be called from the thread retrieving images from the camera.
+ *
+ * @param hCam    initialized camera
+ * @param initial settings applied when created
+ */
+class SpinStreamControl(hCam: spinCamera, initial: StreamSettings) extends StreamControl with AutoCloseable {
+
+  private val hNodeMapStream = new spinNodeMapHandle()
+  check(spinCameraGetTLStreamNodeMap(hCam, hNodeMapStream), "Unable to retrieve TL stream nodemap.")
+
+  private val nodes = NodeCache(hNodeMapStream)
+
+  /** Maximum buffer count supported by the camera. */
+  val maxBufferCount: Int = nodeGetMaxLong(hNodeMapStream, "StreamBufferCountManual").toInt
+
+  private var _settings = initial
+
+  nodes.setEnumeration("StreamBufferCountMode", "Manual")
+  nodes.setInteger("StreamBufferCountManual", initial.bufferCount)
+  nodes.setEnumeration("StreamBufferHandlingMode", initial.handlingMode.toString)
+
+  override def settings: StreamSettings = _settings
+
+  override def apply(settings: StreamSettings): Unit = {
+    require(settings.bufferCount <= maxBufferCount, s"Buffer count ${settings.bufferCount} > max $maxBufferCount")
+
+    if (settings.handlingMode != _settings.handlingMode)
+      nodes.setEnumeration("StreamBufferHandlingMode", settings.handlingMode.toString)
+
+    if (settings.bufferCount != _settings.bufferCount) {
+      if (nodes.isWritable("StreamBufferCountManual")) {
+        nodes.setInteger("StreamBufferCountManual", settings.bufferCount)
+      } else {
+        check(spinCameraEndAcquisition(hCam), "Unable to end acquisition.")
+        nodes.setInteger("StreamBufferCountManual", settings.bufferCount)
+        check(spinCameraBeginAcquisition(hCam), "Unable to begin image acquisition.")
+      }
+    }
+
+    _settings = settings
+  }
+
+  override def close(): Unit = {
+    nodes.close()
+    hNodeMapStream.close()
+  }
+}
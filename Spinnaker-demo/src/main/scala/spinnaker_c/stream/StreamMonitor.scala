@@ -0,0 +1,47 @@
+package spinnaker_c.stream
+
+/**
+ * Measures a camera stream from the frames retrieved by the consumer, for `StreamTuner`.
+ *
+ * Dropped frames are detected from gaps in frame ID.
+ * Latency is estimated from device timestamps: the difference between the host time at the end of processing
+ * and the device timestamp is the clock offset plus the latency. The smallest difference observed is taken
+ * as the clock offset, so latency is measured relative to the fastest frame, as delay added by waiting in buffers
+ * and by slower processing. That assumes device and host clocks do not drift apart significantly during acquisition.
+ *
+ * Not thread safe.
+ */
+class StreamMonitor {
+
+  private var lastFrameId = -1L
+  private var minOffset   = Long.MaxValue
+  private var processed   = 0L
+  private var dropped     = 0L
+  private var latencySum  = 0L
+
+  /**
+   * Record a processed frame.
+   *
+   * @param frameId        frame ID
+   * @param timestampNanos device timestamp of the frame
+   */
+  def record(frameId: Long, timestampNanos: Long): Unit = {
+    // A decreasing frame ID means acquisition was restarted
+    if (lastFrameId >= 0 && frameId > lastFrameId + 1) dropped += frameId - lastFrameId - 1
+    lastFrameId = frameId
+
+    val offset = System.nanoTime() - timestampNanos
+    minOffset = math.min(minOffset, offset)
+    latencySum += offset - minOffset
+    processed += 1
+  }
+
+  /** Measurement since the previous call, counters are reset. */
+  def snapshot(): StreamMeasurement = {
+    val m = StreamMeasurement(processed + dropped, dropped, if (processed == 0) 0 else latencySum / 1e6 / processed)
+    processed = 0
+    dropped = 0
+    latencySum = 0
+    m
+  }
+}
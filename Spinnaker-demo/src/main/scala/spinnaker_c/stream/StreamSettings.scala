@@ -0,0 +1,40 @@
+package spinnaker_c.stream
+
+/** Values of TL stream node `StreamBufferHandlingMode` used by `StreamTuner`. */
+enum BufferHandlingMode {
+
+  /** Frames are delivered in order of arrival, when all buffers are full new frames are dropped. */
+  case OldestFirst
+
+  /** Only the newest frame is kept, older frames not yet retrieved are dropped. */
+  case NewestOnly
+}
+
+/**
+ * Stream buffer settings.
+ *
+ * @param bufferCount  number of stream buffers, TL stream node `StreamBufferCountManual`
+ * @param handlingMode buffer handling mode, TL stream node `StreamBufferHandlingMode`
+ */
+case class StreamSettings(bufferCount: Int, handlingMode: BufferHandlingMode) {
+  override def toString: String = s"$bufferCount buffers $handlingMode"
+}
+
+/**
+ * Measurement of a stream over an interval.
+ *
+ * @param frames            frames produced by the camera, including dropped frames
+ * @param dropped           frames dropped
+ * @param meanLatencyMillis average time from frame exposure to the end of its processing
+ */
+case class StreamMeasurement(frames: Long, dropped: Long, meanLatencyMillis: Double) {
+  def dropRate: Double = if (frames == 0) 0 else dropped.toDouble / frames
+}
+
+/** Stream settings that can be changed during acquisition. */
+trait StreamControl {
+
+  def settings: StreamSettings
+
+  def apply(settings: StreamSettings): Unit
+}
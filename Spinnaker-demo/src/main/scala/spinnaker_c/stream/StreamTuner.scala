@@ -0,0 +1,129 @@
+package spinnaker_c.stream
+
+import spinnaker_c.stream.StreamTuner.{Decision, Limits}
+
+object StreamTuner {
+
+  /**
+   * Limits within which the tuner adjusts the stream.
+   *
+   * @param minBufferCount   minimum number of buffers
+   * @param maxBufferCount   maximum number of buffers
+   * @param maxLatencyMillis latency above which buffers are reduced
+   * @param maxDropRate      drop rate above which buffers are added
+   * @param stableIntervals  number of consecutive intervals without drops needed to return from `NewestOnly`
+   */
+  case class Limits(
+    minBufferCount: Int = 3,
+    maxBufferCount: Int = 64,
+    maxLatencyMillis: Double = 200,
+    maxDropRate: Double = 0.01,
+    stableIntervals: Int = 5
+  ) {
+    require(minBufferCount > 0, s"Minimum buffer count has to be positive, got $minBufferCount")
+    require(maxBufferCount >= minBufferCount, s"Maximum buffer count $maxBufferCount < minimum $minBufferCount")
+    require(stableIntervals > 0, s"Stable intervals has to be positive, got $stableIntervals")
+  }
+
+  /** Change of stream settings made by the tuner. */
+  case class Decision(from: StreamSettings, to: StreamSettings, measurement: StreamMeasurement, reason: String) {
+    override def toString: String =
+      f"$from -> $to: $reason (drop rate ${measurement.dropRate * 100}%.1f%%, " +
+        f"latency ${measurement.meanLatencyMillis}%.1f ms)"
+  }
+}
+
+/**
+ * Chooses stream buffer count and handling mode based on measured consumer latency and drop rate.
+ *
+ * With `OldestFirst` each frame is processed, buffers absorb bursts when the consumer is temporarily slower than
+ * the camera, at the cost of latency. When frames are dropped, the buffer count is doubled up to the maximum.
+ * When latency is above the limit, the buffer count is halved. If latency stays above the limit
+ * with the minimum buffer count, or frames are dropped with the maximum buffer count, the consumer cannot keep up,
+ * and the tuner switches to `NewestOnly`: latency is kept low by processing only the newest frames.
+ * It switches back to `OldestFirst` after `stableIntervals` consecutive intervals with drop rate within the limit.
+ *
+ * Each change of buffer count restarts acquisition, so the tuner does not go back to a buffer count already found
+ * wrong. The largest count with drops above the limit and the smallest count with latency above the limit are
+ * remembered, and buffers are not halved or doubled to them. If neither direction is left, as when the count
+ * alternates between drops and high latency, the tuner switches to `NewestOnly`. Remembered counts are cleared when
+ * returning to `OldestFirst`, since the consumer speed has changed.
+ *
+ * The measurement following a change is skipped, since it was partly taken with the previous settings.
+ *
+ * Logic does not depend on the camera, it can be tested with `SimulatedStream`.
+ *
+ * @param limits limits of settings and targets
+ * @param log    called with a description of each decision
+ */
+class StreamTuner(limits: Limits = Limits(), log: String => Unit = s => println(s"[StreamTuner] $s")) {
+
+  import limits.*
+
+  private var goodIntervals = 0
+  private var settling      = false
+
+  // Buffer counts found wrong: the largest one with drops above the limit, the smallest one with latency above it
+  private var droppingCount = 0
+  private var latencyCount  = Int.MaxValue
+
+  /** Decide settings for the next interval from the measurement of the last one, returns the change, if any. */
+  def update(current: StreamSettings, m: StreamMeasurement): Option[Decision] = {
+    if (settling) {
+      settling = false
+      return None
+    }
+
+    val latencyHigh = m.meanLatencyMillis > maxLatencyMillis
+    val dropsHigh   = m.dropRate > maxDropRate
+    goodIntervals = if (dropsHigh || latencyHigh) 0 else goodIntervals + 1
+
+    val decision = current.handlingMode match {
+      case BufferHandlingMode.OldestFirst =>
+        val count = current.bufferCount
+        if (latencyHigh) latencyCount = math.min(latencyCount, count)
+        if (dropsHigh) droppingCount = math.max(droppingCount, count)
+        val fewer = math.max(minBufferCount, count / 2)
+        val more  = math.min(maxBufferCount, count * 2)
+
+        if (latencyHigh && count > minBufferCount && fewer > droppingCount)
+          change(current, m, fewer, BufferHandlingMode.OldestFirst, "latency above limit")
+        else if (latencyHigh && count > minBufferCount)
+          change(current, m, count, BufferHandlingMode.NewestOnly, "latency above limit, fewer buffers drop frames")
+        else if (latencyHigh)
+          change(current, m, count, BufferHandlingMode.NewestOnly, "latency above limit at min buffers")
+        else if (dropsHigh && count < maxBufferCount && more < latencyCount)
+          change(current, m, more, BufferHandlingMode.OldestFirst, "drop rate above limit")
+        else if (dropsHigh && count < maxBufferCount)
+          change(current, m, count, BufferHandlingMode.NewestOnly, "drop rate above limit, more buffers add latency")
+        else if (dropsHigh)
+          change(current, m, count, BufferHandlingMode.NewestOnly, "drop rate above limit at max buffers")
+        else
+          None
+      case BufferHandlingMode.NewestOnly =>
+        if (goodIntervals >= stableIntervals) {
+          droppingCount = 0
+          latencyCount = Int.MaxValue
+          change(current, m, current.bufferCount, BufferHandlingMode.OldestFirst, "consumer keeps up")
+        } else None
+    }
+
+    decision.foreach { d =>
+      goodIntervals = 0
+      settling = true
+      log(d.toString)
+    }
+    decision
+  }
+
+  private def change(
+    current: StreamSettings,
+    m: StreamMeasurement,
+    bufferCount: Int,
+    mode: BufferHandlingMode,
+    reason: String
+  ): Option[Decision] = {
+    val next = StreamSettings(math.min(maxBufferCount, math.max(minBufferCount, bufferCount)), mode)
+    if (next == current) None else Option(Decision(current, next, m, reason))
+  }
+}
@@ -0,0 +1,55 @@
+package spinnaker_c.stream
+
+import spinnaker_c.stream.StreamTuner.Limits
+
+/**
+ * Runs `StreamTuner` against a `SimulatedStream`, no camera is needed.
+ *
+ * The consumer goes through phases: fast, with bursts of slow frames, too slow for the camera frame rate,
+ * and fast again. Measurement and settings of each interval are printed, with tuner decisions in between.
+ *
+ * Usage:
+ * {{{
+ *   StreamTunerSimulation [fps] [seconds per phase]
+ * }}}
+ */
+object StreamTunerSimulation {
+
+  def main(args: Array[String]): Unit = {
+    val fps             = if (args.length > 0) args(0).toDouble else 30
+    val secondsPerPhase = if (args.length > 1) args(1).toInt else 20
+
+    val period = 1000 / fps
+    // Name, processing time, jitter of processing time
+    val phases = Seq(
+      ("fast", 0.3 * period, 0.1 * period),
+      ("bursty", 0.5 * period, 1.0 * period),
+      ("slow", 1.5 * period, 0.2 * period),
+      ("fast", 0.3 * period, 0.1 * period)
+    )
+
+    val limits = Limits(minBufferCount = 3, maxBufferCount = 32, maxLatencyMillis = 4 * period, maxDropRate = 0.01)
+    val initial = StreamSettings(limits.minBufferCount, BufferHandlingMode.OldestFirst)
+    val stream  = new SimulatedStream(fps, phases.head._2, initialSettings = initial)
+    val tuner   = new StreamTuner(limits)
+
+    println(f"Camera at $fps%.1f fps, $limits")
+    var second = 0
+    for ((name, processingMillis, jitterMillis) <- phases) {
+      println(f"--- Consumer $name: processing $processingMillis%.1f ms + up to $jitterMillis%.1f ms")
+      stream.processingMillis = processingMillis
+      stream.processingJitterMillis = jitterMillis
+      for (_ <- 0 until secondsPerPhase) {
+        val settings = stream.settings
+        val m        = stream.run(1000)
+        second += 1
+        println(
+          f"$second%4d s  ${settings.toString}%-24s frames ${m.frames}%3d dropped ${m.dropped}%3d " +
+            f"latency ${m.meanLatencyMillis}%7.1f ms"
+        )
+        tuner.update(settings, m).foreach(d => stream.apply(d.to))
+      }
+    }
+    println(s"Acquisition restarts for buffer count changes: ${stream.restarts}")
+  }
+}
@@ -0,0 +1,65 @@
+package flandmark;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+
+
+/**
+ * Detects face landmarks in a batch of images using {@link BatchLandmarkDetector} and reports throughput in faces/s.
+ * <p>
+ * Image files can be provided as command line arguments. By default, {@code face.jpg} is processed repeatedly.
+ */
+public final class BatchExample {
+
+    public static void main(String[] args) {
+
+        final File faceCascadeFile = new File("haarcascade_frontalface_alt.xml");
+        final File flandmarkModelFile = new File("flandmark_model.dat");
+        final double detectionScale = 0.5;
+        final int nbRepeats = 5;
+
+        try {
+            final List<Mat> images = new ArrayList<>();
+            if (args.length > 0) {
+                for (final String arg : args) {
+                    images.add(imread(new File(arg).getCanonicalPath()));
+                }
+            } else {
+                final Mat image = imread(new File("face.jpg").getCanonicalPath());
+                for (int i = 0; i < 64; i++) {
+                    images.add(image);
+                }
+            }
+            System.out.println("Images in the batch: " + images.size());
+
+            final int maxThreads = Runtime.getRuntime().availableProcessors();
+            for (int nbThreads = 1; nbThreads <= maxThreads; nbThreads *= 2) {
+                try (BatchLandmarkDetector detector =
+                             new BatchLandmarkDetector(faceCascadeFile, flandmarkModelFile, nbThreads, detectionScale)) {
+
+                    // Warm up, also loads models in each of the worker threads
+                    detector.detect(images);
+
+                    long nbFaces = 0;
+                    final long t0 = System.nanoTime();
+                    for (int i = 0; i < nbRepeats; i++) {
+                        for (final BatchLandmarkDetector.ImageLandmarks r : detector.detect(images)) {
+                            nbFaces += r.faceCount;
+                        }
+                    }
+                    final double seconds = (System.nanoTime() - t0) / 1e9;
+
+                    System.out.printf("Threads: %2d, faces: %6d, %8.1f faces/s, %8.1f images/s%n",
+                            nbThreads, nbFaces, nbFaces / seconds, nbRepeats * images.size() / seconds);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
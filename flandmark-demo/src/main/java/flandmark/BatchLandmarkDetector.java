@@ -0,0 +1,203 @@
+package flandmark;
+
+import org.bytedeco.flandmark.FLANDMARK_Model;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.CascadeClassifier;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.bytedeco.flandmark.global.flandmark.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+
+/**
+ * Detects faces and their landmarks in many images (or video frames) using a pool of worker threads.
+ * <p>
+ * Faces are detected with a cascade classifier on a downscaled copy of each image, landmarks are then detected
+ * with flandmark on the full resolution image. Each worker thread owns its own cascade classifier,
+ * its own flandmark model, and its own scratch arrays, so no state is shared between threads.
+ * <p>
+ * Images are processed concurrently, so images passed to {@link #detect(List)} must not be modified until the method
+ * returns. Video frames have to be copied, for instance with {@code Mat.clone()}, since frame grabbers reuse their
+ * buffers.
+ */
+public final class BatchLandmarkDetector implements AutoCloseable {
+
+    /**
+     * Faces and landmarks detected in a single image.
+     * <p>
+     * Values for all faces are stored in flat primitive arrays: face {@code i} has bounding box
+     * {@code boxes[4*i .. 4*i+3]} as {@code (x1, y1, x2, y2)}, and landmarks
+     * {@code landmarks[2*M*i .. 2*M*(i+1)-1]} as {@code (x, y)} pairs, where {@code M} is
+     * {@link #landmarksPerFace}.
+     */
+    public static final class ImageLandmarks {
+        public final int faceCount;
+        public final int landmarksPerFace;
+        public final int[] boxes;
+        public final double[] landmarks;
+
+        ImageLandmarks(final int faceCount, final int landmarksPerFace, final int[] boxes, final double[] landmarks) {
+            this.faceCount = faceCount;
+            this.landmarksPerFace = landmarksPerFace;
+            this.boxes = boxes;
+            this.landmarks = landmarks;
+        }
+    }
+
+    /**
+     * State owned by a single worker thread.
+     */
+    private final class Worker {
+        final CascadeClassifier faceCascade;
+        final FLANDMARK_Model model;
+        final int landmarksPerFace;
+        final int[] bbox = new int[4];
+        final double[] faceLandmarks;
+        final Mat gray = new Mat();
+        final Mat small = new Mat();
+        final RectVector faces = new RectVector();
+
+        Worker() throws IOException {
+            faceCascade = new CascadeClassifier(faceCascadeFile.getCanonicalPath());
+            if (faceCascade.empty()) {
+                throw new IOException("Failed to load face cascade from file: " + faceCascadeFile.getAbsolutePath());
+            }
+            model = flandmark_init(flandmarkModelFile.getPath());
+            if (model == null) {
+                throw new IOException("Failed to load FLandmark model from file: " + flandmarkModelFile.getAbsolutePath());
+            }
+            landmarksPerFace = model.data().options().M();
+            faceLandmarks = new double[2 * landmarksPerFace];
+        }
+
+        ImageLandmarks process(final Mat image) {
+            if (image.channels() == 1) {
+                image.copyTo(gray);
+            } else {
+                cvtColor(image, gray, COLOR_BGR2GRAY);
+            }
+
+            // Detect faces on a downscaled copy
+            resize(gray, small, new Size(), detectionScale, detectionScale, INTER_AREA);
+            faceCascade.detectMultiScale(small, faces);
+
+            final int nFaces = (int) faces.size();
+            final int[] boxes = new int[4 * nFaces];
+            final double[] landmarks = new double[2 * landmarksPerFace * nFaces];
+            int nDetected = 0;
+
+            // One image header for all faces in the image
+            final IplImage grayIpl = new IplImage(gray);
+            for (int iface = 0; iface < nFaces; ++iface) {
+                final Rect rect = faces.get(iface);
+
+                // Scale face location to full resolution
+                bbox[0] = (int) (rect.x() / detectionScale);
+                bbox[1] = (int) (rect.y() / detectionScale);
+                bbox[2] = (int) ((rect.x() + rect.width()) / detectionScale);
+                bbox[3] = (int) ((rect.y() + rect.height()) / detectionScale);
+
+                if (flandmark_detect(grayIpl, bbox, model, faceLandmarks) == 0) {
+                    System.arraycopy(bbox, 0, boxes, 4 * nDetected, 4);
+                    System.arraycopy(faceLandmarks, 0, landmarks, faceLandmarks.length * nDetected, faceLandmarks.length);
+                    nDetected++;
+                }
+            }
+
+            if (nDetected == nFaces) {
+                return new ImageLandmarks(nDetected, landmarksPerFace, boxes, landmarks);
+            } else {
+                // Drop faces where landmark detection failed
+                return new ImageLandmarks(nDetected, landmarksPerFace,
+                        Arrays.copyOf(boxes, 4 * nDetected),
+                        Arrays.copyOf(landmarks, faceLandmarks.length * nDetected));
+            }
+        }
+
+        void release() {
+            flandmark_free(model);
+            faceCascade.close();
+        }
+    }
+
+    private final File faceCascadeFile;
+    private final File flandmarkModelFile;
+    private final double detectionScale;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Worker> worker = new ThreadLocal<>();
+
+    /**
+     * @param faceCascadeFile    face cascade classifier file, for instance, {@code haarcascade_frontalface_alt.xml}
+     * @param flandmarkModelFile flandmark model file, for instance, {@code flandmark_model.dat}
+     * @param nbThreads          number of worker threads
+     * @param detectionScale     scale of the image copy used for face detection, {@code 1} is the full resolution
+     */
+    public BatchLandmarkDetector(final File faceCascadeFile,
+                                 final File flandmarkModelFile,
+                                 final int nbThreads,
+                                 final double detectionScale) throws FileNotFoundException {
+        if (!faceCascadeFile.exists()) {
+            throw new FileNotFoundException("Face cascade file does not exist: " + faceCascadeFile.getAbsolutePath());
+        }
+        if (!flandmarkModelFile.exists()) {
+            throw new FileNotFoundException("FLandmark model file does not exist: " + flandmarkModelFile.getAbsolutePath());
+        }
+        if (nbThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1, got: " + nbThreads);
+        }
+        if (detectionScale <= 0 || detectionScale > 1) {
+            throw new IllegalArgumentException("Detection scale must be in range (0, 1], got: " + detectionScale);
+        }
+
+        this.faceCascadeFile = faceCascadeFile;
+        this.flandmarkModelFile = flandmarkModelFile;
+        this.detectionScale = detectionScale;
+        this.executor = Executors.newFixedThreadPool(nbThreads);
+    }
+
+    /**
+     * Detect faces and their landmarks in all images.
+     *
+     * @return results for each image, in the same order as {@code images}
+     */
+    public List<ImageLandmarks> detect(final List<Mat> images) throws InterruptedException, ExecutionException {
+        final List<Future<ImageLandmarks>> futures = new ArrayList<>(images.size());
+        for (final Mat image : images) {
+            futures.add(executor.submit(() -> currentWorker().process(image)));
+        }
+
+        final List<ImageLandmarks> results = new ArrayList<>(images.size());
+        for (final Future<ImageLandmarks> f : futures) {
+            results.add(f.get());
+        }
+        return results;
+    }
+
+    private Worker currentWorker() throws IOException {
+        Worker w = worker.get();
+        if (w == null) {
+            w = new Worker();
+            worker.set(w);
+            workers.add(w);
+        }
+        return w;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        for (final Worker w : workers) {
+            w.release();
+        }
+        workers.clear();
+    }
+}
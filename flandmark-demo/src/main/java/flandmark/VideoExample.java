@@ -0,0 +1,106 @@
+package flandmark;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.javacv.OpenCVFrameGrabber;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.CascadeClassifier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.opencv.global.opencv_core.BORDER_REPLICATE;
+import static org.bytedeco.opencv.global.opencv_core.copyMakeBorder;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2GRAY;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+
+
+/**
+ * Compares per-frame face detection latency of the default full-frame {@code detectMultiScale}, as used in
+ * {@link Example1}, with {@link VideoFaceDetector} that searches a downscaled frame and reuses face locations
+ * from the previous frame.
+ * <p>
+ * A video file can be provided as a command line argument. By default, a synthetic video is created by moving
+ * {@code face.jpg} horizontally.
+ */
+public final class VideoExample {
+
+    private static List<Mat> loadFrames(final String[] args) throws Exception {
+        final List<Mat> frames = new ArrayList<>();
+        if (args.length > 0) {
+            try (OpenCVFrameGrabber grabber = new OpenCVFrameGrabber(new File(args[0]).getCanonicalPath());
+                 OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat()) {
+                grabber.start();
+                Frame frame;
+                while ((frame = grabber.grab()) != null) {
+                    final Mat gray = new Mat();
+                    cvtColor(converter.convert(frame), gray, COLOR_BGR2GRAY);
+                    frames.add(gray);
+                }
+                grabber.stop();
+            }
+        } else {
+            final Mat gray = new Mat();
+            cvtColor(imread(new File("face.jpg").getCanonicalPath()), gray, COLOR_BGR2GRAY);
+            final int maxShift = gray.cols() / 4;
+            final Mat padded = new Mat();
+            copyMakeBorder(gray, padded, 0, 0, maxShift, maxShift, BORDER_REPLICATE);
+            for (int shift = 0; shift <= 2 * maxShift; shift += 2) {
+                frames.add(new Mat(padded, new Rect(shift, 0, gray.cols(), gray.rows())).clone());
+            }
+        }
+        return frames;
+    }
+
+    private static void printLatency(final String title, final long[] latencies, final long nbFaces) {
+        long sum = 0;
+        long max = 0;
+        for (final long t : latencies) {
+            sum += t;
+            max = Math.max(max, t);
+        }
+        System.out.printf("%-28s: mean %7.2f ms, max %7.2f ms, faces per frame %5.2f%n",
+                title, sum / 1e6 / latencies.length, max / 1e6, nbFaces / (double) latencies.length);
+    }
+
+    public static void main(String[] args) {
+
+        final File faceCascadeFile = new File("haarcascade_frontalface_alt.xml");
+
+        try {
+            final CascadeClassifier faceCascade = new CascadeClassifier(faceCascadeFile.getCanonicalPath());
+
+            final List<Mat> frames = loadFrames(args);
+            System.out.println("Frames: " + frames.size());
+
+            // Default full frame search
+            final long[] latencyOff = new long[frames.size()];
+            long facesOff = 0;
+            final RectVector faces = new RectVector();
+            for (int i = 0; i < frames.size(); i++) {
+                final long t0 = System.nanoTime();
+                faceCascade.detectMultiScale(frames.get(i), faces);
+                latencyOff[i] = System.nanoTime() - t0;
+                facesOff += faces.size();
+            }
+
+            // Downscaled search with ROI carry-over
+            final VideoFaceDetector detector = new VideoFaceDetector(faceCascade);
+            final long[] latencyOn = new long[frames.size()];
+            long facesOn = 0;
+            for (int i = 0; i < frames.size(); i++) {
+                final long t0 = System.nanoTime();
+                facesOn += detector.detect(frames.get(i)).size();
+                latencyOn[i] = System.nanoTime() - t0;
+            }
+
+            printLatency("Full frame search", latencyOff, facesOff);
+            printLatency("Downscaled with ROI carry-over", latencyOn, facesOn);
+            System.out.println("  full searches: " + detector.fullSearchCount());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package flandmark;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.CascadeClassifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+
+/**
+ * Face detector for video streams that reduces the cost of {@code CascadeClassifier.detectMultiScale}.
+ * <p>
+ * Faces are searched on a downscaled copy of the frame with tuned {@code scaleFactor} and {@code minSize}.
+ * Faces found in the previous frame are used as search regions (ROIs) in the next frame, limited to a range of sizes
+ * around the previous face size. The whole frame is searched only every {@code fullSearchInterval} frames,
+ * or when no faces were found in the previous frame.
+ * <p>
+ * The detector keeps state between frames, use a separate instance for each video stream.
+ */
+public final class VideoFaceDetector {
+
+    private final CascadeClassifier faceCascade;
+    private final double scale;
+    private final double scaleFactor;
+    private final int minNeighbors;
+    private final int minFaceSize;
+    private final int fullSearchInterval;
+    private final double roiMargin;
+
+    private final Mat small = new Mat();
+    private final RectVector found = new RectVector();
+    private List<Rect> previousFaces = new ArrayList<>();
+    private long framesSinceFullSearch = 0;
+    private long fullSearchCount = 0;
+
+    /**
+     * @param faceCascade        face cascade classifier
+     * @param scale              scale of the frame copy used for searching, {@code 1} is the full resolution
+     * @param scaleFactor        how much the search window size is increased between cascade scales,
+     *                           larger values are faster but may miss faces
+     * @param minNeighbors       minimum number of neighbor detections needed to retain a face
+     * @param minFaceSize        minimum face size, in full resolution pixels
+     * @param fullSearchInterval the whole frame is searched at least once every {@code fullSearchInterval} frames
+     * @param roiMargin          margin added around previous face location to create search ROI, as a fraction of
+     *                           the face size
+     */
+    public VideoFaceDetector(final CascadeClassifier faceCascade,
+                             final double scale,
+                             final double scaleFactor,
+                             final int minNeighbors,
+                             final int minFaceSize,
+                             final int fullSearchInterval,
+                             final double roiMargin) {
+        if (scale <= 0 || scale > 1) {
+            throw new IllegalArgumentException("Scale must be in range (0, 1], got: " + scale);
+        }
+        if (fullSearchInterval < 1) {
+            throw new IllegalArgumentException("Full search interval must be at least 1, got: " + fullSearchInterval);
+        }
+        this.faceCascade = faceCascade;
+        this.scale = scale;
+        this.scaleFactor = scaleFactor;
+        this.minNeighbors = minNeighbors;
+        this.minFaceSize = minFaceSize;
+        this.fullSearchInterval = fullSearchInterval;
+        this.roiMargin = roiMargin;
+    }
+
+    /**
+     * Detector with settings suitable for faces that are at least 1/8 of the frame height in a VGA video.
+     */
+    public VideoFaceDetector(final CascadeClassifier faceCascade) {
+        this(faceCascade, 0.5, 1.2, 3, 60, 15, 0.5);
+    }
+
+    /**
+     * Detect faces in the next frame of a video.
+     *
+     * @param gray gray level frame
+     * @return face locations, in full resolution coordinates
+     */
+    public List<Rect> detect(final Mat gray) {
+        resize(gray, small, new Size(), scale, scale, INTER_AREA);
+
+        final List<Rect> faces;
+        if (previousFaces.isEmpty() || framesSinceFullSearch >= fullSearchInterval) {
+            faces = fullSearch();
+            framesSinceFullSearch = 1;
+            fullSearchCount++;
+        } else {
+            faces = roiSearch();
+            framesSinceFullSearch++;
+        }
+
+        previousFaces = faces;
+        return faces;
+    }
+
+    /**
+     * Number of frames where the whole frame was searched.
+     */
+    public long fullSearchCount() {
+        return fullSearchCount;
+    }
+
+    private List<Rect> fullSearch() {
+        final int minSize = (int) Math.round(minFaceSize * scale);
+        faceCascade.detectMultiScale(small, found, scaleFactor, minNeighbors, 0,
+                new Size(minSize, minSize), new Size());
+        final List<Rect> faces = new ArrayList<>();
+        for (long i = 0; i < found.size(); i++) {
+            faces.add(toFullResolution(found.get(i), 0, 0));
+        }
+        return faces;
+    }
+
+    private List<Rect> roiSearch() {
+        final List<Rect> faces = new ArrayList<>();
+        for (final Rect previous : previousFaces) {
+            // Previous face location, with margin, in search image coordinates
+            final int margin = (int) Math.round(Math.max(previous.width(), previous.height()) * roiMargin * scale);
+            final int x1 = Math.max(0, (int) (previous.x() * scale) - margin);
+            final int y1 = Math.max(0, (int) (previous.y() * scale) - margin);
+            final int x2 = Math.min(small.cols(), (int) ((previous.x() + previous.width()) * scale) + margin);
+            final int y2 = Math.min(small.rows(), (int) ((previous.y() + previous.height()) * scale) + margin);
+            if (x2 <= x1 || y2 <= y1) {
+                continue;
+            }
+
+            // Face size is not expected to change much between frames
+            final int previousSize = (int) Math.round(previous.width() * scale);
+            final int minSize = Math.max(1, (int) (previousSize / 1.4));
+            final int maxSize = (int) Math.ceil(previousSize * 1.4);
+
+            try (Mat roi = new Mat(small, new Rect(x1, y1, x2 - x1, y2 - y1))) {
+                faceCascade.detectMultiScale(roi, found, scaleFactor, minNeighbors, 0,
+                        new Size(minSize, minSize), new Size(maxSize, maxSize));
+            }
+            for (long i = 0; i < found.size(); i++) {
+                final Rect face = toFullResolution(found.get(i), x1, y1);
+                // ROIs of faces close to each other overlap, a face may be found in more than one of them
+                if (!containsCentre(faces, face)) {
+                    faces.add(face);
+                }
+            }
+        }
+        return faces;
+    }
+
+    private static boolean containsCentre(final List<Rect> faces, final Rect r) {
+        final int cx = r.x() + r.width() / 2;
+        final int cy = r.y() + r.height() / 2;
+        for (final Rect f : faces) {
+            if (cx >= f.x() && cx < f.x() + f.width() && cy >= f.y() && cy < f.y() + f.height()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Rect toFullResolution(final Rect r, final int offsetX, final int offsetY) {
+        return new Rect(
+                (int) ((r.x() + offsetX) / scale),
+                (int) ((r.y() + offsetY) / scale),
+                (int) (r.width() / scale),
+                (int) (r.height() / scale));
+    }
+}